@@ -1,5 +1,52 @@
+-- SQLite schema (DB_URL=jdbc:sqlite:craft.db); SqliteUserRepository.initSchema() creates the same tables.
 CREATE TABLE IF NOT EXISTS github_users (
                                             login TEXT PRIMARY KEY,
                                             name TEXT,
-                                            created_at TEXT
-);
\ No newline at end of file
+                                            created_at TEXT,
+                                            contact_hash TEXT
+);
+
+CREATE TABLE IF NOT EXISTS github_user_etags (
+                                                 login TEXT PRIMARY KEY,
+                                                 etag TEXT,
+                                                 last_modified TEXT,
+                                                 name TEXT,
+                                                 created_at TEXT,
+                                                 email TEXT,
+                                                 location TEXT,
+                                                 twitter_username TEXT
+);
+
+CREATE TABLE IF NOT EXISTS freshdesk_contact_ids (
+                                                     unique_external_id TEXT PRIMARY KEY,
+                                                     contact_id INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS sync_runs (
+                                         run_id TEXT PRIMARY KEY,
+                                         source TEXT,
+                                         status TEXT NOT NULL,
+                                         input_offset INTEGER NOT NULL DEFAULT 0,
+                                         started_at TEXT DEFAULT CURRENT_TIMESTAMP,
+                                         finished_at TEXT
+);
+
+CREATE TABLE IF NOT EXISTS sync_run_items (
+                                              run_id TEXT NOT NULL,
+                                              login TEXT NOT NULL,
+                                              status TEXT NOT NULL,
+                                              error TEXT,
+                                              updated_at TEXT DEFAULT CURRENT_TIMESTAMP,
+                                              PRIMARY KEY (run_id, login)
+);
+
+CREATE TABLE IF NOT EXISTS freshdesk_outbox (
+                                                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                                login TEXT NOT NULL UNIQUE,
+                                                contact_hash TEXT NOT NULL,
+                                                payload TEXT NOT NULL,
+                                                attempts INTEGER NOT NULL DEFAULT 0,
+                                                last_error TEXT,
+                                                available_at INTEGER NOT NULL -- epoch milliseconds
+);
+CREATE INDEX IF NOT EXISTS idx_outbox_due ON freshdesk_outbox(available_at, id);
@@ -0,0 +1,71 @@
+package org.example.craft.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.example.craft.http.SimpleHttp;
+
+/**
+ * Canned payloads and in-memory transports shared by the benchmarks.
+ */
+final class Fixtures {
+  private Fixtures() {}
+
+  /** A full {@code /users/{username}} response, including the fields the DTO ignores. */
+  static final byte[] GITHUB_USER_JSON = ("{"
+          + "\"login\":\"octocat\",\"id\":583231,\"node_id\":\"MDQ6VXNlcjU4MzIzMQ==\","
+          + "\"avatar_url\":\"https://avatars.githubusercontent.com/u/583231?v=4\",\"gravatar_id\":\"\","
+          + "\"url\":\"https://api.github.com/users/octocat\",\"html_url\":\"https://github.com/octocat\","
+          + "\"followers_url\":\"https://api.github.com/users/octocat/followers\","
+          + "\"following_url\":\"https://api.github.com/users/octocat/following{/other_user}\","
+          + "\"gists_url\":\"https://api.github.com/users/octocat/gists{/gist_id}\","
+          + "\"starred_url\":\"https://api.github.com/users/octocat/starred{/owner}{/repo}\","
+          + "\"subscriptions_url\":\"https://api.github.com/users/octocat/subscriptions\","
+          + "\"organizations_url\":\"https://api.github.com/users/octocat/orgs\","
+          + "\"repos_url\":\"https://api.github.com/users/octocat/repos\","
+          + "\"events_url\":\"https://api.github.com/users/octocat/events{/privacy}\","
+          + "\"received_events_url\":\"https://api.github.com/users/octocat/received_events\","
+          + "\"type\":\"User\",\"site_admin\":false,\"name\":\"The Octocat\",\"company\":\"@github\","
+          + "\"blog\":\"https://github.blog\",\"location\":\"San Francisco\",\"email\":\"octocat@github.com\","
+          + "\"hireable\":null,\"bio\":null,\"twitter_username\":\"github\",\"public_repos\":8,"
+          + "\"public_gists\":8,\"followers\":9999,\"following\":9,"
+          + "\"created_at\":\"2011-01-25T18:44:36Z\",\"updated_at\":\"2024-01-22T12:13:38Z\""
+          + "}").getBytes(StandardCharsets.UTF_8);
+
+  /** A Freshdesk create/update response; the id comes after a nested object. */
+  static final byte[] FRESHDESK_CONTACT_JSON = ("{"
+          + "\"active\":false,\"address\":\"San Francisco\",\"company_id\":null,"
+          + "\"custom_fields\":{\"department\":null},\"email\":\"octocat@github.com\","
+          + "\"id\":432,\"name\":\"The Octocat\",\"twitter_id\":\"github\","
+          + "\"unique_external_id\":\"github:octocat\",\"created_at\":\"2024-01-22T12:13:38Z\""
+          + "}").getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * Answers like GitHub and Freshdesk for a contact that does not exist yet.
+   *
+   * @return transport that never touches the network
+   */
+  static SimpleHttp.Transport stubTransport() {
+    SimpleHttp.Response user = SimpleHttp.Response.ofBytes(200, GITHUB_USER_JSON, Map.of());
+    SimpleHttp.Response contact = SimpleHttp.Response.ofBytes(201, FRESHDESK_CONTACT_JSON, Map.of());
+    SimpleHttp.Response emptyList = new SimpleHttp.Response(200, "[]");
+    SimpleHttp.Response emptySearch = new SimpleHttp.Response(200, "{\"total\":0,\"results\":[]}");
+    return new SimpleHttp.Transport() {
+      @Override
+      public SimpleHttp.Response call(String method, String url, Map<String, String> headers, String body) {
+        if (url.startsWith("https://api.github.com/")) {
+          return user;
+        }
+        if (!"GET".equals(method)) {
+          return contact;
+        }
+        return url.contains("/search/") ? emptySearch : emptyList;
+      }
+
+      /** Encoded payloads are taken as they are, like {@link SimpleHttp.DefaultTransport} does. */
+      @Override
+      public SimpleHttp.Response callBytes(String method, String url, Map<String, String> headers, byte[] body) {
+        return call(method, url, headers, null);
+      }
+    };
+  }
+}
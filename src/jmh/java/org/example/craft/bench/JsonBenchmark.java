@@ -0,0 +1,62 @@
+package org.example.craft.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.util.concurrent.TimeUnit;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.freshdesk.dto.FreshdeskContact;
+import org.example.craft.github.GitHubClient;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.mapper.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON handling of the clients: {@link GitHubUser} binding and the Freshdesk
+ * request payload / id round trip, against an in-memory transport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+  private final ObjectReader userReader = new ObjectMapper().readerFor(GitHubUser.class);
+  private GitHubClient githubClient;
+  private FreshdeskClient freshdeskClient;
+  private FreshdeskContact contact;
+
+  @Setup
+  public void setUp() throws Exception {
+    githubClient = new GitHubClient(Fixtures.stubTransport(), "token");
+    freshdeskClient = new FreshdeskClient(Fixtures.stubTransport(), "bench", "token");
+    contact = Mapper.map(userReader.readValue(Fixtures.GITHUB_USER_JSON));
+  }
+
+  /** Plain data binding of the GitHub user DTO. */
+  @Benchmark
+  public GitHubUser deserializeGitHubUser() throws Exception {
+    return userReader.readValue(Fixtures.GITHUB_USER_JSON);
+  }
+
+  /** {@link GitHubClient#getUser}: headers, status handling and binding. */
+  @Benchmark
+  public GitHubUser getUser() throws Exception {
+    return githubClient.getUser("octocat");
+  }
+
+  /** {@link FreshdeskClient#create}: payload building plus id extraction. */
+  @Benchmark
+  public String createContact() throws Exception {
+    return freshdeskClient.create(contact);
+  }
+}
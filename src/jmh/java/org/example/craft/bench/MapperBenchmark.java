@@ -0,0 +1,47 @@
+package org.example.craft.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.example.craft.freshdesk.dto.FreshdeskContact;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.mapper.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Mapper#map} and {@link Mapper#fingerprint} on a fully populated user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+  private GitHubUser user;
+  private FreshdeskContact contact;
+
+  @Setup
+  public void setUp() throws Exception {
+    user = new ObjectMapper().readValue(Fixtures.GITHUB_USER_JSON, GitHubUser.class);
+    contact = Mapper.map(user);
+  }
+
+  @Benchmark
+  public FreshdeskContact map() {
+    return Mapper.map(user);
+  }
+
+  @Benchmark
+  public String fingerprint() {
+    return Mapper.fingerprint(contact);
+  }
+}
@@ -0,0 +1,153 @@
+package org.example.craft.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cold single-user sync as cron runs it: {@code java -jar <shaded jar> --user octocat} in a new
+ * process, against a local stub of GitHub and Freshdesk and a fresh SQLite file. The score covers
+ * JVM boot, class loading of Jackson, {@code HttpClient} and the JDBC driver, and the sync itself.
+ * <p>
+ * With {@code archive=appcds} the archive is recorded once per trial through {@code --cds-record}
+ * and every run is started with {@code -XX:SharedArchiveFile}. The jar is taken from the
+ * {@code craft.jar} system property, which the {@code bench} profile sets to the packaged jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class StartupBenchmark {
+  private static final List<String> SYNC_ARGS = List.of("--user", "octocat", "--subdomain", "bench");
+
+  @Param({"none", "appcds"})
+  public String archive;
+
+  private HttpServer stub;
+  private Path workDir;
+  private Path jar;
+  private Path archiveFile;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    jar = Path.of(System.getProperty("craft.jar", "target/craft-java-1.0.0.jar")).toAbsolutePath();
+    if (!Files.isRegularFile(jar)) {
+      throw new IllegalStateException("Shaded jar not found, run mvn package first: " + jar);
+    }
+    workDir = Files.createTempDirectory("craft-startup");
+    stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    stub.createContext("/", StartupBenchmark::answer);
+    stub.start();
+    if ("appcds".equals(archive)) {
+      archiveFile = workDir.resolve("craft.jsa");
+      List<String> record = new ArrayList<>(List.of("--cds-record", archiveFile.toString()));
+      record.addAll(SYNC_ARGS);
+      launch(List.of(), record);
+      if (!Files.isRegularFile(archiveFile)) {
+        throw new IllegalStateException("No archive was recorded at " + archiveFile);
+      }
+    }
+  }
+
+  /** Every run starts with an empty database, so each one creates the contact. */
+  @Setup(Level.Invocation)
+  public void freshDatabase() throws IOException {
+    try (Stream<Path> files = Files.list(workDir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (file.getFileName().toString().startsWith("craft.db")) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    stub.stop(0);
+    try (Stream<Path> files = Files.walk(workDir)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public void firstSync() throws Exception {
+    launch(archiveFile != null ? List.of("-XX:SharedArchiveFile=" + archiveFile) : List.of(), SYNC_ARGS);
+  }
+
+  /**
+   * Runs {@code java <jvmOptions> -jar <jar> <args>} against the stub and waits for it to exit.
+   *
+   * @throws IllegalStateException with the output of the process if it fails
+   */
+  private void launch(List<String> jvmOptions, List<String> args) throws Exception {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    command.add("-jar");
+    command.add(jar.toString());
+    command.addAll(args);
+    Path log = workDir.resolve("run.log");
+    ProcessBuilder builder = new ProcessBuilder(command)
+            .directory(workDir.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile());
+    String base = "http://127.0.0.1:" + stub.getAddress().getPort();
+    builder.environment().put("GITHUB_API_URL", base + "/github");
+    builder.environment().put("FRESHDESK_API_URL", base + "/freshdesk/api/v2");
+    builder.environment().put("GITHUB_TOKEN", "token");
+    builder.environment().put("FRESHDESK_TOKEN", "token");
+    builder.environment().put("DB_URL", "jdbc:sqlite:" + workDir.resolve("craft.db"));
+    int exitCode = builder.start().waitFor();
+    if (exitCode != 0) {
+      throw new IllegalStateException("Exit code " + exitCode + " of " + command + ":\n" + Files.readString(log));
+    }
+  }
+
+  /** Answers like GitHub and Freshdesk for a contact that does not exist yet. */
+  private static void answer(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    byte[] body;
+    int status = 200;
+    if (path.startsWith("/github/")) {
+      body = Fixtures.GITHUB_USER_JSON;
+    } else if (!"GET".equals(exchange.getRequestMethod())) {
+      body = Fixtures.FRESHDESK_CONTACT_JSON;
+      status = 201;
+    } else {
+      body = (path.contains("/search/") ? "{\"total\":0,\"results\":[]}" : "[]").getBytes(StandardCharsets.UTF_8);
+    }
+    exchange.getRequestBody().readAllBytes();
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package org.example.craft.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.example.craft.App;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.github.GitHubClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end {@link App#execute}: GitHub fetch, mapping, Freshdesk lookup and create,
+ * all against an in-memory transport, so only the CPU and allocation cost of the flow is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncFlowBenchmark {
+  private final App app = new App();
+  private GitHubClient githubClient;
+  private FreshdeskClient freshdeskClient;
+
+  @Setup
+  public void setUp() {
+    githubClient = new GitHubClient(Fixtures.stubTransport(), "token");
+    freshdeskClient = new FreshdeskClient(Fixtures.stubTransport(), "bench", "token");
+  }
+
+  @Benchmark
+  public void execute() throws Exception {
+    app.execute("octocat", githubClient, freshdeskClient);
+  }
+}
@@ -1,20 +1,29 @@
 package org.example.craft;
 
-import org.example.craft.evn.Env;
+import java.util.Iterator;
+import java.util.function.Function;
+import org.example.craft.daemon.SyncDaemon;
+import org.example.craft.daemon.SyncJob;
 import org.example.craft.github.GitHubClient;
-import org.example.craft.github.dto.GitHubUser;
-import org.example.craft.mapper.Mapper;
+import org.example.craft.github.MemberSource;
 import org.example.craft.freshdesk.FreshdeskClient;
-import org.example.craft.freshdesk.dto.FreshdeskContact;
-import org.example.craft.http.SimpleHttp;
-import org.example.craft.db.MySqlUserRepository;
-import org.example.craft.db.UserSnapshot;
+import org.example.craft.db.UserRepository;
+import org.example.craft.db.SnapshotWriter;
+import org.example.craft.db.WriteBehindBuffer;
+import org.example.craft.sync.BatchedUserLookup;
+import org.example.craft.sync.BulkSync;
+import org.example.craft.sync.JournaledRun;
+import org.example.craft.sync.Outbox;
+import org.example.craft.sync.OutboxDrainer;
+import org.example.craft.sync.Reconciler;
+import org.example.craft.sync.SyncListener;
+import org.example.craft.sync.UserSync;
 
 /**
  * Main application orchestrator that ties together:
  * <ul>
  *   <li>GitHub API (fetching user information)</li>
- *   <li>MySQL database persistence (storing user snapshots)</li>
+ *   <li>MySQL or embedded SQLite persistence (storing user snapshots)</li>
  *   <li>Freshdesk API (creating/updating contacts)</li>
  * </ul>
  *
@@ -22,63 +31,201 @@ import org.example.craft.db.UserSnapshot;
  * <ol>
  *   <li>Load required environment variables (tokens and DB credentials).</li>
  *   <li>Initialize HTTP clients for GitHub and Freshdesk.</li>
- *   <li>Open MySQL repository and ensure schema exists.</li>
+ *   <li>Open the repository picked by {@code DB_URL} and ensure schema exists.</li>
  *   <li>Fetch GitHub user by login.</li>
- *   <li>Persist user in MySQL.</li>
+ *   <li>Skip the user if the mapped contact is unchanged since the last run.</li>
  *   <li>Create or update Freshdesk contact mapped from GitHub user.</li>
+ *   <li>Persist user in the DB.</li>
  * </ol>
+ *
+ * <p>In bulk mode steps 1–3 happen once and steps 4–7 run for every login
+ * of the input, with bounded concurrency (see {@link BulkSync}).</p>
+ *
+ * <p>Clients, transport stack and repository live in an {@link AppContext}: one per CLI run,
+ * or one for the whole lifetime of the daemon ({@link SyncDaemon}), where {@link #runJob}
+ * executes the submitted jobs.</p>
  */
 public final class App {
 
+  /** Longest time a snapshot waits in the write-behind buffer. */
+  private static final long WRITE_BEHIND_MAX_DELAY_MILLIS = 1000;
+
   /**
-   * Entry point for normal execution with MySQL enabled.
+   * Entry point for normal execution with the DB enabled.
    *
    * @param githubUsername     GitHub login (e.g., "octocat")
    * @param freshdeskSubdomain Freshdesk subdomain (e.g., "mycompany")
    * @throws Exception if any I/O, DB, or API operation fails
    */
   public void run(String githubUsername, String freshdeskSubdomain) throws Exception {
-    // Required environment variables
-    String githubToken    = Env.require("GITHUB_TOKEN");
-    String freshdeskToken = Env.require("FRESHDESK_TOKEN");
+    try (AppContext context = AppContext.open(freshdeskSubdomain)) {
+      new UserSync(context.getGithubClient(), context.getFreshdeskClient(), context.getRepository())
+              .sync(githubUsername);
+    }
+  }
 
-    // MySQL credentials
-    String dbUrl      = Env.require("DB_URL");
-    String dbUser     = Env.require("DB_USER");
-    String dbPassword = Env.require("DB_PASSWORD");
+  /**
+   * Entry point for bulk execution: syncs every login of the source while sharing
+   * one set of HTTP clients and one repository between all workers.
+   * <p>
+   * With {@code --write-behind} the snapshots are written by a {@link WriteBehindBuffer}
+   * in batched transactions instead of one autocommit per row. With {@code --batch-size}
+   * users are fetched through GraphQL in batches by a {@link BatchedUserLookup}.
+   * Progress is journaled per login ({@link JournaledRun}); {@code --resume <runId>} skips the
+   * logins an earlier run already completed. With {@code --reconcile} all Freshdesk contacts are
+   * scanned once up front and matched by a {@link Reconciler} instead of being looked up per user.
+   * With {@code --outbox <n>} workers only write to the {@link Outbox}, and the context's
+   * {@link OutboxDrainer} pushes to Freshdesk with {@code n} workers of its own.
+   *
+   * @param logins  source of GitHub logins (consumed lazily)
+   * @param cliArgs parsed options (subdomain, concurrency, write-behind batch size)
+   * @return throughput and latency summary of the run
+   * @throws Exception if setup fails; failures of single logins are only counted
+   */
+  public BulkSync.Summary runBulk(Iterator<String> logins, CliArgs cliArgs) throws Exception {
+    try (AppContext context = AppContext.open(cliArgs.getFreshdeskSubdomain())) {
+      return runBulk(context, githubClient -> logins, "users-file:" + cliArgs.getUsersFile(), cliArgs);
+    }
+  }
 
-    // Initialize HTTP + API clients
-    SimpleHttp.Transport httpTransport = new SimpleHttp.DefaultTransport();
-    GitHubClient githubClient    = new GitHubClient(httpTransport, githubToken);
-    FreshdeskClient freshdeskClient = new FreshdeskClient(httpTransport, freshdeskSubdomain, freshdeskToken);
+  /**
+   * Entry point for syncing the members of a GitHub organization ({@code --org}) or of one
+   * of its teams ({@code --team}).
+   *
+   * @param cliArgs parsed options (org, team, subdomain, concurrency, write-behind batch size)
+   * @return throughput and latency summary of the run
+   * @throws Exception if setup fails or a member page cannot be fetched
+   */
+  public BulkSync.Summary runMembers(CliArgs cliArgs) throws Exception {
+    try (AppContext context = AppContext.open(cliArgs.getFreshdeskSubdomain())) {
+      return runMembers(context, cliArgs);
+    }
+  }
 
-    try (MySqlUserRepository repo = new MySqlUserRepository(dbUrl, dbUser, dbPassword)) {
-      repo.open();
-      repo.initSchema(); // auto-create table if missing
+  /**
+   * Runs one daemon job with the daemon's long-lived context.
+   *
+   * @param context open context shared by all jobs
+   * @param job     job to run
+   * @return run summary, or a short note for a single-user job
+   * @throws Exception if the job fails
+   */
+  public String runJob(AppContext context, SyncJob job) throws Exception {
+    CliArgs jobArgs = job.getArgs();
+    if (jobArgs.getGithubUser() != null) {
+      UserRepository repo = context.getRepository();
+      Outbox outbox = jobArgs.getOutboxConcurrency() > 0 ? repo : null;
+      if (outbox != null) {
+        context.outboxDrainer(jobArgs.getOutboxConcurrency());
+      }
+      UserSync.Outcome outcome = new UserSync(context.getGithubClient(), context.getFreshdeskClient(), repo,
+              repo::upsert, SyncListener.NONE, outbox).sync(jobArgs.getGithubUser());
+      return outcome.name();
+    }
+    BulkSync.Summary summary = jobArgs.getOrg() != null
+            ? runMembers(context, jobArgs)
+            : runBulk(context, githubClient -> job.getLogins().iterator(), "daemon-job:" + job.getId(), jobArgs);
+    return summary.toString();
+  }
 
-      // 1. GitHub → user
-      GitHubUser githubUser = githubClient.getUser(githubUsername);
+  /**
+   * Member sync over an open context.
+   * <p>
+   * Member pages are fetched ahead by a {@link MemberSource}, so users of the first page
+   * are synced while later pages are still being listed.
+   *
+   * @param context open context
+   * @param cliArgs options with org and optional team
+   * @return throughput and latency summary of the run
+   * @throws Exception if a member page cannot be fetched
+   */
+  private BulkSync.Summary runMembers(AppContext context, CliArgs cliArgs) throws Exception {
+    String source = cliArgs.getTeam() != null
+            ? "team:" + cliArgs.getOrg() + "/" + cliArgs.getTeam()
+            : "org:" + cliArgs.getOrg();
+    return runBulk(context, githubClient -> cliArgs.getTeam() != null
+            ? MemberSource.forTeam(githubClient, cliArgs.getOrg(), cliArgs.getTeam(), MemberSource.DEFAULT_PREFETCH)
+            : MemberSource.forOrg(githubClient, cliArgs.getOrg(), MemberSource.DEFAULT_PREFETCH), source, cliArgs);
+  }
 
-      // 2. Persist in MySQL
-      persistUser(repo, githubUser);
+  /**
+   * Shared bulk flow: one repository, one transport stack and one pair of clients for all workers.
+   * <p>
+   * The run is closed in the journal even when the flow throws, and only after the write-behind
+   * buffer was flushed, so its last rows are journaled too.
+   *
+   * @param context     open context
+   * @param loginSource creates the login iterator once the GitHub client exists
+   * @param source      description of the source recorded in the run journal
+   * @param cliArgs     parsed options
+   * @return throughput and latency summary of the run
+   * @throws Exception if setup fails
+   */
+  private BulkSync.Summary runBulk(AppContext context, Function<GitHubClient, Iterator<String>> loginSource,
+                                   String source, CliArgs cliArgs) throws Exception {
+    UserRepository repo = context.getRepository();
+    JournaledRun run = cliArgs.getResumeRunId() != null
+            ? JournaledRun.resume(repo, cliArgs.getResumeRunId())
+            : JournaledRun.start(repo, source);
+    BulkSync.Summary summary = null;
+    try {
+      summary = syncJournaled(context, loginSource, cliArgs, run);
+    } finally {
+      run.finish(summary);
+    }
+    System.out.println(summary);
+    System.out.println(repo.connectionStats());
+    return summary;
+  }
 
-      // 3. Freshdesk create/update
-      FreshdeskContact payload = Mapper.map(githubUser);
-      FreshdeskContact existing = freshdeskClient.findByExternalId(payload.getUniqueExternalId());
-      if (existing == null) {
-        String id = freshdeskClient.create(payload);
-        System.out.println("Created contact #" + id + " for " + githubUser.getLogin());
-      } else {
-        String id = freshdeskClient.update(String.valueOf(existing.getId()), payload);
-        System.out.println("Updated contact #" + id + " for " + githubUser.getLogin());
+  /**
+   * Syncs every pending login of a journaled run and flushes the write-behind buffer.
+   *
+   * @param context     open context
+   * @param loginSource creates the login iterator once the GitHub client exists
+   * @param cliArgs     parsed options
+   * @param run         journaled run
+   * @return throughput and latency summary of the run
+   * @throws Exception if setup or the final flush fails
+   */
+  private BulkSync.Summary syncJournaled(AppContext context, Function<GitHubClient, Iterator<String>> loginSource,
+                                         CliArgs cliArgs, JournaledRun run) throws Exception {
+    UserRepository repo = context.getRepository();
+    GitHubClient githubClient = context.getGithubClient();
+    FreshdeskClient freshdeskClient = context.getFreshdeskClient();
+    try (WriteBehindBuffer buffer = cliArgs.getWriteBehindRows() > 0
+            ? new WriteBehindBuffer(repo, cliArgs.getWriteBehindRows(), WRITE_BEHIND_MAX_DELAY_MILLIS, run)
+            : null) {
+      SnapshotWriter snapshotWriter = buffer != null ? buffer : repo::upsert;
+      Reconciler reconciler = cliArgs.isReconcile()
+              ? Reconciler.prepare(githubClient, freshdeskClient, repo, snapshotWriter, run)
+              : null;
+      if (cliArgs.getOutboxConcurrency() > 0) {
+        context.outboxDrainer(cliArgs.getOutboxConcurrency());
+      }
+      UserSync userSync = new UserSync(githubClient, freshdeskClient, repo, snapshotWriter, run,
+              cliArgs.getOutboxConcurrency() > 0 ? repo : null);
+      Iterator<String> logins = run.pending(loginSource.apply(githubClient));
+      BulkSync.LoginTask task = reconciler != null ? reconciler::reconcile : userSync::sync;
+      if (cliArgs.getBatchSize() > 1) {
+        BatchedUserLookup lookup = new BatchedUserLookup(githubClient, logins, cliArgs.getBatchSize());
+        logins = lookup;
+        task = reconciler != null
+                ? login -> reconciler.reconcile(lookup.take(login))
+                : login -> userSync.sync(lookup.take(login));
       }
+      BulkSync.Summary summary = new BulkSync(cliArgs.getConcurrency()).run(logins, run.track(task));
+      if (reconciler != null) {
+        System.out.println(reconciler.unmatchedContacts() + " GitHub contacts in Freshdesk matched no synced user");
+      }
+      return summary;
     }
   }
 
   /**
    * Alternative entry point for testing or "no DB" mode.
    * <p>
-   * Performs GitHub → Freshdesk sync without persisting to MySQL.
+   * Performs GitHub → Freshdesk sync without persisting to the DB.
    * Useful in unit tests.
    *
    * @param githubUsername GitHub login
@@ -87,32 +234,6 @@ public final class App {
    * @throws Exception if any I/O or API operation fails
    */
   public void execute(String githubUsername, GitHubClient githubClient, FreshdeskClient freshdeskClient) throws Exception {
-    GitHubUser githubUser = githubClient.getUser(githubUsername);
-    FreshdeskContact payload = Mapper.map(githubUser);
-    FreshdeskContact existing = freshdeskClient.findByExternalId(payload.getUniqueExternalId());
-    if (existing == null) {
-      String id = freshdeskClient.create(payload);
-      System.out.println("Created contact #" + id + " for " + githubUser.getLogin());
-    } else {
-      String id = freshdeskClient.update(String.valueOf(existing.getId()), payload);
-      System.out.println("Updated contact #" + id + " for " + githubUser.getLogin());
-    }
-  }
-
-  /**
-   * Persists a {@link GitHubUser} into MySQL as a {@link UserSnapshot}.
-   *
-   * @param repo        MySQL repository
-   * @param githubUser  GitHub user to persist
-   * @throws Exception if SQL operation fails
-   */
-  private static void persistUser(MySqlUserRepository repo, GitHubUser githubUser) throws Exception {
-    String login = githubUser.getLogin();
-    String name = (githubUser.getName() != null && !githubUser.getName().isBlank())
-            ? githubUser.getName() : githubUser.getLogin();
-    String createdAt = githubUser.getCreatedAt();
-
-    System.out.println("[DBG] Persisting: login=" + login + ", name=" + name + ", createdAt=" + createdAt);
-    repo.upsert(new UserSnapshot(login, name, createdAt));
+    new UserSync(githubClient, freshdeskClient, null).sync(githubUsername);
   }
 }
@@ -0,0 +1,169 @@
+package org.example.craft;
+
+import lombok.Getter;
+import org.example.craft.db.SqliteUserRepository;
+import org.example.craft.db.UserRepository;
+import org.example.craft.evn.Env;
+import org.example.craft.freshdesk.AdaptiveLimiter;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.github.GitHubClient;
+import org.example.craft.github.RateLimitScheduler;
+import org.example.craft.http.CircuitBreakerTransport;
+import org.example.craft.http.RetryingTransport;
+import org.example.craft.http.SimpleHttp;
+import org.example.craft.metrics.MeteredTransport;
+import org.example.craft.sync.OutboxDrainer;
+
+/**
+ * The long-lived resources of a sync: the repository (MySQL with its connection pool, or an SQLite file),
+ * the shared HTTP transport and the GitHub and Freshdesk clients on top of it.
+ * <p>
+ * A CLI run opens one context and closes it when done; the daemon keeps one open for its
+ * whole lifetime, so connections, TLS sessions and rate-limit state stay warm between jobs.
+ * <p>
+ * With {@code --outbox} the context also owns the {@link OutboxDrainer}, which is started on first
+ * use and drains what is due when the context closes.
+ * <p>
+ * The transport and the clients are created on first use, so a run pays the class loading of
+ * {@code HttpClient} and Jackson only when it really talks to an API.
+ * <p>
+ * Both clients share one transport stack (see {@link #transport()}): a failing host trips its
+ * circuit breaker, and every real HTTP call is timed by a {@link MeteredTransport}, so retries and
+ * throttled attempts show up as separate observations. Each client puts its rate limiter and a
+ * {@link RetryingTransport} on top, so every retry waits for the limiter like a new request.
+ */
+public final class AppContext implements AutoCloseable {
+  @Getter
+  private final UserRepository repository;
+
+  private final String freshdeskSubdomain;
+  private final String githubToken;
+  private final String freshdeskToken;
+
+  /** API endpoints from {@code GITHUB_API_URL} and {@code FRESHDESK_API_URL}, or {@code null} for the real ones. */
+  private final String githubApiUrl;
+  private final String freshdeskApiUrl;
+
+  /** Created by the first client, see {@link #transport()}. */
+  private SimpleHttp.Transport httpTransport;
+  private GitHubClient githubClient;
+  private FreshdeskClient freshdeskClient;
+
+  /** Started by {@link #outboxDrainer(int)}, or {@code null}. */
+  private OutboxDrainer outboxDrainer;
+
+  private AppContext(UserRepository repository, String freshdeskSubdomain, String githubToken,
+                     String freshdeskToken, String githubApiUrl, String freshdeskApiUrl) {
+    this.repository = repository;
+    this.freshdeskSubdomain = freshdeskSubdomain;
+    this.githubToken = githubToken;
+    this.freshdeskToken = freshdeskToken;
+    this.githubApiUrl = githubApiUrl;
+    this.freshdeskApiUrl = freshdeskApiUrl;
+  }
+
+  /**
+   * Reads the tokens (and the optional {@code GITHUB_API_URL} / {@code FRESHDESK_API_URL}, e.g. of a
+   * local stub) from the environment and opens the repository. The transport and the clients are
+   * only built when first requested.
+   *
+   * @param freshdeskSubdomain Freshdesk subdomain (e.g., "mycompany")
+   * @return opened context; the caller must close it
+   * @throws Exception if a variable is missing or the connection or DDL fails
+   */
+  public static AppContext open(String freshdeskSubdomain) throws Exception {
+    String githubToken = Env.require("GITHUB_TOKEN");
+    String freshdeskToken = Env.require("FRESHDESK_TOKEN");
+    return new AppContext(openRepository(), freshdeskSubdomain, githubToken, freshdeskToken,
+            Env.optional("GITHUB_API_URL"), Env.optional("FRESHDESK_API_URL"));
+  }
+
+  /**
+   * Returns the GitHub client, creating it (and the shared transport) on the first call.
+   *
+   * @return GitHub API client
+   */
+  public synchronized GitHubClient getGithubClient() {
+    if (githubClient == null) {
+      githubClient = new GitHubClient(new RetryingTransport(new RateLimitScheduler(transport())),
+              new RateLimitScheduler(transport()), githubToken, repository,
+              githubApiUrl != null ? githubApiUrl : GitHubClient.DEFAULT_API_URL);
+    }
+    return githubClient;
+  }
+
+  /**
+   * Returns the Freshdesk client, creating it (and the shared transport) on the first call.
+   *
+   * @return Freshdesk API client
+   */
+  public synchronized FreshdeskClient getFreshdeskClient() {
+    if (freshdeskClient == null) {
+      freshdeskClient = new FreshdeskClient(new RetryingTransport(new AdaptiveLimiter(transport())),
+              freshdeskSubdomain, freshdeskToken, freshdeskApiUrl);
+    }
+    return freshdeskClient;
+  }
+
+  /**
+   * Returns the outbox drainer of this context, starting it on the first call.
+   *
+   * @param concurrency Freshdesk pushes in flight at most (used on the first call)
+   * @return running drainer
+   */
+  public synchronized OutboxDrainer outboxDrainer(int concurrency) {
+    if (outboxDrainer == null) {
+      outboxDrainer = new OutboxDrainer(repository, getFreshdeskClient(), repository, concurrency).start();
+    }
+    return outboxDrainer;
+  }
+
+  @Override
+  public synchronized void close() throws Exception {
+    try {
+      if (outboxDrainer != null) {
+        outboxDrainer.close();
+        long left = repository.pending();
+        if (left > 0) {
+          System.out.println(left + " outbox entries are waiting for a retry");
+        }
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  /**
+   * Returns the HTTP transport shared by both clients, building it on the first call:
+   * per-host circuit breaker → metrics → {@link SimpleHttp.DefaultTransport}.
+   * The client getters add retry with backoff above a per-API rate limiter: all GitHub REST calls go
+   * through one {@link RateLimitScheduler}, GitHub GraphQL calls through a second one (their budget
+   * is separate) and all Freshdesk calls through one {@link AdaptiveLimiter}, retries included.
+   *
+   * @return shared HTTP transport
+   */
+  private SimpleHttp.Transport transport() {
+    if (httpTransport == null) {
+      httpTransport = new CircuitBreakerTransport(new MeteredTransport(new SimpleHttp.DefaultTransport()));
+    }
+    return httpTransport;
+  }
+
+  /**
+   * Opens the repository for {@code DB_URL} and makes sure the schema exists.
+   * A {@code jdbc:sqlite:} URL opens the embedded SQLite backend; any other URL is MySQL
+   * and also needs {@code DB_USER} and {@code DB_PASSWORD}.
+   *
+   * @return opened repository; the caller must close it
+   * @throws Exception if the connection or DDL fails
+   */
+  private static UserRepository openRepository() throws Exception {
+    String url = Env.require("DB_URL");
+    UserRepository repo = url.startsWith(SqliteUserRepository.URL_PREFIX)
+            ? UserRepository.forUrl(url, null, null)
+            : UserRepository.forUrl(url, Env.require("DB_USER"), Env.require("DB_PASSWORD"));
+    repo.open();
+    repo.initSchema(); // auto-create table if missing
+    return repo;
+  }
+}
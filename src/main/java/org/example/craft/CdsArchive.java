@@ -0,0 +1,74 @@
+package org.example.craft;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records an AppCDS archive for the shaded jar: {@code --cds-record <archive> <sync options>}.
+ * <p>
+ * The sync is run once in a child JVM started with {@code -XX:ArchiveClassesAtExit}, so the archive
+ * holds exactly the classes a real run loads (Jackson, {@code HttpClient}, the JDBC driver, ...).
+ * Later runs started with {@code -XX:SharedArchiveFile=<archive>} map those classes from the archive
+ * instead of loading and verifying them again. The archive is only valid for the same JDK and the
+ * same jar; record it again after an upgrade.
+ */
+final class CdsArchive {
+  /** First argument that selects the record command. */
+  static final String RECORD_OPTION = "--cds-record";
+
+  private CdsArchive() {}
+
+  /**
+   * Runs the sync given by {@code args} once and writes the archive when the child JVM exits.
+   *
+   * @param archive archive file to write
+   * @param args    options of the training run, as for a normal invocation
+   * @return exit code of the training run
+   * @throws Exception if the child JVM cannot be started
+   */
+  static int record(Path archive, List<String> args) throws Exception {
+    Path jar = runningJar();
+    Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+    int exitCode = new ProcessBuilder(recordCommand(java, jar, archive, args)).inheritIO().start().waitFor();
+    if (Files.isRegularFile(archive)) {
+      System.out.println("Recorded " + archive + "; use it with: java -XX:SharedArchiveFile=" + archive
+              + " -jar " + jar + " <options>");
+    }
+    return exitCode;
+  }
+
+  /**
+   * Builds the command line of the training run.
+   *
+   * @param java    java launcher of the running JDK
+   * @param jar     shaded jar
+   * @param archive archive file to write
+   * @param args    options of the training run
+   * @return command line
+   */
+  static List<String> recordCommand(Path java, Path jar, Path archive, List<String> args) {
+    List<String> command = new ArrayList<>();
+    command.add(java.toString());
+    command.add("-XX:ArchiveClassesAtExit=" + archive);
+    command.add("-jar");
+    command.add(jar.toString());
+    command.addAll(args);
+    return command;
+  }
+
+  /**
+   * Locates the jar this class was loaded from; CDS only archives classes loaded from jars.
+   *
+   * @return path of the running jar
+   * @throws IllegalStateException if the application does not run from a jar
+   */
+  private static Path runningJar() throws Exception {
+    Path location = Path.of(CdsArchive.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    if (!Files.isRegularFile(location) || !location.toString().endsWith(".jar")) {
+      throw new IllegalStateException(RECORD_OPTION + " must run from the shaded jar (java -jar ...), not " + location);
+    }
+    return location;
+  }
+}
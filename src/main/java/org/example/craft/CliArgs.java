@@ -12,30 +12,99 @@ import lombok.RequiredArgsConstructor;
  * <p>Expected usage:</p>
  * <pre>
  *   java -jar craft-java.jar --user octocat --subdomain mycompany
+ *   java -jar craft-java.jar --users-file logins.txt --concurrency 32 --write-behind 500 --subdomain mycompany
+ *   java -jar craft-java.jar --users-file logins.txt --subdomain mycompany --metrics-file sync.prom
+ *   java -jar craft-java.jar --org my-org [--team my-team] --batch-size 100 --subdomain mycompany
+ *   java -jar craft-java.jar --users-file logins.txt --subdomain mycompany --resume 0b9c...-...
+ *   java -jar craft-java.jar --org my-org --reconcile --subdomain mycompany
+ *   java -jar craft-java.jar --org my-org --outbox 8 --subdomain mycompany
+ *   java -jar craft-java.jar --daemon 8787 [--org my-org --resync-minutes 60] --subdomain mycompany
  * </pre>
  *
- * <p>Both parameters are required. If one is missing,
- * an {@link IllegalArgumentException} is thrown.</p>
+ * <p>{@code --subdomain} and exactly one of {@code --user} / {@code --users-file} / {@code --org} are required;
+ * {@code --team} narrows {@code --org} to one team. With {@code --daemon} the source is optional and,
+ * together with {@code --resync-minutes}, is re-synced periodically.
+ * If they are missing, an {@link IllegalArgumentException} is thrown.</p>
  */
 @Getter
 @RequiredArgsConstructor
 public final class CliArgs {
-  /** GitHub username passed via {@code --user} */
+  /** Default number of users synced in parallel in bulk mode. */
+  public static final int DEFAULT_CONCURRENCY = 16;
+
+  /** GitHub username passed via {@code --user}, or {@code null} in bulk mode */
   private final String githubUser;
 
   /** Freshdesk subdomain passed via {@code --subdomain} */
   private final String freshdeskSubdomain;
 
+  /** File with one login per line passed via {@code --users-file} ({@code "-"} means stdin) */
+  private final String usersFile;
+
+  /** GitHub organization whose members are synced, passed via {@code --org}, or {@code null} */
+  private final String org;
+
+  /** Team slug within {@link #org} passed via {@code --team}, or {@code null} for all members */
+  private final String team;
+
+  /** Maximum number of users synced in parallel, passed via {@code --concurrency} */
+  private final int concurrency;
+
+  /** Rows per write-behind batch passed via {@code --write-behind}, or 0 to write every row directly */
+  private final int writeBehindRows;
+
+  /** Users fetched per GraphQL request in bulk mode via {@code --batch-size}, or 0 for one REST call per user */
+  private final int batchSize;
+
+  /** Id of an interrupted bulk run to continue, passed via {@code --resume}, or {@code null} */
+  private final String resumeRunId;
+
+  /** Whether a bulk run reconciles against one paged Freshdesk scan ({@code --reconcile}) instead of per-user lookups */
+  private final boolean reconcile;
+
+  /** Concurrency of the outbox drainer via {@code --outbox}, or 0 to push to Freshdesk inline */
+  private final int outboxConcurrency;
+
+  /** Local port of the job endpoint passed via {@code --daemon}, or 0 for a one-shot run */
+  private final int daemonPort;
+
+  /** Minutes between scheduled re-syncs of the source in daemon mode via {@code --resync-minutes}, or 0 */
+  private final int resyncMinutes;
+
+  /** File the metrics are written to in Prometheus text format via {@code --metrics-file}, or {@code null} */
+  private final String metricsFile;
+
+  /**
+   * Whether this invocation syncs a stream of logins instead of a single user.
+   *
+   * @return {@code true} if {@code --users-file} or {@code --org} was given
+   */
+  public boolean isBulk() {
+    return usersFile != null || org != null;
+  }
+
   /**
    * Parse CLI arguments into a {@link CliArgs} instance.
    *
    * @param args array of raw command-line arguments
    * @return parsed {@link CliArgs} object
-   * @throws IllegalArgumentException if required arguments are missing
+   * @throws IllegalArgumentException if required arguments are missing or invalid
    */
   public static CliArgs parse(String[] args) {
     String userArgument = null;
     String subdomainArgument = null;
+    String usersFileArgument = null;
+    String orgArgument = null;
+    String teamArgument = null;
+    int concurrencyArgument = DEFAULT_CONCURRENCY;
+    int writeBehindArgument = 0;
+    int batchSizeArgument = 0;
+    String resumeArgument = null;
+    boolean reconcileArgument = false;
+    int outboxArgument = 0;
+    int daemonArgument = 0;
+    int resyncArgument = 0;
+    String metricsFileArgument = null;
 
     for (int index = 0; index < args.length; index++) {
       String argument = args[index];
@@ -43,13 +112,85 @@ public final class CliArgs {
         userArgument = args[++index];
       } else if ("--subdomain".equals(argument) && index + 1 < args.length) {
         subdomainArgument = args[++index];
+      } else if ("--users-file".equals(argument) && index + 1 < args.length) {
+        usersFileArgument = args[++index];
+      } else if ("--org".equals(argument) && index + 1 < args.length) {
+        orgArgument = args[++index];
+      } else if ("--team".equals(argument) && index + 1 < args.length) {
+        teamArgument = args[++index];
+      } else if ("--concurrency".equals(argument) && index + 1 < args.length) {
+        concurrencyArgument = parsePositive("--concurrency", args[++index]);
+      } else if ("--write-behind".equals(argument) && index + 1 < args.length) {
+        writeBehindArgument = parsePositive("--write-behind", args[++index]);
+      } else if ("--batch-size".equals(argument) && index + 1 < args.length) {
+        batchSizeArgument = parsePositive("--batch-size", args[++index]);
+      } else if ("--resume".equals(argument) && index + 1 < args.length) {
+        resumeArgument = args[++index];
+      } else if ("--reconcile".equals(argument)) {
+        reconcileArgument = true;
+      } else if ("--outbox".equals(argument) && index + 1 < args.length) {
+        outboxArgument = parsePositive("--outbox", args[++index]);
+      } else if ("--daemon".equals(argument) && index + 1 < args.length) {
+        daemonArgument = parsePositive("--daemon", args[++index]);
+      } else if ("--resync-minutes".equals(argument) && index + 1 < args.length) {
+        resyncArgument = parsePositive("--resync-minutes", args[++index]);
+      } else if ("--metrics-file".equals(argument) && index + 1 < args.length) {
+        metricsFileArgument = args[++index];
       }
     }
 
-    if (userArgument == null || subdomainArgument == null) {
+    int sources = (userArgument != null ? 1 : 0) + (usersFileArgument != null ? 1 : 0)
+            + (orgArgument != null ? 1 : 0);
+    boolean validSources = daemonArgument > 0
+            ? sources <= 1 && userArgument == null && resumeArgument == null
+                    && (resyncArgument == 0 || sources == 1)
+            : sources == 1 && resyncArgument == 0;
+    if (!validSources || subdomainArgument == null || (teamArgument != null && orgArgument == null)
+            || ((resumeArgument != null || reconcileArgument) && userArgument != null)
+            || (outboxArgument > 0 && (userArgument != null || writeBehindArgument > 0 || reconcileArgument))) {
       throw new IllegalArgumentException(
-              "Usage: --user <github_username> --subdomain <freshdesk_subdomain>");
+              "Usage: (--user <github_username> | --users-file <path|-> | --org <org> [--team <slug>]) "
+                      + "--subdomain <freshdesk_subdomain> [--concurrency <n>] [--write-behind <rows>] "
+                      + "[--batch-size <n>] [--resume <runId>] [--reconcile | --outbox <n>] [--metrics-file <path>]\n"
+                      + "   or: --daemon <port> [(--users-file <path> | --org <org> [--team <slug>]) "
+                      + "--resync-minutes <n>] --subdomain <freshdesk_subdomain> [bulk options]");
+    }
+    return new CliArgs(
+            userArgument, subdomainArgument, usersFileArgument, orgArgument, teamArgument,
+            concurrencyArgument, writeBehindArgument, batchSizeArgument, resumeArgument, reconcileArgument,
+            outboxArgument, daemonArgument, resyncArgument, metricsFileArgument);
+  }
+
+  /**
+   * Copies the bulk options of this invocation for one daemon job with its own source.
+   *
+   * @param user GitHub login of a single-user job, or {@code null}
+   * @param org  organization of a member job, or {@code null}
+   * @param team team slug within {@code org}, or {@code null}
+   * @return options of the job (no resume, no daemon, no metrics file)
+   */
+  public CliArgs forJob(String user, String org, String team) {
+    return new CliArgs(user, freshdeskSubdomain, null, org, team, concurrency, writeBehindRows,
+            batchSize, null, reconcile && user == null, outboxConcurrency, 0, 0, null);
+  }
+
+  /**
+   * Parses a strictly positive integer option value.
+   *
+   * @param option option name used in the error message
+   * @param value  raw value
+   * @return parsed value
+   * @throws IllegalArgumentException if the value is not a positive integer
+   */
+  private static int parsePositive(String option, String value) {
+    try {
+      int parsed = Integer.parseInt(value);
+      if (parsed > 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException ignored) {
+      // reported below
     }
-    return new CliArgs(userArgument, subdomainArgument);
+    throw new IllegalArgumentException(option + " must be a positive integer: " + value);
   }
 }
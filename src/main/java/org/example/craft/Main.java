@@ -1,16 +1,114 @@
 package org.example.craft;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.craft.daemon.GitHubWebhook;
+import org.example.craft.daemon.SyncDaemon;
+import org.example.craft.evn.Env;
+import org.example.craft.metrics.MetricsJmx;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.metrics.PrometheusExporter;
+import org.example.craft.sync.BulkSync;
+
 public final class Main {
+  /** How long webhook events are coalesced before their logins are synced. */
+  private static final Duration WEBHOOK_WINDOW = Duration.ofSeconds(10);
+
   private Main() {}
 
   public static void main(String[] args) {
     try {
+      if (args.length >= 2 && CdsArchive.RECORD_OPTION.equals(args[0])) {
+        System.exit(CdsArchive.record(Path.of(args[1]), List.of(args).subList(2, args.length)));
+      }
       CliArgs cliArgs = CliArgs.parse(args);
+      if (cliArgs.isBulk() || cliArgs.getDaemonPort() > 0) {
+        // the platform MBean server costs tens of milliseconds; a single-user run ends before anyone attaches
+        MetricsJmx.register(MetricsRegistry.global());
+      }
       App application = new App();
-      application.run(cliArgs.getGithubUser(), cliArgs.getFreshdeskSubdomain());
+      if (cliArgs.getDaemonPort() > 0) {
+        startDaemon(application, cliArgs);
+        return;
+      }
+      BulkSync.Summary summary = null;
+      try {
+        if (cliArgs.getOrg() != null) {
+          summary = application.runMembers(cliArgs);
+        } else if (cliArgs.isBulk()) {
+          try (BufferedReader reader = openUsersFile(cliArgs.getUsersFile())) {
+            summary = application.runBulk(BulkSync.lines(reader), cliArgs);
+          }
+        } else {
+          application.run(cliArgs.getGithubUser(), cliArgs.getFreshdeskSubdomain());
+        }
+      } finally {
+        if (cliArgs.getMetricsFile() != null) {
+          PrometheusExporter.writeTo(MetricsRegistry.global(), Path.of(cliArgs.getMetricsFile()));
+        }
+      }
+      if (summary != null && summary.getFailed() > 0) {
+        System.exit(2);
+      }
     } catch (Exception exception) {
       exception.printStackTrace();
       System.exit(1);
     }
   }
+
+  /**
+   * Opens one long-lived context and serves jobs on {@code 127.0.0.1:<port>} until the JVM is stopped.
+   * Submitting a job needs the token from {@code SYNC_DAEMON_TOKEN}.
+   * A source given on the command line is re-synced every {@code --resync-minutes}; with
+   * {@code GITHUB_WEBHOOK_SECRET} set, GitHub membership events are accepted as well.
+   */
+  private static void startDaemon(App application, CliArgs cliArgs) throws Exception {
+    String jobToken = Env.require("SYNC_DAEMON_TOKEN");
+    AppContext context = AppContext.open(cliArgs.getFreshdeskSubdomain());
+    SyncDaemon daemon = SyncDaemon.start(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), cliArgs.getDaemonPort()), cliArgs, jobToken,
+            job -> application.runJob(context, job));
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        daemon.close();
+        context.close();
+      } catch (Exception exception) {
+        exception.printStackTrace();
+      }
+    }, "sync-daemon-shutdown"));
+    String webhookSecret = Env.optional("GITHUB_WEBHOOK_SECRET");
+    if (webhookSecret != null) {
+      daemon.enableWebhooks(new GitHubWebhook(webhookSecret), WEBHOOK_WINDOW);
+    }
+    if (cliArgs.getResyncMinutes() > 0) {
+      daemon.scheduleEvery(Duration.ofMinutes(cliArgs.getResyncMinutes()), () -> {
+        if (cliArgs.getOrg() != null) {
+          return daemon.submit(null, cliArgs.getOrg(), cliArgs.getTeam(), null);
+        }
+        try (BufferedReader reader = openUsersFile(cliArgs.getUsersFile())) {
+          List<String> logins = new ArrayList<>();
+          BulkSync.lines(reader).forEachRemaining(logins::add);
+          return daemon.submit(null, null, null, logins);
+        } catch (Exception exception) {
+          throw new IllegalStateException("Cannot read " + cliArgs.getUsersFile(), exception);
+        }
+      });
+    }
+    System.out.println("Sync daemon listening on http://127.0.0.1:" + daemon.getPort() + "/jobs");
+  }
+
+  private static BufferedReader openUsersFile(String usersFile) throws Exception {
+    if ("-".equals(usersFile)) {
+      return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    }
+    return Files.newBufferedReader(Path.of(usersFile), StandardCharsets.UTF_8);
+  }
 }
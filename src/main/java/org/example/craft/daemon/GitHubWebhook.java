@@ -0,0 +1,117 @@
+package org.example.craft.daemon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.example.craft.mapper.Json;
+
+/**
+ * Verifies GitHub webhook deliveries and extracts the logins they affect.
+ * <p>
+ * Deliveries are authenticated with the {@code X-Hub-Signature-256} header, an HMAC-SHA256 of the
+ * raw body keyed with the webhook secret. Only membership changes are of interest:
+ * <ul>
+ *   <li>{@code organization} – {@code member_added}, {@code member_removed}, {@code member_invited}</li>
+ *   <li>{@code membership} – a user was added to or removed from a team</li>
+ *   <li>{@code member} – a repository collaborator changed</li>
+ * </ul>
+ * Every other event affects no login.
+ */
+public final class GitHubWebhook {
+
+  /** Header carrying {@code sha256=<hex hmac>}. */
+  public static final String SIGNATURE_HEADER = "X-Hub-Signature-256";
+
+  /** Header carrying the event name. */
+  public static final String EVENT_HEADER = "X-GitHub-Event";
+
+  private static final String SIGNATURE_PREFIX = "sha256=";
+
+  private final SecretKeySpec key;
+  private final ObjectMapper objectMapper = Json.mapper();
+
+  /**
+   * Creates a verifier.
+   *
+   * @param secret webhook secret configured in GitHub
+   */
+  public GitHubWebhook(String secret) {
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+  }
+
+  /**
+   * Checks the signature of a delivery in constant time.
+   *
+   * @param signatureHeader value of {@value #SIGNATURE_HEADER}, may be {@code null}
+   * @param body            raw request body
+   * @return {@code true} if the signature matches the body
+   */
+  public boolean verify(String signatureHeader, byte[] body) {
+    if (signatureHeader == null || !signatureHeader.startsWith(SIGNATURE_PREFIX)) {
+      return false;
+    }
+    byte[] expected = sign(body).getBytes(StandardCharsets.US_ASCII);
+    return MessageDigest.isEqual(expected, signatureHeader.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Computes the signature header value GitHub would send for a body.
+   *
+   * @param body raw request body
+   * @return {@code sha256=<hex hmac>}
+   */
+  public String sign(byte[] body) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(key);
+      return SIGNATURE_PREFIX + HexFormat.of().formatHex(mac.doFinal(body));
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IllegalStateException("HmacSHA256 not available", e);
+    }
+  }
+
+  /**
+   * Extracts the logins whose membership an event changed.
+   *
+   * @param event value of {@value #EVENT_HEADER}
+   * @param body  verified request body
+   * @return affected logins; empty for unrelated events
+   * @throws IOException if the body is not JSON
+   */
+  public List<String> affectedLogins(String event, byte[] body) throws IOException {
+    JsonNode payload;
+    switch (event == null ? "" : event) {
+      case "organization" -> {
+        payload = objectMapper.readTree(body);
+        String action = payload.path("action").asText();
+        if (!action.startsWith("member_")) {
+          return List.of();
+        }
+        return loginOf(payload.path("membership").path("user"), payload.path("user"));
+      }
+      case "membership", "member" -> {
+        payload = objectMapper.readTree(body);
+        return loginOf(payload.path("member"), payload.path("user"));
+      }
+      default -> {
+        return List.of();
+      }
+    }
+  }
+
+  private static List<String> loginOf(JsonNode user, JsonNode fallback) {
+    String login = user.path("login").asText(null);
+    if (login == null) {
+      login = fallback.path("login").asText(null);
+    }
+    return login == null ? List.of() : List.of(login);
+  }
+}
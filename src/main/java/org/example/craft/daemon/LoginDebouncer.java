@@ -0,0 +1,125 @@
+package org.example.craft.daemon;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Coalesces bursts of login notifications into one batch per window.
+ * <p>
+ * The first login offered after a flush opens a window. Every login offered until the window
+ * closes joins the same batch, and repeated logins are counted once (case-insensitive). When the
+ * window closes, the distinct logins are handed to the flush consumer in arrival order. A burst of
+ * any size therefore costs one sync per affected login, spread over at most one batch per window.
+ * <p>
+ * A batch the consumer rejects (e.g., because the job queue is full) is merged into the next
+ * window and counted in {@code webhook_logins_total{result="requeued"}}. Logins are only dropped,
+ * and counted as {@code result="dropped"}, once the scheduler is shut down.
+ * <p>
+ * Thread-safe; the flush runs on the supplied scheduler.
+ */
+public final class LoginDebouncer {
+
+  private static final Counter OFFERED = MetricsRegistry.global().counter("webhook_logins_total", "result", "queued");
+  private static final Counter COALESCED =
+          MetricsRegistry.global().counter("webhook_logins_total", "result", "coalesced");
+  private static final Counter REQUEUED =
+          MetricsRegistry.global().counter("webhook_logins_total", "result", "requeued");
+  private static final Counter DROPPED = MetricsRegistry.global().counter("webhook_logins_total", "result", "dropped");
+
+  private final Duration window;
+  private final Consumer<List<String>> flush;
+  private final ScheduledExecutorService scheduler;
+
+  /** Logins of the open window; guarded by {@code this}. */
+  private Set<String> pending = new LinkedHashSet<>();
+
+  /**
+   * Creates a debouncer.
+   *
+   * @param window    how long a batch collects logins
+   * @param flush     receives each batch of distinct logins
+   * @param scheduler runs the flushes
+   */
+  public LoginDebouncer(Duration window, Consumer<List<String>> flush, ScheduledExecutorService scheduler) {
+    this.window = window;
+    this.flush = flush;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Adds a login to the open batch, opening a new window if none is open.
+   *
+   * @param login GitHub login
+   * @return {@code false} if the login was already pending in this window
+   */
+  public boolean offer(String login) {
+    boolean opened;
+    synchronized (this) {
+      if (!pending.add(login.toLowerCase(Locale.ROOT))) {
+        COALESCED.increment();
+        return false;
+      }
+      opened = pending.size() == 1;
+    }
+    OFFERED.increment();
+    if (opened) {
+      scheduler.schedule(this::flushPending, window.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    return true;
+  }
+
+  /**
+   * Number of logins waiting for the current window to close.
+   *
+   * @return pending logins
+   */
+  public synchronized int pending() {
+    return pending.size();
+  }
+
+  private void flushPending() {
+    List<String> batch;
+    synchronized (this) {
+      batch = new ArrayList<>(pending);
+      pending = new LinkedHashSet<>();
+    }
+    if (!batch.isEmpty()) {
+      try {
+        flush.accept(batch);
+      } catch (RuntimeException e) {
+        requeue(batch, e);
+      }
+    }
+  }
+
+  /** Puts a rejected batch in front of the logins that arrived meanwhile, opening a window if none is open. */
+  private void requeue(List<String> batch, RuntimeException cause) {
+    boolean opened;
+    synchronized (this) {
+      opened = pending.isEmpty();
+      Set<String> merged = new LinkedHashSet<>(batch);
+      merged.addAll(pending);
+      pending = merged;
+    }
+    try {
+      if (opened) {
+        scheduler.schedule(this::flushPending, window.toMillis(), TimeUnit.MILLISECONDS);
+      }
+      REQUEUED.add(batch.size());
+      System.err.println("Could not queue " + batch.size() + " webhook logins, retrying next window: " + cause);
+    } catch (RejectedExecutionException closed) {
+      DROPPED.add(batch.size());
+      System.err.println("Dropped " + batch.size() + " webhook logins: " + cause);
+    }
+  }
+}
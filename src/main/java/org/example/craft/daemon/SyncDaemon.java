@@ -0,0 +1,394 @@
+package org.example.craft.daemon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.example.craft.CliArgs;
+import org.example.craft.mapper.Json;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.metrics.PrometheusExporter;
+
+/**
+ * Long-running sync process with a small local HTTP endpoint for submitting jobs.
+ * <p>
+ * Jobs run one after another on a single job thread; each bulk job still syncs its logins
+ * concurrently. Because the process stays up, the runner's clients, HTTP connections and DB
+ * pool stay warm and a job costs only its network time. At most {@value #MAX_QUEUED_JOBS}
+ * jobs wait in the queue; further submissions get {@code 503}.
+ * <p>
+ * Binding to loopback does not keep out a web page open in a local browser, which can send simple
+ * cross-origin POSTs. Job submissions therefore need the {@value #TOKEN_HEADER} header with the
+ * daemon's token; a browser cannot add that header without a CORS preflight, which the daemon
+ * never answers. Status, metrics and health are read-only and need no token.
+ * <p>
+ * Endpoints (bind to loopback):
+ * <ul>
+ *   <li>{@code POST /jobs?user=<login>} – sync one user</li>
+ *   <li>{@code POST /jobs?org=<org>[&team=<slug>]} – sync the members of an organization or team</li>
+ *   <li>{@code POST /jobs} with a text body – sync one login per line</li>
+ *   <li>{@code GET /jobs} and {@code GET /jobs/<id>} – status of recent jobs</li>
+ *   <li>{@code POST /webhooks/github} – GitHub membership events, once enabled with
+ *       {@link #enableWebhooks(GitHubWebhook, Duration)}</li>
+ *   <li>{@code GET /metrics} – metrics in Prometheus text format</li>
+ *   <li>{@code GET /health} – liveness</li>
+ * </ul>
+ */
+public final class SyncDaemon implements AutoCloseable {
+
+  /** Maximum number of jobs waiting behind the running one. */
+  public static final int MAX_QUEUED_JOBS = 100;
+
+  /** Number of finished jobs whose status is kept for {@code GET /jobs}. */
+  private static final int MAX_REMEMBERED_JOBS = 1000;
+
+  /** Request header carrying the token of {@code POST /jobs}. */
+  public static final String TOKEN_HEADER = "X-Sync-Token";
+
+  private static final Counter WEBHOOK_REJECTED = MetricsRegistry.global().counter("webhook_rejected_total");
+
+  /** Executes one job with the daemon's long-lived resources. */
+  @FunctionalInterface
+  public interface JobRunner {
+    /**
+     * Runs a job to completion.
+     *
+     * @param job job to run
+     * @return summary reported as the job result
+     * @throws Exception if the job fails
+     */
+    String run(SyncJob job) throws Exception;
+  }
+
+  private final CliArgs defaults;
+  private final byte[] token;
+  private final JobRunner runner;
+  private final HttpServer server;
+  private final ThreadPoolExecutor jobThread;
+  private final ScheduledExecutorService scheduler;
+  private final ObjectMapper objectMapper = Json.mapper();
+  private final AtomicLong nextJobId = new AtomicLong();
+
+  /** Recent jobs in submission order, oldest evicted first. */
+  private final Map<String, SyncJob> jobs = new LinkedHashMap<>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, SyncJob> eldest) {
+      return size() > MAX_REMEMBERED_JOBS && !eldest.getValue().isActive();
+    }
+  };
+
+  private SyncDaemon(CliArgs defaults, String token, JobRunner runner, HttpServer server) {
+    this.defaults = defaults;
+    this.token = token.getBytes(StandardCharsets.UTF_8);
+    this.runner = runner;
+    this.server = server;
+    this.jobThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), runnable -> new Thread(runnable, "sync-daemon-jobs"));
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "sync-daemon-schedule");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts the HTTP endpoint.
+   *
+   * @param address  address to bind, normally loopback
+   * @param defaults bulk options applied to every job (subdomain, concurrency, batch size, ...)
+   * @param token    value required in {@value #TOKEN_HEADER} to submit jobs
+   * @param runner   executes the jobs
+   * @return running daemon
+   * @throws IllegalArgumentException if the token is blank
+   * @throws IOException if the address cannot be bound
+   */
+  public static SyncDaemon start(InetSocketAddress address, CliArgs defaults, String token, JobRunner runner)
+          throws IOException {
+    if (token == null || token.isBlank()) {
+      throw new IllegalArgumentException("A job token is required");
+    }
+    HttpServer server = HttpServer.create(address, 0);
+    SyncDaemon daemon = new SyncDaemon(defaults, token, runner, server);
+    server.createContext("/jobs", daemon::handleJobs);
+    server.createContext("/metrics", daemon::handleMetrics);
+    server.createContext("/health", exchange -> daemon.respond(exchange, 200, "text/plain", "ok\n"));
+    server.start();
+    return daemon;
+  }
+
+  /**
+   * Port the endpoint is bound to (useful when started on port 0).
+   *
+   * @return local port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Creates a job from the daemon's defaults and queues it.
+   *
+   * @param user   login of a single-user job, or {@code null}
+   * @param org    organization of a member job, or {@code null}
+   * @param team   team within {@code org}, or {@code null}
+   * @param logins logins of a list job, or {@code null}
+   * @return queued job
+   * @throws RejectedExecutionException if the queue is full or the daemon is closed
+   */
+  public SyncJob submit(String user, String org, String team, List<String> logins) {
+    String source = user != null ? "user:" + user
+            : org != null ? (team != null ? "team:" + org + "/" + team : "org:" + org)
+            : "list:" + logins.size();
+    SyncJob job = new SyncJob(
+            String.valueOf(nextJobId.incrementAndGet()), source, defaults.forJob(user, org, team), logins);
+    synchronized (jobs) {
+      jobs.put(job.getId(), job);
+    }
+    try {
+      jobThread.execute(() -> runJob(job));
+    } catch (RejectedExecutionException e) {
+      synchronized (jobs) {
+        jobs.remove(job.getId());
+      }
+      throw e;
+    }
+    return job;
+  }
+
+  /**
+   * Submits a job now and then every {@code interval}. A run is skipped while the job
+   * submitted by the previous run is still queued or running.
+   *
+   * @param interval time between submissions
+   * @param submit   submits one job, e.g. {@code () -> daemon.submit(null, org, team, null)}
+   */
+  public void scheduleEvery(Duration interval, Supplier<SyncJob> submit) {
+    SyncJob[] last = new SyncJob[1];
+    scheduler.scheduleWithFixedDelay(() -> {
+      if (last[0] != null && last[0].isActive()) {
+        System.out.println("Skipping scheduled re-sync: job " + last[0].getId() + " is still " + last[0].getStatus());
+        return;
+      }
+      try {
+        last[0] = submit.get();
+        System.out.println("Scheduled re-sync queued as job " + last[0].getId());
+      } catch (RuntimeException e) {
+        System.err.println("Scheduled re-sync failed to start: " + e);
+      }
+    }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Accepts GitHub webhook deliveries on {@code POST /webhooks/github}.
+   * <p>
+   * Deliveries with a wrong signature are answered with {@code 401}. The affected logins of valid
+   * deliveries go through a {@link LoginDebouncer}: each window of events becomes one list job
+   * with every affected login synced once.
+   *
+   * @param webhook verifier holding the webhook secret
+   * @param window  how long events are coalesced before a job is queued
+   */
+  public void enableWebhooks(GitHubWebhook webhook, Duration window) {
+    LoginDebouncer debouncer = new LoginDebouncer(window, logins -> {
+      SyncJob job = submit(null, null, null, logins);
+      System.out.println("Webhook events for " + logins.size() + " logins queued as job " + job.getId());
+    }, scheduler);
+    server.createContext("/webhooks/github", exchange -> handleWebhook(exchange, webhook, debouncer));
+  }
+
+  /**
+   * Stops accepting requests, cancels the schedule and waits for the running job.
+   * Queued jobs that have not started are dropped.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    server.stop(1);
+    scheduler.shutdownNow();
+    jobThread.shutdown();
+    jobThread.getQueue().clear();
+    jobThread.awaitTermination(5, TimeUnit.MINUTES);
+  }
+
+  private void runJob(SyncJob job) {
+    job.started();
+    System.out.println("Job " + job.getId() + " started: " + job.getSource());
+    try {
+      job.finished(SyncJob.Status.SUCCEEDED, runner.run(job));
+    } catch (Exception e) {
+      job.finished(SyncJob.Status.FAILED, String.valueOf(e));
+      e.printStackTrace();
+    }
+    System.out.println("Job " + job.getId() + " " + job.getStatus() + ": " + job.getResult());
+  }
+
+  private void handleJobs(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    String method = exchange.getRequestMethod();
+    if ("POST".equals(method) && ("/jobs".equals(path) || "/jobs/".equals(path))) {
+      handleSubmit(exchange);
+    } else if ("GET".equals(method) && ("/jobs".equals(path) || "/jobs/".equals(path))) {
+      ArrayNode list = objectMapper.createArrayNode();
+      synchronized (jobs) {
+        jobs.values().forEach(job -> list.add(toJson(job)));
+      }
+      respondJson(exchange, 200, list.toString());
+    } else if ("GET".equals(method)) {
+      SyncJob job;
+      synchronized (jobs) {
+        job = jobs.get(path.substring("/jobs/".length()));
+      }
+      if (job == null) {
+        respondJson(exchange, 404, "{\"error\":\"unknown job\"}");
+      } else {
+        respondJson(exchange, 200, toJson(job).toString());
+      }
+    } else {
+      respondJson(exchange, 405, "{\"error\":\"method not allowed\"}");
+    }
+  }
+
+  private void handleSubmit(HttpExchange exchange) throws IOException {
+    String presented = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+    if (presented == null || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+      respondJson(exchange, 401, "{\"error\":\"missing or wrong " + TOKEN_HEADER + "\"}");
+      return;
+    }
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    String user = query.get("user");
+    String org = query.get("org");
+    String team = query.get("team");
+    List<String> logins = null;
+    if (user == null && org == null) {
+      logins = readLogins(exchange);
+    }
+    if ((user != null && org != null) || (team != null && org == null) || (logins != null && logins.isEmpty())) {
+      respondJson(exchange, 400, "{\"error\":\"expected ?user=, ?org=[&team=] or one login per line\"}");
+      return;
+    }
+    try {
+      respondJson(exchange, 202, toJson(submit(user, org, team, logins)).toString());
+    } catch (RejectedExecutionException e) {
+      respondJson(exchange, 503, "{\"error\":\"job queue is full\"}");
+    }
+  }
+
+  private void handleWebhook(HttpExchange exchange, GitHubWebhook webhook, LoginDebouncer debouncer)
+          throws IOException {
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      respondJson(exchange, 405, "{\"error\":\"method not allowed\"}");
+      return;
+    }
+    byte[] body;
+    try (var in = exchange.getRequestBody()) {
+      body = in.readAllBytes();
+    }
+    if (!webhook.verify(exchange.getRequestHeaders().getFirst(GitHubWebhook.SIGNATURE_HEADER), body)) {
+      WEBHOOK_REJECTED.increment();
+      respondJson(exchange, 401, "{\"error\":\"invalid signature\"}");
+      return;
+    }
+    List<String> logins;
+    try {
+      logins = webhook.affectedLogins(exchange.getRequestHeaders().getFirst(GitHubWebhook.EVENT_HEADER), body);
+    } catch (IOException e) {
+      respondJson(exchange, 400, "{\"error\":\"malformed payload\"}");
+      return;
+    }
+    int queued = 0;
+    for (String login : logins) {
+      if (debouncer.offer(login)) {
+        queued++;
+      }
+    }
+    respondJson(exchange, 202, objectMapper.createObjectNode()
+            .put("queued", queued)
+            .put("coalesced", logins.size() - queued)
+            .toString());
+  }
+
+  private void handleMetrics(HttpExchange exchange) throws IOException {
+    respond(exchange, 200, PrometheusExporter.CONTENT_TYPE, PrometheusExporter.scrape(MetricsRegistry.global()));
+  }
+
+  private ObjectNode toJson(SyncJob job) {
+    ObjectNode node = objectMapper.createObjectNode()
+            .put("id", job.getId())
+            .put("source", job.getSource())
+            .put("status", job.getStatus().name())
+            .put("submitted_at", job.getSubmittedAt().toString());
+    if (job.getFinishedAt() != null) {
+      node.put("finished_at", job.getFinishedAt().toString());
+    }
+    if (job.getResult() != null) {
+      node.put("result", job.getResult());
+    }
+    return node;
+  }
+
+  private static List<String> readLogins(HttpExchange exchange) throws IOException {
+    List<String> logins = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String login = line.trim();
+        if (!login.isEmpty() && !login.startsWith("#")) {
+          logins.add(login);
+        }
+      }
+    }
+    return logins;
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> query = new HashMap<>();
+    if (rawQuery == null) {
+      return query;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals > 0 && equals < pair.length() - 1) {
+        query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return query;
+  }
+
+  private void respondJson(HttpExchange exchange, int status, String body) throws IOException {
+    respond(exchange, status, "application/json", body);
+  }
+
+  private void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.example.craft.daemon;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.Getter;
+import org.example.craft.CliArgs;
+
+/**
+ * One sync job accepted by the {@link SyncDaemon}: a single login, a list of logins,
+ * or the members of an organization or team.
+ * <p>
+ * Status fields are written by the job thread and read by the HTTP handlers.
+ */
+@Getter
+public final class SyncJob {
+
+  /** Lifecycle of a job. */
+  public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+  /** Daemon-assigned id, increasing from 1. */
+  private final String id;
+
+  /** Human-readable source, e.g. {@code "user:octocat"}, {@code "org:my-org"} or {@code "list:3"}. */
+  private final String source;
+
+  /** Options of the job: the daemon's bulk options plus the job's user or org/team. */
+  private final CliArgs args;
+
+  /** Logins of a list job, or {@code null} for user and org jobs. */
+  private final List<String> logins;
+
+  private final Instant submittedAt = Instant.now();
+
+  private volatile Status status = Status.QUEUED;
+  private volatile Instant finishedAt;
+
+  /** Run summary on success, error message on failure, {@code null} before. */
+  private volatile String result;
+
+  SyncJob(String id, String source, CliArgs args, List<String> logins) {
+    this.id = id;
+    this.source = source;
+    this.args = args;
+    this.logins = logins;
+  }
+
+  void started() {
+    status = Status.RUNNING;
+  }
+
+  void finished(Status finalStatus, String finalResult) {
+    result = finalResult;
+    finishedAt = Instant.now();
+    status = finalStatus;
+  }
+
+  /**
+   * Whether the job is still waiting or running.
+   *
+   * @return {@code true} until the job succeeded or failed
+   */
+  public boolean isActive() {
+    return status == Status.QUEUED || status == Status.RUNNING;
+  }
+}
@@ -0,0 +1,372 @@
+package org.example.craft.db;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.craft.metrics.Histogram;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Small bounded JDBC connection pool with prepared-statement reuse.
+ * <ul>
+ *   <li>At most {@code maxSize} connections exist; callers wait up to
+ *       {@link #BORROW_TIMEOUT_MILLIS} for a free one.</li>
+ *   <li>Idle connections are reused most-recently-used first and validated with
+ *       {@link Connection#isValid(int)} when they were idle longer than {@link #VALIDATE_AFTER_MILLIS}.</li>
+ *   <li>A connection that threw an {@link SQLException} while leased is validated when it is
+ *       returned and closed if it is no longer valid, so a dropped connection is not handed out again.</li>
+ *   <li>A background task closes connections idle longer than {@link #IDLE_TIMEOUT_MILLIS},
+ *       always keeping one.</li>
+ *   <li>Every connection keeps its own LRU cache of {@link PreparedStatement}s,
+ *       so hot SQL is prepared once per connection.</li>
+ * </ul>
+ * Wait time, active and idle counts are exposed through {@link #stats()}; the wait time
+ * is also recorded in the {@code db_pool_wait_seconds} histogram.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    /** Longest time {@link #borrow()} waits for a free connection. */
+    public static final long BORROW_TIMEOUT_MILLIS = 30_000;
+
+    /** Idle time after which a connection is validated before it is handed out. */
+    static final long VALIDATE_AFTER_MILLIS = 30_000;
+
+    /** Idle time after which a connection is closed by the evictor. */
+    static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /** Prepared statements cached per connection. */
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private static final Histogram WAIT_TIME = MetricsRegistry.global().histogram("db_pool_wait_seconds");
+
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * Creates the pool. Connections are opened lazily on first use.
+     *
+     * @param jdbcUrl  JDBC URL
+     * @param user     DB user
+     * @param password DB password
+     * @param maxSize  maximum number of open connections
+     */
+    public ConnectionPool(String jdbcUrl, String user, String password, int maxSize) {
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = IDLE_TIMEOUT_MILLIS / 10;
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection; close the returned lease to give it back.
+     *
+     * @return lease on a valid connection
+     * @throws SQLException if no connection becomes free in time or a new one cannot be opened
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Lease borrow() throws SQLException, InterruptedException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long startedAt = System.nanoTime();
+        if (!permits.tryAcquire(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            throw new SQLException("Timed out waiting for a DB connection (pool size " + maxSize + ")");
+        }
+        long waited = System.nanoTime() - startedAt;
+        borrows.increment();
+        waitNanos.add(waited);
+        WAIT_TIME.observeNanos(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(jdbcUrl, user, password));
+            }
+            active.incrementAndGet();
+            return new Lease(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (pooled.idleMillis() < VALIDATE_AFTER_MILLIS || pooled.isValid()) {
+                return pooled;
+            }
+            pooled.closeQuietly();
+        }
+        return null;
+    }
+
+    private void giveBack(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            if (closed || pooled.isClosed() || (pooled.failed && !pooled.isValid())) {
+                pooled.closeQuietly();
+            } else {
+                pooled.failed = false;
+                pooled.touch();
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** Closes the oldest idle connections that exceeded the idle timeout, keeping at least one. */
+    private void evictIdle() {
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && idle.size() > 1) {
+            PooledConnection pooled = oldestFirst.next();
+            if (pooled.idleMillis() >= IDLE_TIMEOUT_MILLIS && idle.removeLastOccurrence(pooled)) {
+                pooled.closeQuietly();
+            }
+        }
+    }
+
+    /**
+     * Returns a point-in-time view of the pool.
+     *
+     * @return pool metrics
+     */
+    public Stats stats() {
+        return new Stats(active.get(), idle.size(), maxSize, borrows.sum(), waitNanos.sum(), maxWaitNanos.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closeQuietly();
+        }
+    }
+
+    /**
+     * Exclusive use of one pooled connection. Not thread-safe; close it to return the connection.
+     */
+    public final class Lease implements AutoCloseable {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        /**
+         * Returns the cached prepared statement for the SQL, preparing it on first use.
+         * The statement belongs to the pool and must not be closed by the caller.
+         *
+         * @param sql SQL text
+         * @return prepared statement bound to this lease's connection
+         * @throws SQLException if preparing fails
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            return pooled.prepare(sql);
+        }
+
+        /**
+         * Returns the raw connection, e.g. to control transactions.
+         * Callers must restore auto-commit before closing the lease.
+         *
+         * @return the leased connection
+         */
+        public Connection connection() {
+            return pooled.tracked;
+        }
+
+        @Override
+        public void close() {
+            if (!returned) {
+                returned = true;
+                giveBack(pooled);
+            }
+        }
+    }
+
+    /** Pool metrics. */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Stats {
+        /** Connections currently leased. */
+        private final int active;
+
+        /** Open connections waiting in the pool. */
+        private final int idle;
+
+        /** Maximum number of connections. */
+        private final int maxSize;
+
+        /** Number of successful borrows since start. */
+        private final long borrowCount;
+
+        /** Total time callers waited for a connection, in nanoseconds. */
+        private final long totalWaitNanos;
+
+        /** Longest single wait for a connection, in nanoseconds. */
+        private final long maxWaitNanos;
+
+        /**
+         * Returns the mean time callers waited for a connection.
+         *
+         * @return mean wait in milliseconds, or 0 if nothing was borrowed yet
+         */
+        public double averageWaitMillis() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1e6 / borrowCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DB pool: active=%d idle=%d max=%d borrows=%d avgWait=%.2f ms maxWait=%.2f ms",
+                    active, idle, maxSize, borrowCount, averageWaitMillis(), maxWaitNanos / 1e6);
+        }
+    }
+
+    /** A physical connection plus its statement cache. */
+    private static final class PooledConnection {
+        private final Connection connection;
+
+        /** The connection as handed to callers; records failures in {@link #failed}. */
+        private final Connection tracked;
+        private final Map<String, PreparedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                        if (size() > STATEMENT_CACHE_SIZE) {
+                            closeQuietly(eldest.getValue());
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+
+        /** Whether a call on the connection or one of its statements threw during the current lease. */
+        private volatile boolean failed;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.tracked = track(Connection.class, connection);
+        }
+
+        /**
+         * Wraps a JDBC object so that an {@link SQLException} from any of its methods marks this
+         * connection as failed; statements it creates are wrapped as well.
+         */
+        private <T> T track(Class<T> type, T target) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof SQLException) {
+                        failed = true;
+                    }
+                    throw e.getCause();
+                }
+                if (result instanceof Statement && method.getReturnType().isInterface()) {
+                    return trackStatement(method.getReturnType(), result);
+                }
+                return result;
+            }));
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T trackStatement(Class<T> type, Object statement) {
+            return track(type, (T) statement);
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = tracked.prepareStatement(sql);
+                statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+            }
+            return statement;
+        }
+
+        private void touch() {
+            lastUsedMillis = System.currentTimeMillis();
+        }
+
+        private long idleMillis() {
+            return System.currentTimeMillis() - lastUsedMillis;
+        }
+
+        private boolean isValid() {
+            try {
+                return connection.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private boolean isClosed() {
+            try {
+                return connection.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+
+        private void closeQuietly() {
+            statements.values().forEach(PooledConnection::closeQuietly);
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // already broken
+            }
+        }
+
+        private static void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // connection already gone
+            }
+        }
+    }
+}
@@ -1,83 +1,661 @@
 package org.example.craft.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.example.craft.freshdesk.ContactIndex;
+import org.example.craft.github.CachedUser;
+import org.example.craft.github.UserCacheStore;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.metrics.Histogram;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.sync.Outbox;
+import org.example.craft.sync.RunJournal;
+
+/**
+ * MySQL implementation of {@link UserRepository}.
+ * <p>
+ * Connections come from a bounded {@link ConnectionPool} that caches prepared statements
+ * per connection, so concurrent sync workers use the DB in parallel.
+ * <p>
+ * Also acts as the persistent {@link UserCacheStore} of the GitHub client
+ * (table {@code github_user_etags}) and as the Freshdesk {@link ContactIndex}
+ * (table {@code freshdesk_contact_ids}), and keeps the {@link RunJournal} of bulk runs
+ * (tables {@code sync_runs} and {@code sync_run_items}) and the {@link Outbox} of pending
+ * Freshdesk pushes (table {@code freshdesk_outbox}).
+ * <p>
+ * Every statement is timed in {@code db_query_seconds}, labelled by operation.
+ */
+public final class MySqlUserRepository implements UserRepository {
+    private static final String UPSERT_SQL =
+            "INSERT INTO github_users(login, name, created_at, contact_hash) " +
+                    "VALUES(?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "name = VALUES(name), " +
+                    "created_at = VALUES(created_at), " +
+                    "contact_hash = VALUES(contact_hash)";
+
+    private static final String FIND_SQL =
+            "SELECT login, name, created_at, contact_hash FROM github_users WHERE login = ?";
+
+    private static final String CONTACT_HASHES_SQL =
+            "SELECT login, contact_hash FROM github_users WHERE contact_hash IS NOT NULL";
+
+    private static final String LOAD_CACHED_SQL =
+            "SELECT etag, last_modified, login, name, created_at, email, location, twitter_username " +
+                    "FROM github_user_etags WHERE login = ?";
+
+    private static final String SAVE_CACHED_SQL =
+            "INSERT INTO github_user_etags" +
+                    "(login, etag, last_modified, name, created_at, email, location, twitter_username) " +
+                    "VALUES(?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "etag = VALUES(etag), " +
+                    "last_modified = VALUES(last_modified), " +
+                    "name = VALUES(name), " +
+                    "created_at = VALUES(created_at), " +
+                    "email = VALUES(email), " +
+                    "location = VALUES(location), " +
+                    "twitter_username = VALUES(twitter_username)";
+
+    private static final String FIND_CONTACT_ID_SQL =
+            "SELECT contact_id FROM freshdesk_contact_ids WHERE unique_external_id = ?";
+
+    private static final String PUT_CONTACT_ID_SQL =
+            "INSERT INTO freshdesk_contact_ids(unique_external_id, contact_id) VALUES(?, ?) " +
+                    "ON DUPLICATE KEY UPDATE contact_id = VALUES(contact_id)";
+
+    private static final String REMOVE_CONTACT_ID_SQL =
+            "DELETE FROM freshdesk_contact_ids WHERE unique_external_id = ?";
+
+    private static final String START_RUN_SQL =
+            "INSERT INTO sync_runs(run_id, source, status) VALUES(?, ?, 'RUNNING')";
+
+    private static final String RESUME_RUN_SQL =
+            "UPDATE sync_runs SET status = 'RUNNING', finished_at = NULL WHERE run_id = ?";
+
+    private static final String FIND_RUN_SQL =
+            "SELECT status, input_offset FROM sync_runs WHERE run_id = ?";
+
+    private static final String COMPLETED_LOGINS_SQL =
+            "SELECT login FROM sync_run_items WHERE run_id = ? AND status IN ('PERSISTED', 'UNCHANGED')";
+
+    private static final String MARK_ITEM_SQL =
+            "INSERT INTO sync_run_items(run_id, login, status, error) VALUES(?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE status = VALUES(status), error = VALUES(error)";
+
+    private static final String SAVE_OFFSET_SQL =
+            "UPDATE sync_runs SET input_offset = GREATEST(input_offset, ?) WHERE run_id = ?";
+
+    private static final String FINISH_RUN_SQL =
+            "UPDATE sync_runs SET status = ?, finished_at = CURRENT_TIMESTAMP WHERE run_id = ?";
+
+    private static final String DELETE_RUN_ITEMS_SQL = "DELETE FROM sync_run_items WHERE run_id = ?";
+
+    private static final String PRUNE_ITEMS_SQL =
+            "DELETE i FROM sync_run_items i JOIN sync_runs r ON r.run_id = i.run_id " +
+                    "WHERE r.started_at < CURRENT_TIMESTAMP - INTERVAL ? DAY";
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO freshdesk_outbox(login, contact_hash, payload) VALUES(?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "contact_hash = VALUES(contact_hash), " +
+                    "payload = VALUES(payload), " +
+                    "attempts = 0, " +
+                    "last_error = NULL, " +
+                    "available_at = CURRENT_TIMESTAMP(3)";
+
+    private static final String DUE_SQL =
+            "SELECT id, login, contact_hash, payload, attempts FROM freshdesk_outbox " +
+                    "WHERE available_at <= CURRENT_TIMESTAMP(3) ORDER BY id LIMIT ?";
+
+    private static final String ACKNOWLEDGE_SQL =
+            "DELETE FROM freshdesk_outbox WHERE id = ? AND contact_hash = ?";
+
+    private static final String RETRY_LATER_SQL =
+            "UPDATE freshdesk_outbox SET attempts = attempts + 1, last_error = ?, " +
+                    "available_at = CURRENT_TIMESTAMP(3) + INTERVAL ? SECOND " +
+                    "WHERE id = ? AND contact_hash = ?";
+
+    private static final String PENDING_SQL = "SELECT COUNT(*) FROM freshdesk_outbox";
+
+    /** Размер на пула по подразбиране: скалира с ядрата */
+    public static final int DEFAULT_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final Histogram UPSERT_TIME = queryTime("upsert");
+    private static final Histogram UPSERT_ALL_TIME = queryTime("upsert_all");
+    private static final Histogram FIND_TIME = queryTime("find_by_login");
+    private static final Histogram CONTACT_HASHES_TIME = queryTime("contact_hashes");
+    private static final Histogram LOAD_CACHED_TIME = queryTime("load_cached");
+    private static final Histogram SAVE_CACHED_TIME = queryTime("save_cached");
+    private static final Histogram FIND_CONTACT_ID_TIME = queryTime("find_contact_id");
+    private static final Histogram PUT_CONTACT_ID_TIME = queryTime("put_contact_id");
+    private static final Histogram REMOVE_CONTACT_ID_TIME = queryTime("remove_contact_id");
+    private static final Histogram CHECKPOINT_TIME = queryTime("run_checkpoint");
+    private static final Histogram ENQUEUE_TIME = queryTime("outbox_enqueue");
+    private static final Histogram DUE_TIME = queryTime("outbox_due");
+    private static final Histogram ACKNOWLEDGE_TIME = queryTime("outbox_acknowledge");
 
-public final class MySqlUserRepository implements AutoCloseable {
     private final String jdbcUrl;
     private final String user;
     private final String password;
-    private Connection connection;
+    private final int poolSize;
+    private volatile ConnectionPool pool;
 
     public MySqlUserRepository(String jdbcUrl, String user, String password) {
+        this(jdbcUrl, user, password, DEFAULT_POOL_SIZE);
+    }
+
+    public MySqlUserRepository(String jdbcUrl, String user, String password, int poolSize) {
         this.jdbcUrl = jdbcUrl;
         this.user = user;
         this.password = password;
+        this.poolSize = poolSize;
     }
 
-    public void open() throws Exception {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(jdbcUrl, user, password);
-            connection.setAutoCommit(true);
+    @Override
+    public synchronized void open() throws Exception {
+        if (pool == null) {
+            pool = new ConnectionPool(jdbcUrl, user, password, poolSize);
+            pool.borrow().close(); // fail fast on bad credentials
         }
     }
 
+    /** Метрики на пула (чакане, активни, свободни) */
+    @Override
+    public String connectionStats() {
+        return poolStats().toString();
+    }
+
+    /** Метрики на пула; преди {@link #open()} – празни */
+    public ConnectionPool.Stats poolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.stats() : new ConnectionPool.Stats(0, 0, poolSize, 0, 0, 0);
+    }
+
+    private static Histogram queryTime(String operation) {
+        return MetricsRegistry.global().histogram("db_query_seconds", "op", operation);
+    }
+
     /** По избор – създай таблицата, ако липсва */
+    @Override
     public void initSchema() throws Exception {
-        try (var st = connection.createStatement()) {
+        try (ConnectionPool.Lease lease = pool.borrow();
+             var st = lease.connection().createStatement()) {
             st.execute("""
         CREATE TABLE IF NOT EXISTS github_users (
           login VARCHAR(100) PRIMARY KEY,
           name VARCHAR(200),
-          created_at VARCHAR(50)
+          created_at VARCHAR(50),
+          contact_hash CHAR(64)
+        )
+      """);
+            addColumnIfMissing(lease.connection(), "github_users", "contact_hash", "CHAR(64)");
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS github_user_etags (
+          login VARCHAR(100) PRIMARY KEY,
+          etag VARCHAR(255),
+          last_modified VARCHAR(64),
+          name VARCHAR(200),
+          created_at VARCHAR(50),
+          email VARCHAR(255),
+          location VARCHAR(255),
+          twitter_username VARCHAR(100)
+        )
+      """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS freshdesk_contact_ids (
+          unique_external_id VARCHAR(120) PRIMARY KEY,
+          contact_id BIGINT NOT NULL
+        )
+      """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS sync_runs (
+          run_id CHAR(36) PRIMARY KEY,
+          source VARCHAR(500),
+          status VARCHAR(16) NOT NULL,
+          input_offset BIGINT NOT NULL DEFAULT 0,
+          started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+          finished_at TIMESTAMP NULL
         )
       """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS sync_run_items (
+          run_id CHAR(36) NOT NULL,
+          login VARCHAR(100) NOT NULL,
+          status VARCHAR(16) NOT NULL,
+          error VARCHAR(500),
+          updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+          PRIMARY KEY (run_id, login)
+        )
+      """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS freshdesk_outbox (
+          id BIGINT AUTO_INCREMENT PRIMARY KEY,
+          login VARCHAR(100) NOT NULL UNIQUE,
+          contact_hash CHAR(64) NOT NULL,
+          payload TEXT NOT NULL,
+          attempts INT NOT NULL DEFAULT 0,
+          last_error VARCHAR(500),
+          available_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+          KEY idx_outbox_due (available_at, id)
+        )
+      """);
+        }
+    }
+
+    /** Таблици, създадени от по-стара версия, нямат новите колони */
+    private static void addColumnIfMissing(Connection connection, String table, String column, String type)
+            throws Exception {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        try (var st = connection.createStatement()) {
+            st.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
         }
     }
 
     /** INSERT ... ON DUPLICATE KEY UPDATE по PK=login */
+    @Override
     public void upsert(UserSnapshot snapshot) throws Exception {
-        System.out.println("[DBG] UPSERT login=" + snapshot.getLogin()
-                + ", name=" + snapshot.getName()
-                + ", createdAt=" + snapshot.getCreatedAt());
-
-        try (PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO github_users(login, name, createdAt) " +
-                        "VALUES(?, ?, ?) " +
-                        "ON DUPLICATE KEY UPDATE " +
-                        "name = VALUES(name), " +
-                        "created_at = VALUES(created_at)"
-        )) {
-            ps.setString(1, snapshot.getLogin());
-            ps.setString(2, snapshot.getName());
-            ps.setString(3, snapshot.getCreatedAt());
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(UPSERT_SQL);
+            bindSnapshot(ps, snapshot);
+            ps.executeUpdate();
+        } finally {
+            UPSERT_TIME.observeSince(startedAt);
+        }
+    }
+
+    /**
+     * Upsert на много редове с един JDBC batch в една транзакция.
+     * С {@code rewriteBatchedStatements=true} в DB_URL драйверът го изпраща
+     * като multi-row INSERT ... ON DUPLICATE KEY UPDATE.
+     */
+    @Override
+    public void upsertAll(Collection<UserSnapshot> snapshots) throws Exception {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            Connection connection = lease.connection();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement ps = lease.prepare(UPSERT_SQL);
+                for (UserSnapshot snapshot : snapshots) {
+                    bindSnapshot(ps, snapshot);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            UPSERT_ALL_TIME.observeSince(startedAt);
+        }
+    }
+
+    private static void bindSnapshot(PreparedStatement ps, UserSnapshot snapshot) throws Exception {
+        ps.setString(1, snapshot.getLogin());
+        ps.setString(2, snapshot.getName());
+        ps.setString(3, snapshot.getCreatedAt());
+        ps.setString(4, snapshot.getContactHash());
+    }
+
+    /** github_users upsert + outbox ред в една транзакция; нов payload за същия login замества стария */
+    @Override
+    public void enqueue(UserSnapshot snapshot, String payload) throws Exception {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            Connection connection = lease.connection();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement upsert = lease.prepare(UPSERT_SQL);
+                bindSnapshot(upsert, snapshot);
+                upsert.executeUpdate();
+                PreparedStatement enqueue = lease.prepare(ENQUEUE_SQL);
+                enqueue.setString(1, snapshot.getLogin());
+                enqueue.setString(2, snapshot.getContactHash());
+                enqueue.setString(3, payload);
+                enqueue.executeUpdate();
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            ENQUEUE_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public List<Outbox.Entry> due(int limit) throws Exception {
+        List<Outbox.Entry> entries = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(DUE_SQL);
+            ps.setInt(1, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new Outbox.Entry(
+                            rs.getLong("id"),
+                            rs.getString("login"),
+                            rs.getString("contact_hash"),
+                            rs.getString("payload"),
+                            rs.getInt("attempts")));
+                }
+            }
+        } finally {
+            DUE_TIME.observeSince(startedAt);
+        }
+        return entries;
+    }
+
+    /** Трие реда само ако payload-ът не е заменен междувременно */
+    @Override
+    public void acknowledge(Outbox.Entry entry) throws Exception {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(ACKNOWLEDGE_SQL);
+            ps.setLong(1, entry.getId());
+            ps.setString(2, entry.getContactHash());
+            ps.executeUpdate();
+        } finally {
+            ACKNOWLEDGE_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public void retryLater(Outbox.Entry entry, int delaySeconds, String error) throws Exception {
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(RETRY_LATER_SQL);
+            ps.setString(1, error != null && error.length() > 500 ? error.substring(0, 500) : error);
+            ps.setInt(2, delaySeconds);
+            ps.setLong(3, entry.getId());
+            ps.setString(4, entry.getContactHash());
             ps.executeUpdate();
         }
     }
 
+    @Override
+    public long pending() throws Exception {
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(PENDING_SQL);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    @Override
     public UserSnapshot findByLogin(String login) throws Exception {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT login, name, created_at FROM github_users WHERE login = ?"
-        )) {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(FIND_SQL);
             ps.setString(1, login);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return new UserSnapshot(
                             rs.getString("login"),
                             rs.getString("name"),
-                            rs.getString("created_at"));
+                            rs.getString("created_at"),
+                            rs.getString("contact_hash"));
                 }
             }
+        } finally {
+            FIND_TIME.observeSince(startedAt);
         }
         return null;
     }
 
+    /** Всички записани contact_hash по login в малки букви, с една заявка (за reconciliation) */
+    @Override
+    public Map<String, String> contactHashes() throws Exception {
+        Map<String, String> hashes = new HashMap<>();
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(CONTACT_HASHES_SQL);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    hashes.put(rs.getString("login").toLowerCase(Locale.ROOT), rs.getString("contact_hash"));
+                }
+            }
+        } finally {
+            CONTACT_HASHES_TIME.observeSince(startedAt);
+        }
+        return hashes;
+    }
+
+    /** Зарежда кеширания GitHub потребител с ETag / Last-Modified */
+    @Override
+    public CachedUser load(String login) throws Exception {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(LOAD_CACHED_SQL);
+            ps.setString(1, login);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    GitHubUser user = new GitHubUser();
+                    user.setLogin(rs.getString("login"));
+                    user.setName(rs.getString("name"));
+                    user.setCreatedAt(rs.getString("created_at"));
+                    user.setEmail(rs.getString("email"));
+                    user.setLocation(rs.getString("location"));
+                    user.setTwitterUsername(rs.getString("twitter_username"));
+                    return new CachedUser(rs.getString("etag"), rs.getString("last_modified"), user);
+                }
+            }
+        } finally {
+            LOAD_CACHED_TIME.observeSince(startedAt);
+        }
+        return null;
+    }
+
+    /** INSERT ... ON DUPLICATE KEY UPDATE на кеширания GitHub потребител */
+    @Override
+    public void save(String login, CachedUser cached) throws Exception {
+        GitHubUser user = cached.getUser();
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(SAVE_CACHED_SQL);
+            ps.setString(1, login);
+            ps.setString(2, cached.getEtag());
+            ps.setString(3, cached.getLastModified());
+            ps.setString(4, user.getName());
+            ps.setString(5, user.getCreatedAt());
+            ps.setString(6, user.getEmail());
+            ps.setString(7, user.getLocation());
+            ps.setString(8, user.getTwitterUsername());
+            ps.executeUpdate();
+        } finally {
+            SAVE_CACHED_TIME.observeSince(startedAt);
+        }
+    }
+
+    /** Freshdesk contact id по unique_external_id */
+    @Override
+    public Long findContactId(String uniqueExternalId) throws Exception {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(FIND_CONTACT_ID_SQL);
+            ps.setString(1, uniqueExternalId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("contact_id") : null;
+            }
+        } finally {
+            FIND_CONTACT_ID_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public void putContactId(String uniqueExternalId, long contactId) throws Exception {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(PUT_CONTACT_ID_SQL);
+            ps.setString(1, uniqueExternalId);
+            ps.setLong(2, contactId);
+            ps.executeUpdate();
+        } finally {
+            PUT_CONTACT_ID_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public void removeContactId(String uniqueExternalId) throws Exception {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(REMOVE_CONTACT_ID_SQL);
+            ps.setString(1, uniqueExternalId);
+            ps.executeUpdate();
+        } finally {
+            REMOVE_CONTACT_ID_TIME.observeSince(startedAt);
+        }
+    }
+
+    /** Нов запис в sync_runs със статус RUNNING; редовете на стари run-ове се изтриват */
+    @Override
+    public String startRun(String source) throws Exception {
+        String runId = UUID.randomUUID().toString();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(START_RUN_SQL);
+            ps.setString(1, runId);
+            ps.setString(2, source);
+            ps.executeUpdate();
+            PreparedStatement prune = lease.prepare(PRUNE_ITEMS_SQL);
+            prune.setInt(1, ITEM_RETENTION_DAYS);
+            prune.executeUpdate();
+        }
+        return runId;
+    }
+
+    @Override
+    public long resumeRun(String runId) throws Exception {
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement find = lease.prepare(FIND_RUN_SQL);
+            find.setString(1, runId);
+            long offset;
+            try (ResultSet rs = find.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalArgumentException("Unknown run: " + runId);
+                }
+                if ("COMPLETED".equals(rs.getString("status"))) {
+                    throw new IllegalArgumentException("Run already completed: " + runId);
+                }
+                offset = rs.getLong("input_offset");
+            }
+            PreparedStatement ps = lease.prepare(RESUME_RUN_SQL);
+            ps.setString(1, runId);
+            ps.executeUpdate();
+            return offset;
+        }
+    }
+
+    @Override
+    public Set<String> completedLogins(String runId) throws Exception {
+        Set<String> logins = new HashSet<>();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            PreparedStatement ps = lease.prepare(COMPLETED_LOGINS_SQL);
+            ps.setString(1, runId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    logins.add(rs.getString("login"));
+                }
+            }
+        }
+        return logins;
+    }
+
+    /** Редовете (INSERT ... ON DUPLICATE KEY UPDATE, login в малки букви) и offset-ът в една транзакция */
+    @Override
+    public void checkpoint(String runId, long offset, Collection<Item> items) throws Exception {
+        long startedAt = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            Connection connection = lease.connection();
+            connection.setAutoCommit(false);
+            try {
+                if (!items.isEmpty()) {
+                    PreparedStatement ps = lease.prepare(MARK_ITEM_SQL);
+                    for (Item item : items) {
+                        bindItem(ps, runId, item);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                PreparedStatement ps = lease.prepare(SAVE_OFFSET_SQL);
+                ps.setLong(1, offset);
+                ps.setString(2, runId);
+                ps.executeUpdate();
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            CHECKPOINT_TIME.observeSince(startedAt);
+        }
+    }
+
+    private static void bindItem(PreparedStatement ps, String runId, Item item) throws Exception {
+        String error = item.getError();
+        ps.setString(1, runId);
+        ps.setString(2, item.getLogin().toLowerCase(Locale.ROOT));
+        ps.setString(3, item.getStatus().name());
+        ps.setString(4, error != null && error.length() > 500 ? error.substring(0, 500) : error);
+    }
+
+    /** Завършен run не се продължава, затова редовете му се изтриват */
+    @Override
+    public void finishRun(String runId, boolean completed) throws Exception {
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            Connection connection = lease.connection();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement ps = lease.prepare(FINISH_RUN_SQL);
+                ps.setString(1, completed ? "COMPLETED" : "FAILED");
+                ps.setString(2, runId);
+                ps.executeUpdate();
+                if (completed) {
+                    PreparedStatement delete = lease.prepare(DELETE_RUN_ITEMS_SQL);
+                    delete.setString(1, runId);
+                    delete.executeUpdate();
+                }
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
     @Override
-    public void close() throws Exception {
-        if (connection != null && !connection.isClosed()) {
-            connection.close();
+    public synchronized void close() throws Exception {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
     }
 }
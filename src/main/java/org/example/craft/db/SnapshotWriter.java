@@ -0,0 +1,23 @@
+package org.example.craft.db;
+
+/** Destination for {@link UserSnapshot}s produced by the sync flow. */
+@FunctionalInterface
+public interface SnapshotWriter {
+
+    /**
+     * Persists (or schedules persisting) one snapshot.
+     *
+     * @param snapshot snapshot to write
+     * @throws Exception if the write fails
+     */
+    void write(UserSnapshot snapshot) throws Exception;
+
+    /**
+     * Whether {@link #write} only queues the snapshot, so it is not in the DB yet when the call returns.
+     *
+     * @return {@code false} unless the writer buffers
+     */
+    default boolean isDeferred() {
+        return false;
+    }
+}
@@ -0,0 +1,639 @@
+package org.example.craft.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.example.craft.github.CachedUser;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.metrics.Histogram;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.sync.Outbox;
+
+/**
+ * Embedded SQLite implementation of {@link UserRepository}, for a local file such as {@code craft.db}.
+ * <p>
+ * SQLite has a single writer, so the repository keeps one connection and serializes all calls on it;
+ * prepared statements are cached on that connection. The database runs in WAL mode with
+ * {@code synchronous=NORMAL}: a commit appends to the write-ahead log without waiting for a checkpoint,
+ * and readers never block the writer. {@link #upsertAll} and {@link #enqueue} write in one transaction,
+ * so with {@code --write-behind} a whole batch costs one fsync instead of one per row.
+ * <p>
+ * Same tables as {@link MySqlUserRepository}; outbox times are stored as epoch milliseconds.
+ * Every statement is timed in {@code db_query_seconds}, labelled by operation.
+ */
+public final class SqliteUserRepository implements UserRepository {
+
+    /** Префикс на JDBC URL-а, по който {@link UserRepository#forUrl} избира SQLite */
+    public static final String URL_PREFIX = "jdbc:sqlite:";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO github_users(login, name, created_at, contact_hash) " +
+                    "VALUES(?, ?, ?, ?) " +
+                    "ON CONFLICT(login) DO UPDATE SET " +
+                    "name = excluded.name, " +
+                    "created_at = excluded.created_at, " +
+                    "contact_hash = excluded.contact_hash";
+
+    private static final String FIND_SQL =
+            "SELECT login, name, created_at, contact_hash FROM github_users WHERE login = ?";
+
+    private static final String CONTACT_HASHES_SQL =
+            "SELECT login, contact_hash FROM github_users WHERE contact_hash IS NOT NULL";
+
+    private static final String LOAD_CACHED_SQL =
+            "SELECT etag, last_modified, login, name, created_at, email, location, twitter_username " +
+                    "FROM github_user_etags WHERE login = ?";
+
+    private static final String SAVE_CACHED_SQL =
+            "INSERT INTO github_user_etags" +
+                    "(login, etag, last_modified, name, created_at, email, location, twitter_username) " +
+                    "VALUES(?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT(login) DO UPDATE SET " +
+                    "etag = excluded.etag, " +
+                    "last_modified = excluded.last_modified, " +
+                    "name = excluded.name, " +
+                    "created_at = excluded.created_at, " +
+                    "email = excluded.email, " +
+                    "location = excluded.location, " +
+                    "twitter_username = excluded.twitter_username";
+
+    private static final String FIND_CONTACT_ID_SQL =
+            "SELECT contact_id FROM freshdesk_contact_ids WHERE unique_external_id = ?";
+
+    private static final String PUT_CONTACT_ID_SQL =
+            "INSERT INTO freshdesk_contact_ids(unique_external_id, contact_id) VALUES(?, ?) " +
+                    "ON CONFLICT(unique_external_id) DO UPDATE SET contact_id = excluded.contact_id";
+
+    private static final String REMOVE_CONTACT_ID_SQL =
+            "DELETE FROM freshdesk_contact_ids WHERE unique_external_id = ?";
+
+    private static final String START_RUN_SQL =
+            "INSERT INTO sync_runs(run_id, source, status) VALUES(?, ?, 'RUNNING')";
+
+    private static final String RESUME_RUN_SQL =
+            "UPDATE sync_runs SET status = 'RUNNING', finished_at = NULL WHERE run_id = ?";
+
+    private static final String FIND_RUN_SQL =
+            "SELECT status, input_offset FROM sync_runs WHERE run_id = ?";
+
+    private static final String COMPLETED_LOGINS_SQL =
+            "SELECT login FROM sync_run_items WHERE run_id = ? AND status IN ('PERSISTED', 'UNCHANGED')";
+
+    private static final String MARK_ITEM_SQL =
+            "INSERT INTO sync_run_items(run_id, login, status, error) VALUES(?, ?, ?, ?) " +
+                    "ON CONFLICT(run_id, login) DO UPDATE SET " +
+                    "status = excluded.status, " +
+                    "error = excluded.error, " +
+                    "updated_at = CURRENT_TIMESTAMP";
+
+    private static final String SAVE_OFFSET_SQL =
+            "UPDATE sync_runs SET input_offset = MAX(input_offset, ?) WHERE run_id = ?";
+
+    private static final String FINISH_RUN_SQL =
+            "UPDATE sync_runs SET status = ?, finished_at = CURRENT_TIMESTAMP WHERE run_id = ?";
+
+    private static final String DELETE_RUN_ITEMS_SQL = "DELETE FROM sync_run_items WHERE run_id = ?";
+
+    private static final String PRUNE_ITEMS_SQL =
+            "DELETE FROM sync_run_items WHERE run_id IN " +
+                    "(SELECT run_id FROM sync_runs WHERE started_at < datetime('now', ?))";
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO freshdesk_outbox(login, contact_hash, payload, available_at) VALUES(?, ?, ?, ?) " +
+                    "ON CONFLICT(login) DO UPDATE SET " +
+                    "contact_hash = excluded.contact_hash, " +
+                    "payload = excluded.payload, " +
+                    "attempts = 0, " +
+                    "last_error = NULL, " +
+                    "available_at = excluded.available_at";
+
+    private static final String DUE_SQL =
+            "SELECT id, login, contact_hash, payload, attempts FROM freshdesk_outbox " +
+                    "WHERE available_at <= ? ORDER BY id LIMIT ?";
+
+    private static final String ACKNOWLEDGE_SQL =
+            "DELETE FROM freshdesk_outbox WHERE id = ? AND contact_hash = ?";
+
+    private static final String RETRY_LATER_SQL =
+            "UPDATE freshdesk_outbox SET attempts = attempts + 1, last_error = ?, available_at = ? " +
+                    "WHERE id = ? AND contact_hash = ?";
+
+    private static final String PENDING_SQL = "SELECT COUNT(*) FROM freshdesk_outbox";
+
+    private static final Histogram UPSERT_TIME = queryTime("upsert");
+    private static final Histogram UPSERT_ALL_TIME = queryTime("upsert_all");
+    private static final Histogram FIND_TIME = queryTime("find_by_login");
+    private static final Histogram CONTACT_HASHES_TIME = queryTime("contact_hashes");
+    private static final Histogram LOAD_CACHED_TIME = queryTime("load_cached");
+    private static final Histogram SAVE_CACHED_TIME = queryTime("save_cached");
+    private static final Histogram FIND_CONTACT_ID_TIME = queryTime("find_contact_id");
+    private static final Histogram PUT_CONTACT_ID_TIME = queryTime("put_contact_id");
+    private static final Histogram REMOVE_CONTACT_ID_TIME = queryTime("remove_contact_id");
+    private static final Histogram CHECKPOINT_TIME = queryTime("run_checkpoint");
+    private static final Histogram ENQUEUE_TIME = queryTime("outbox_enqueue");
+    private static final Histogram DUE_TIME = queryTime("outbox_due");
+    private static final Histogram ACKNOWLEDGE_TIME = queryTime("outbox_acknowledge");
+
+    private final String jdbcUrl;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private Connection connection;
+    private long transactions;
+
+    public SqliteUserRepository(String jdbcUrl) {
+        this.jdbcUrl = jdbcUrl;
+    }
+
+    /** Отваря файла и включва WAL; {@code busy_timeout} изчаква друг процес, който пише в същия файл */
+    @Override
+    public synchronized void open() throws Exception {
+        if (connection == null) {
+            connection = DriverManager.getConnection(jdbcUrl);
+            try (var st = connection.createStatement()) {
+                st.execute("PRAGMA journal_mode=WAL");
+                st.execute("PRAGMA synchronous=NORMAL");
+                st.execute("PRAGMA busy_timeout=5000");
+            }
+        }
+    }
+
+    @Override
+    public synchronized String connectionStats() {
+        return "sqlite " + jdbcUrl.substring(URL_PREFIX.length()) + ", " + transactions + " write transactions";
+    }
+
+    private static Histogram queryTime(String operation) {
+        return MetricsRegistry.global().histogram("db_query_seconds", "op", operation);
+    }
+
+    /** Кешира PreparedStatement-ите на единствената връзка */
+    private PreparedStatement prepare(String sql) throws Exception {
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null) {
+            ps = connection.prepareStatement(sql);
+            statements.put(sql, ps);
+        }
+        return ps;
+    }
+
+    /** Създава таблиците, ако липсват; колоните са TEXT/INTEGER както в schema.sql */
+    @Override
+    public synchronized void initSchema() throws Exception {
+        try (var st = connection.createStatement()) {
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS github_users (
+          login TEXT PRIMARY KEY,
+          name TEXT,
+          created_at TEXT,
+          contact_hash TEXT
+        )
+      """);
+            addColumnIfMissing("github_users", "contact_hash", "TEXT");
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS github_user_etags (
+          login TEXT PRIMARY KEY,
+          etag TEXT,
+          last_modified TEXT,
+          name TEXT,
+          created_at TEXT,
+          email TEXT,
+          location TEXT,
+          twitter_username TEXT
+        )
+      """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS freshdesk_contact_ids (
+          unique_external_id TEXT PRIMARY KEY,
+          contact_id INTEGER NOT NULL
+        )
+      """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS sync_runs (
+          run_id TEXT PRIMARY KEY,
+          source TEXT,
+          status TEXT NOT NULL,
+          input_offset INTEGER NOT NULL DEFAULT 0,
+          started_at TEXT DEFAULT CURRENT_TIMESTAMP,
+          finished_at TEXT
+        )
+      """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS sync_run_items (
+          run_id TEXT NOT NULL,
+          login TEXT NOT NULL,
+          status TEXT NOT NULL,
+          error TEXT,
+          updated_at TEXT DEFAULT CURRENT_TIMESTAMP,
+          PRIMARY KEY (run_id, login)
+        )
+      """);
+            st.execute("""
+        CREATE TABLE IF NOT EXISTS freshdesk_outbox (
+          id INTEGER PRIMARY KEY AUTOINCREMENT,
+          login TEXT NOT NULL UNIQUE,
+          contact_hash TEXT NOT NULL,
+          payload TEXT NOT NULL,
+          attempts INTEGER NOT NULL DEFAULT 0,
+          last_error TEXT,
+          available_at INTEGER NOT NULL
+        )
+      """);
+            st.execute("CREATE INDEX IF NOT EXISTS idx_outbox_due ON freshdesk_outbox(available_at, id)");
+        }
+    }
+
+    /** Таблици, създадени от по-стара версия (напр. schema.sql), нямат новите колони */
+    private void addColumnIfMissing(String table, String column, String type) throws Exception {
+        try (var st = connection.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        try (var st = connection.createStatement()) {
+            st.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+        }
+    }
+
+    /** INSERT ... ON CONFLICT(login) DO UPDATE */
+    @Override
+    public synchronized void upsert(UserSnapshot snapshot) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(UPSERT_SQL);
+            bindSnapshot(ps, snapshot);
+            ps.executeUpdate();
+            transactions++;
+        } finally {
+            UPSERT_TIME.observeSince(startedAt);
+        }
+    }
+
+    /** Upsert на много редове в една транзакция – един commit в WAL-а за целия batch */
+    @Override
+    public synchronized void upsertAll(Collection<UserSnapshot> snapshots) throws Exception {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            inTransaction(() -> {
+                PreparedStatement ps = prepare(UPSERT_SQL);
+                for (UserSnapshot snapshot : snapshots) {
+                    bindSnapshot(ps, snapshot);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            });
+        } finally {
+            UPSERT_ALL_TIME.observeSince(startedAt);
+        }
+    }
+
+    private static void bindSnapshot(PreparedStatement ps, UserSnapshot snapshot) throws Exception {
+        ps.setString(1, snapshot.getLogin());
+        ps.setString(2, snapshot.getName());
+        ps.setString(3, snapshot.getCreatedAt());
+        ps.setString(4, snapshot.getContactHash());
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    private void inTransaction(Work work) throws Exception {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+            transactions++;
+        } catch (Exception e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /** github_users upsert + outbox ред в една транзакция; нов payload за същия login замества стария */
+    @Override
+    public synchronized void enqueue(UserSnapshot snapshot, String payload) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            inTransaction(() -> {
+                PreparedStatement upsert = prepare(UPSERT_SQL);
+                bindSnapshot(upsert, snapshot);
+                upsert.executeUpdate();
+                PreparedStatement enqueue = prepare(ENQUEUE_SQL);
+                enqueue.setString(1, snapshot.getLogin());
+                enqueue.setString(2, snapshot.getContactHash());
+                enqueue.setString(3, payload);
+                enqueue.setLong(4, System.currentTimeMillis());
+                enqueue.executeUpdate();
+            });
+        } finally {
+            ENQUEUE_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public synchronized List<Outbox.Entry> due(int limit) throws Exception {
+        List<Outbox.Entry> entries = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(DUE_SQL);
+            ps.setLong(1, System.currentTimeMillis());
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new Outbox.Entry(
+                            rs.getLong("id"),
+                            rs.getString("login"),
+                            rs.getString("contact_hash"),
+                            rs.getString("payload"),
+                            rs.getInt("attempts")));
+                }
+            }
+        } finally {
+            DUE_TIME.observeSince(startedAt);
+        }
+        return entries;
+    }
+
+    /** Трие реда само ако payload-ът не е заменен междувременно */
+    @Override
+    public synchronized void acknowledge(Outbox.Entry entry) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(ACKNOWLEDGE_SQL);
+            ps.setLong(1, entry.getId());
+            ps.setString(2, entry.getContactHash());
+            ps.executeUpdate();
+            transactions++;
+        } finally {
+            ACKNOWLEDGE_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public synchronized void retryLater(Outbox.Entry entry, int delaySeconds, String error) throws Exception {
+        PreparedStatement ps = prepare(RETRY_LATER_SQL);
+        ps.setString(1, error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        ps.setLong(2, System.currentTimeMillis() + delaySeconds * 1000L);
+        ps.setLong(3, entry.getId());
+        ps.setString(4, entry.getContactHash());
+        ps.executeUpdate();
+        transactions++;
+    }
+
+    @Override
+    public synchronized long pending() throws Exception {
+        try (ResultSet rs = prepare(PENDING_SQL).executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Override
+    public synchronized UserSnapshot findByLogin(String login) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(FIND_SQL);
+            ps.setString(1, login);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new UserSnapshot(
+                            rs.getString("login"),
+                            rs.getString("name"),
+                            rs.getString("created_at"),
+                            rs.getString("contact_hash"));
+                }
+            }
+        } finally {
+            FIND_TIME.observeSince(startedAt);
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized Map<String, String> contactHashes() throws Exception {
+        Map<String, String> hashes = new HashMap<>();
+        long startedAt = System.nanoTime();
+        try (ResultSet rs = prepare(CONTACT_HASHES_SQL).executeQuery()) {
+            while (rs.next()) {
+                hashes.put(rs.getString("login").toLowerCase(Locale.ROOT), rs.getString("contact_hash"));
+            }
+        } finally {
+            CONTACT_HASHES_TIME.observeSince(startedAt);
+        }
+        return hashes;
+    }
+
+    /** Зарежда кеширания GitHub потребител с ETag / Last-Modified */
+    @Override
+    public synchronized CachedUser load(String login) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(LOAD_CACHED_SQL);
+            ps.setString(1, login);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    GitHubUser user = new GitHubUser();
+                    user.setLogin(rs.getString("login"));
+                    user.setName(rs.getString("name"));
+                    user.setCreatedAt(rs.getString("created_at"));
+                    user.setEmail(rs.getString("email"));
+                    user.setLocation(rs.getString("location"));
+                    user.setTwitterUsername(rs.getString("twitter_username"));
+                    return new CachedUser(rs.getString("etag"), rs.getString("last_modified"), user);
+                }
+            }
+        } finally {
+            LOAD_CACHED_TIME.observeSince(startedAt);
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void save(String login, CachedUser cached) throws Exception {
+        GitHubUser user = cached.getUser();
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(SAVE_CACHED_SQL);
+            ps.setString(1, login);
+            ps.setString(2, cached.getEtag());
+            ps.setString(3, cached.getLastModified());
+            ps.setString(4, user.getName());
+            ps.setString(5, user.getCreatedAt());
+            ps.setString(6, user.getEmail());
+            ps.setString(7, user.getLocation());
+            ps.setString(8, user.getTwitterUsername());
+            ps.executeUpdate();
+            transactions++;
+        } finally {
+            SAVE_CACHED_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public synchronized Long findContactId(String uniqueExternalId) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(FIND_CONTACT_ID_SQL);
+            ps.setString(1, uniqueExternalId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("contact_id") : null;
+            }
+        } finally {
+            FIND_CONTACT_ID_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public synchronized void putContactId(String uniqueExternalId, long contactId) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(PUT_CONTACT_ID_SQL);
+            ps.setString(1, uniqueExternalId);
+            ps.setLong(2, contactId);
+            ps.executeUpdate();
+            transactions++;
+        } finally {
+            PUT_CONTACT_ID_TIME.observeSince(startedAt);
+        }
+    }
+
+    @Override
+    public synchronized void removeContactId(String uniqueExternalId) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            PreparedStatement ps = prepare(REMOVE_CONTACT_ID_SQL);
+            ps.setString(1, uniqueExternalId);
+            ps.executeUpdate();
+            transactions++;
+        } finally {
+            REMOVE_CONTACT_ID_TIME.observeSince(startedAt);
+        }
+    }
+
+    /** Нов запис в sync_runs със статус RUNNING; редовете на стари run-ове се изтриват */
+    @Override
+    public synchronized String startRun(String source) throws Exception {
+        String runId = UUID.randomUUID().toString();
+        PreparedStatement ps = prepare(START_RUN_SQL);
+        ps.setString(1, runId);
+        ps.setString(2, source);
+        ps.executeUpdate();
+        transactions++;
+        PreparedStatement prune = prepare(PRUNE_ITEMS_SQL);
+        prune.setString(1, "-" + ITEM_RETENTION_DAYS + " days");
+        prune.executeUpdate();
+        transactions++;
+        return runId;
+    }
+
+    @Override
+    public synchronized long resumeRun(String runId) throws Exception {
+        PreparedStatement find = prepare(FIND_RUN_SQL);
+        find.setString(1, runId);
+        long offset;
+        try (ResultSet rs = find.executeQuery()) {
+            if (!rs.next()) {
+                throw new IllegalArgumentException("Unknown run: " + runId);
+            }
+            if ("COMPLETED".equals(rs.getString("status"))) {
+                throw new IllegalArgumentException("Run already completed: " + runId);
+            }
+            offset = rs.getLong("input_offset");
+        }
+        PreparedStatement ps = prepare(RESUME_RUN_SQL);
+        ps.setString(1, runId);
+        ps.executeUpdate();
+        transactions++;
+        return offset;
+    }
+
+    @Override
+    public synchronized Set<String> completedLogins(String runId) throws Exception {
+        Set<String> logins = new HashSet<>();
+        PreparedStatement ps = prepare(COMPLETED_LOGINS_SQL);
+        ps.setString(1, runId);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                logins.add(rs.getString("login"));
+            }
+        }
+        return logins;
+    }
+
+    /** Редовете и offset-ът в една транзакция – един commit в WAL-а на checkpoint */
+    @Override
+    public synchronized void checkpoint(String runId, long offset, Collection<Item> items) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            inTransaction(() -> {
+                if (!items.isEmpty()) {
+                    PreparedStatement ps = prepare(MARK_ITEM_SQL);
+                    for (Item item : items) {
+                        bindItem(ps, runId, item);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                PreparedStatement ps = prepare(SAVE_OFFSET_SQL);
+                ps.setLong(1, offset);
+                ps.setString(2, runId);
+                ps.executeUpdate();
+            });
+        } finally {
+            CHECKPOINT_TIME.observeSince(startedAt);
+        }
+    }
+
+    private static void bindItem(PreparedStatement ps, String runId, Item item) throws Exception {
+        String error = item.getError();
+        ps.setString(1, runId);
+        ps.setString(2, item.getLogin().toLowerCase(Locale.ROOT));
+        ps.setString(3, item.getStatus().name());
+        ps.setString(4, error != null && error.length() > 500 ? error.substring(0, 500) : error);
+    }
+
+    /** Завършен run не се продължава, затова редовете му се изтриват */
+    @Override
+    public synchronized void finishRun(String runId, boolean completed) throws Exception {
+        inTransaction(() -> {
+            PreparedStatement ps = prepare(FINISH_RUN_SQL);
+            ps.setString(1, completed ? "COMPLETED" : "FAILED");
+            ps.setString(2, runId);
+            ps.executeUpdate();
+            if (completed) {
+                PreparedStatement delete = prepare(DELETE_RUN_ITEMS_SQL);
+                delete.setString(1, runId);
+                delete.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (connection != null) {
+            for (PreparedStatement ps : statements.values()) {
+                ps.close();
+            }
+            statements.clear();
+            connection.close();
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.craft.db;
+
+import java.util.Collection;
+import java.util.Map;
+import org.example.craft.freshdesk.ContactIndex;
+import org.example.craft.github.UserCacheStore;
+import org.example.craft.sync.Outbox;
+import org.example.craft.sync.RunJournal;
+
+/**
+ * Storage of the sync: {@link UserSnapshot}s in {@code github_users} plus everything the other
+ * components persist – the GitHub {@link UserCacheStore}, the Freshdesk {@link ContactIndex},
+ * the {@link RunJournal} of bulk runs and the Freshdesk {@link Outbox}.
+ * <p>
+ * Implementations: {@link MySqlUserRepository} for a shared server and {@link SqliteUserRepository}
+ * for a local file; {@link #forUrl} picks one by JDBC URL. Implementations are thread-safe.
+ */
+public interface UserRepository extends UserCacheStore, ContactIndex, RunJournal, Outbox, AutoCloseable {
+
+    /** Отваря връзката/пула */
+    void open() throws Exception;
+
+    /** Създава липсващите таблици и колони */
+    void initSchema() throws Exception;
+
+    /** Insert или update на един ред по login */
+    void upsert(UserSnapshot snapshot) throws Exception;
+
+    /** Upsert на много редове в една транзакция */
+    void upsertAll(Collection<UserSnapshot> snapshots) throws Exception;
+
+    /** Ред по login или {@code null} */
+    UserSnapshot findByLogin(String login) throws Exception;
+
+    /** Всички записани contact_hash по login в малки букви, с една заявка (за reconciliation) */
+    Map<String, String> contactHashes() throws Exception;
+
+    /** Кратко описание на използването на връзките за края на run-а */
+    String connectionStats();
+
+    /**
+     * Създава repository според JDBC URL-а: {@code jdbc:sqlite:} → SQLite, иначе MySQL.
+     * Потребител и парола се ползват само за MySQL.
+     */
+    static UserRepository forUrl(String jdbcUrl, String user, String password) {
+        if (jdbcUrl.startsWith(SqliteUserRepository.URL_PREFIX)) {
+            return new SqliteUserRepository(jdbcUrl);
+        }
+        return new MySqlUserRepository(jdbcUrl, user, password);
+    }
+}
@@ -12,4 +12,11 @@ public final class UserSnapshot {
     private String login;
     private String name;
     private String createdAt;
+
+    /** Fingerprint на последно изпратения Freshdesk контакт (виж Mapper.fingerprint) */
+    private String contactHash;
+
+    public UserSnapshot(String login, String name, String createdAt) {
+        this(login, name, createdAt, null);
+    }
 }
@@ -0,0 +1,178 @@
+package org.example.craft.db;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.example.craft.sync.RunJournal;
+import org.example.craft.sync.SyncListener;
+
+/**
+ * Write-behind buffer in front of {@link UserRepository#upsertAll}.
+ * <p>
+ * {@link #write(UserSnapshot)} only queues the snapshot; a background thread flushes
+ * the queue in one batched transaction when {@code maxRows} are pending or every
+ * {@code maxDelayMillis}, whichever comes first. Several snapshots of the same login
+ * collapse into the latest one. A failed batch is re-queued for the next flush;
+ * {@link #close()} flushes the rest and rethrows if the final flush fails. Once a batch is
+ * committed, its logins are reported to the listener as {@link RunJournal.ItemStatus#PERSISTED}.
+ * <p>
+ * At most {@code maxRows} times {@link #MAX_PENDING_BATCHES} rows are held. A writer that finds the
+ * buffer full waits for the next flush, and fails instead once a flush of the full buffer failed,
+ * so a database that keeps failing stops the run rather than filling the heap.
+ */
+public final class WriteBehindBuffer implements SnapshotWriter, AutoCloseable {
+    /** Number of batches that may be pending before writers are held back. */
+    public static final int MAX_PENDING_BATCHES = 10;
+
+    private final UserRepository repository;
+    private final int maxRows;
+    private final int maxPending;
+    private final SyncListener listener;
+    private final ScheduledExecutorService flusher;
+
+    private final Object lock = new Object();
+    private Map<String, UserSnapshot> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    /** Failure of the last flush, or {@code null} if it succeeded. Guarded by {@link #lock}. */
+    private Exception lastFailure;
+
+    /**
+     * Creates and starts the buffer.
+     *
+     * @param repository     repository the batches are written to
+     * @param maxRows        pending rows that trigger a flush
+     * @param maxDelayMillis maximum time a row waits before it is flushed
+     */
+    public WriteBehindBuffer(UserRepository repository, int maxRows, long maxDelayMillis) {
+        this(repository, maxRows, maxDelayMillis, SyncListener.NONE);
+    }
+
+    /**
+     * Creates and starts the buffer.
+     *
+     * @param repository     repository the batches are written to
+     * @param maxRows        pending rows that trigger a flush
+     * @param maxDelayMillis maximum time a row waits before it is flushed
+     * @param listener       told about every login whose row was committed
+     */
+    public WriteBehindBuffer(UserRepository repository, int maxRows, long maxDelayMillis, SyncListener listener) {
+        this.repository = repository;
+        this.listener = listener;
+        this.maxRows = maxRows;
+        this.maxPending = maxRows * MAX_PENDING_BATCHES;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a snapshot, waiting for a flush while the buffer is full.
+     *
+     * @param snapshot snapshot to write
+     * @throws IllegalStateException if the buffer is full and its last flush failed
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     */
+    @Override
+    public void write(UserSnapshot snapshot) throws InterruptedException {
+        synchronized (lock) {
+            while (pending.size() >= maxPending && !pending.containsKey(snapshot.getLogin())) {
+                if (lastFailure != null) {
+                    throw new IllegalStateException("Write-behind buffer is full and the DB write failed", lastFailure);
+                }
+                scheduleFlush();
+                lock.wait();
+            }
+            pending.put(snapshot.getLogin(), snapshot);
+            if (pending.size() >= maxRows) {
+                scheduleFlush();
+            }
+        }
+    }
+
+    /** Rows are written by the flusher thread, after {@link #write} returned. */
+    @Override
+    public boolean isDeferred() {
+        return true;
+    }
+
+    /** Must be called with {@link #lock} held. */
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Writes all pending rows in one transaction. Runs on the flusher thread only.
+     *
+     * @throws Exception if the batch fails; its rows are re-queued
+     */
+    private void flush() throws Exception {
+        Map<String, UserSnapshot> batch;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        List<UserSnapshot> rows = new ArrayList<>(batch.values());
+        try {
+            repository.upsertAll(rows);
+        } catch (Exception e) {
+            synchronized (lock) {
+                for (UserSnapshot row : rows) {
+                    pending.putIfAbsent(row.getLogin(), row); // a newer snapshot wins
+                }
+                lastFailure = e;
+                lock.notifyAll();
+            }
+            throw e;
+        }
+        synchronized (lock) {
+            lastFailure = null;
+            lock.notifyAll();
+        }
+        for (UserSnapshot row : rows) {
+            listener.reached(row.getLogin(), RunJournal.ItemStatus.PERSISTED);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Write-behind flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the timer and flushes the remaining rows.
+     *
+     * @throws Exception if the final flush fails
+     */
+    @Override
+    public void close() throws Exception {
+        try {
+            flusher.submit(() -> {
+                flush();
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            flusher.shutdownNow();
+        }
+    }
+}
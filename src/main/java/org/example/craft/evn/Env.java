@@ -27,4 +27,15 @@ public final class Env {
     }
     return value;
   }
+
+  /**
+   * Retrieves the value of an optional environment variable.
+   *
+   * @param name the name of the environment variable (e.g., "GITHUB_WEBHOOK_SECRET")
+   * @return the value, or {@code null} if it is not set or is blank
+   */
+  public static String optional(String name) {
+    String value = System.getenv(name);
+    return value == null || value.isBlank() ? null : value;
+  }
 }
@@ -0,0 +1,394 @@
+package org.example.craft.freshdesk;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.example.craft.http.SimpleHttp;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MeteredTransport;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Adaptive concurrency limiter for the Freshdesk API, as a {@link SimpleHttp.Transport} decorator.
+ * <p>
+ * Freshdesk enforces per-minute plan limits, so the number of requests in flight is adjusted
+ * with AIMD (additive increase, multiplicative decrease):
+ * <ul>
+ *   <li>A fast, successful response raises the limit by {@code 1/limit}
+ *       (roughly +1 per limit's worth of responses).</li>
+ *   <li>A response much slower than the best observed latency of the same endpoint lowers
+ *       the limit slightly, queueing on the server side is the first sign of saturation.
+ *       Each method and endpoint template has its own baseline, so slow calls such as list
+ *       pages are not mistaken for congestion.</li>
+ *   <li>A {@code 429} halves the limit, stops all callers until {@code Retry-After}
+ *       has passed and retries the request.</li>
+ *   <li>Once {@code X-Ratelimit-Remaining} is used up by the requests in flight, new requests
+ *       pause until the next minute instead of shrinking the limit, so the limit is intact
+ *       when the budget refills.</li>
+ * </ul>
+ * One instance should be shared by every caller that uses the same Freshdesk account.
+ * Blocking and asynchronous callers wait in one queue and are admitted in arrival order.
+ */
+public final class AdaptiveLimiter implements SimpleHttp.Transport {
+
+  /** Default number of concurrent requests before any feedback was observed. */
+  public static final int DEFAULT_INITIAL_LIMIT = 4;
+
+  /** Default upper bound for concurrent requests. */
+  public static final int DEFAULT_MAX_LIMIT = 64;
+
+  /** Default number of attempts for a throttled request. */
+  public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+  /** Pause used when a 429 does not say how long to wait. */
+  private static final long DEFAULT_RETRY_AFTER_SECONDS = 60;
+
+  /** Latency above {@code minimum * tolerance} counts as congestion. */
+  private static final double LATENCY_TOLERANCE = 2.0;
+
+  /** Limit multiplier applied on throttling. */
+  private static final double THROTTLE_BACKOFF = 0.5;
+
+  /** Limit multiplier applied on congestion (slow responses). */
+  private static final double LATENCY_BACKOFF = 0.9;
+
+  /** Number of samples after which the latency baseline is re-learned. */
+  private static final int BASELINE_WINDOW = 256;
+
+  private static final Counter THROTTLED =
+          MetricsRegistry.global().counter("http_throttled_total", "client", "freshdesk");
+  private static final Counter RETRIES =
+          MetricsRegistry.global().counter("http_retries_total", "client", "freshdesk");
+
+  private final SimpleHttp.Transport delegate;
+  private final int maxLimit;
+  private final int maxAttempts;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Current concurrency limit. Guarded by {@link #lock}. */
+  private double limit;
+
+  /** Requests currently in flight. Guarded by {@link #lock}. */
+  private int inFlight;
+
+  /** No request may start before this {@link System#nanoTime()} value. Guarded by {@link #lock}. */
+  private long pausedUntilNanos;
+
+  /** Latency baselines by method and endpoint template. Guarded by {@link #lock}. */
+  private final Map<String, Baseline> baselines = new HashMap<>();
+
+  /** Callers waiting for a slot, in arrival order. Guarded by {@link #lock}. */
+  private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+  /** Whether a delayed wake-up of {@link #waiters} is pending. Guarded by {@link #lock}. */
+  private boolean wakeScheduled;
+
+  /**
+   * Creates a limiter with default settings.
+   *
+   * @param delegate transport that performs the actual HTTP calls
+   */
+  public AdaptiveLimiter(SimpleHttp.Transport delegate) {
+    this(delegate, DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_ATTEMPTS);
+  }
+
+  /**
+   * Creates a limiter.
+   *
+   * @param delegate     transport that performs the actual HTTP calls
+   * @param initialLimit concurrent requests allowed before any feedback was observed
+   * @param maxLimit     upper bound for concurrent requests
+   * @param maxAttempts  attempts per request before a 429 is returned to the caller
+   */
+  public AdaptiveLimiter(SimpleHttp.Transport delegate, int initialLimit, int maxLimit, int maxAttempts) {
+    this.delegate = delegate;
+    this.limit = Math.max(1, Math.min(initialLimit, maxLimit));
+    this.maxLimit = maxLimit;
+    this.maxAttempts = maxAttempts;
+    this.pausedUntilNanos = System.nanoTime();
+  }
+
+  /**
+   * Waits for a free slot, performs the call, feeds the outcome back into the limit
+   * and retries throttled requests.
+   *
+   * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+   * @param url     full target URL
+   * @param headers request headers (may be empty), case-sensitive keys
+   * @param body    request body or {@code null} for requests without a body
+   * @return the first response that is not a 429, or the last 429
+   * @throws Exception if the delegate fails or the thread is interrupted while waiting
+   */
+  @Override
+  public SimpleHttp.Response call(String method, String url, Map<String, String> headers, String body)
+          throws Exception {
+    return limited(key(method, url), () -> delegate.call(method, url, headers, body));
+  }
+
+  @Override
+  public SimpleHttp.Response callBytes(String method, String url, Map<String, String> headers, byte[] body)
+          throws Exception {
+    return limited(key(method, url), () -> delegate.callBytes(method, url, headers, body));
+  }
+
+  private SimpleHttp.Response limited(String key, SimpleHttp.Send send) throws Exception {
+    SimpleHttp.Response response = null;
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      if (attempt > 1) {
+        RETRIES.increment();
+      }
+      acquire();
+      long startedAt = System.nanoTime();
+      SimpleHttp.Response attemptResponse = null;
+      try {
+        attemptResponse = send.send();
+      } finally {
+        release(key, attemptResponse, System.nanoTime() - startedAt);
+        admitWaiters();
+      }
+      response = attemptResponse;
+      if (response.getStatus() != 429) {
+        return response;
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Asynchronous variant of {@link #call}. Callers waiting for a slot or for a throttling pause
+   * hold no thread; they are admitted when a request finishes or the pause ends.
+   *
+   * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+   * @param url     full target URL
+   * @param headers request headers (may be empty), case-sensitive keys
+   * @param body    request body or {@code null} for requests without a body
+   * @return future of the first response that is not a 429, or of the last 429
+   */
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callAsync(
+          String method, String url, Map<String, String> headers, String body) {
+    return attemptAsync(key(method, url), () -> delegate.callAsync(method, url, headers, body), 1);
+  }
+
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callBytesAsync(
+          String method, String url, Map<String, String> headers, byte[] body) {
+    return attemptAsync(key(method, url), () -> delegate.callBytesAsync(method, url, headers, body), 1);
+  }
+
+  private CompletableFuture<SimpleHttp.Response> attemptAsync(
+          String key, Supplier<CompletableFuture<SimpleHttp.Response>> send, int attempt) {
+    if (attempt > 1) {
+      RETRIES.increment();
+    }
+    return acquireAsync()
+            .thenCompose(ignored -> {
+              long startedAt = System.nanoTime();
+              CompletableFuture<SimpleHttp.Response> sent;
+              try {
+                sent = send.get();
+              } catch (RuntimeException exception) {
+                sent = CompletableFuture.failedFuture(exception);
+              }
+              return sent.whenComplete((response, error) -> {
+                release(key, response, System.nanoTime() - startedAt);
+                admitWaiters();
+              });
+            })
+            .thenCompose(response -> response.getStatus() == 429 && attempt < maxAttempts
+                    ? attemptAsync(key, send, attempt + 1)
+                    : CompletableFuture.completedFuture(response));
+  }
+
+  /**
+   * Returns the current concurrency limit.
+   *
+   * @return number of requests currently allowed in flight
+   */
+  public int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Blocking variant of {@link #acquireAsync()}: waits in the same queue as async callers. */
+  private void acquire() throws InterruptedException {
+    CompletableFuture<Void> slot = acquireAsync();
+    try {
+      slot.get();
+    } catch (InterruptedException e) {
+      boolean stillQueued;
+      lock.lock();
+      try {
+        stillQueued = waiters.remove(slot);
+      } finally {
+        lock.unlock();
+      }
+      if (!stillQueued) {
+        release(null, null, 0); // admitted meanwhile; pass the slot on
+        admitWaiters();
+      }
+      throw e;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause()); // slots are never completed exceptionally
+    }
+  }
+
+  private CompletableFuture<Void> acquireAsync() {
+    lock.lock();
+    try {
+      if (waiters.isEmpty() && pausedUntilNanos - System.nanoTime() <= 0 && inFlight < (int) limit) {
+        inFlight++;
+        return CompletableFuture.completedFuture(null);
+      }
+      CompletableFuture<Void> slot = new CompletableFuture<>();
+      waiters.add(slot);
+      scheduleWakeIfPaused();
+      return slot;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Hands free slots to waiting async callers; completes them outside the lock. */
+  private void admitWaiters() {
+    List<CompletableFuture<Void>> admitted = new ArrayList<>();
+    lock.lock();
+    try {
+      if (!scheduleWakeIfPaused()) {
+        while (!waiters.isEmpty() && inFlight < (int) limit) {
+          inFlight++;
+          admitted.add(waiters.poll());
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    admitted.forEach(slot -> slot.complete(null));
+  }
+
+  /**
+   * Must be called with {@link #lock} held.
+   *
+   * @return {@code true} if requests are currently paused
+   */
+  private boolean scheduleWakeIfPaused() {
+    long pause = pausedUntilNanos - System.nanoTime();
+    if (pause <= 0) {
+      return false;
+    }
+    if (!wakeScheduled && !waiters.isEmpty()) {
+      wakeScheduled = true;
+      CompletableFuture.delayedExecutor(pause, TimeUnit.NANOSECONDS).execute(() -> {
+        lock.lock();
+        try {
+          wakeScheduled = false;
+        } finally {
+          lock.unlock();
+        }
+        admitWaiters();
+      });
+    }
+    return true;
+  }
+
+  /**
+   * Frees the slot of a finished request and adjusts the limit.
+   *
+   * @param key      method and endpoint template of the request, or {@code null} if nothing was sent
+   * @param response response of the request, or {@code null} if the call threw
+   * @param latency  duration of the call in nanoseconds
+   */
+  private void release(String key, SimpleHttp.Response response, long latency) {
+    lock.lock();
+    try {
+      inFlight--;
+      if (response != null) {
+        adjust(key, response, latency);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Must be called with {@link #lock} held. */
+  private void adjust(String key, SimpleHttp.Response response, long latency) {
+    if (response.getStatus() == 429) {
+      THROTTLED.increment();
+      long retryAfter = parseLong(response.header("Retry-After"));
+      long pause = TimeUnit.SECONDS.toNanos(retryAfter >= 0 ? retryAfter : DEFAULT_RETRY_AFTER_SECONDS);
+      pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + pause);
+      limit = Math.max(1, limit * THROTTLE_BACKOFF);
+      return;
+    }
+
+    long baseline = baselines.computeIfAbsent(key, ignored -> new Baseline()).observe(latency);
+    if (latency > baseline * LATENCY_TOLERANCE) {
+      limit = Math.max(1, limit * LATENCY_BACKOFF);
+    } else if (inFlight + 1 >= (int) limit) {
+      // only grow while the current limit is actually used
+      limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+
+    long remaining = parseLong(response.header("X-Ratelimit-Remaining"));
+    if (remaining >= 0 && remaining <= inFlight) {
+      // Freshdesk sends no reset time; its limits are per minute
+      long untilNextMinute = TimeUnit.MINUTES.toMillis(1) - System.currentTimeMillis() % TimeUnit.MINUTES.toMillis(1);
+      pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(untilNextMinute));
+    }
+  }
+
+  private static String key(String method, String url) {
+    return method + " " + MeteredTransport.endpoint(url);
+  }
+
+  /** Best observed latency of one endpoint, re-learned every {@link #BASELINE_WINDOW} samples. */
+  private static final class Baseline {
+    /** Best latency of the previous window. */
+    private long baselineNanos = Long.MAX_VALUE;
+
+    /** Best latency of the current window. */
+    private long windowMinNanos = Long.MAX_VALUE;
+
+    /** Samples in the current window. */
+    private int windowSamples;
+
+    /**
+     * Adds a sample.
+     *
+     * @param latency duration of the call in nanoseconds
+     * @return current baseline latency in nanoseconds
+     */
+    private long observe(long latency) {
+      windowMinNanos = Math.min(windowMinNanos, latency);
+      if (++windowSamples >= BASELINE_WINDOW) {
+        baselineNanos = windowMinNanos;
+        windowMinNanos = Long.MAX_VALUE;
+        windowSamples = 0;
+      }
+      return Math.min(baselineNanos, windowMinNanos);
+    }
+  }
+
+  private static long parseLong(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException ignored) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package org.example.craft.freshdesk;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.craft.freshdesk.dto.FreshdeskContact;
+import org.example.craft.mapper.Mapper;
+
+/**
+ * In-memory snapshot of all GitHub-linked Freshdesk contacts, built by one paged scan.
+ * <p>
+ * Only contacts whose {@code unique_external_id} starts with {@code "github:"} are kept, keyed by
+ * the lower-cased login. Each entry holds just the contact id and a 64-bit {@link #remoteHash}
+ * of the contact, so a directory of 100k contacts stays in the low megabytes.
+ * <p>
+ * Lookups are thread-safe once {@link #scan(FreshdeskClient)} returned. Logins are claimed as
+ * they are looked up, so the contacts no synced user matched can be counted at the end.
+ */
+public final class ContactDirectory {
+
+  /** External id prefix of contacts created from GitHub users. */
+  public static final String EXTERNAL_ID_PREFIX = "github:";
+
+  /** Id and content hash of one remote contact. */
+  @Getter
+  @RequiredArgsConstructor
+  public static final class Entry {
+    /** Freshdesk contact id. */
+    private final long id;
+
+    /** Hash of the contact as Freshdesk returned it (see {@link #remoteHash(FreshdeskContact)}). */
+    private final long hash;
+  }
+
+  private final Map<String, Entry> entries;
+  private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+
+  /** Number of pages read by the scan. */
+  @Getter
+  private final int pages;
+
+  private ContactDirectory(Map<String, Entry> entries, int pages) {
+    this.entries = entries;
+    this.pages = pages;
+  }
+
+  /**
+   * Reads all contacts page by page (see {@link FreshdeskClient#listContacts(int)}).
+   *
+   * @param client Freshdesk client
+   * @return directory of the GitHub-linked contacts
+   * @throws Exception if a page cannot be read
+   */
+  public static ContactDirectory scan(FreshdeskClient client) throws Exception {
+    Map<String, Entry> entries = new HashMap<>();
+    int page = 0;
+    List<FreshdeskContact> contacts;
+    do {
+      contacts = client.listContacts(++page);
+      for (FreshdeskContact contact : contacts) {
+        String externalId = contact.getUniqueExternalId();
+        if (externalId != null && externalId.startsWith(EXTERNAL_ID_PREFIX)) {
+          entries.put(key(externalId.substring(EXTERNAL_ID_PREFIX.length())),
+                  new Entry(contact.getId(), remoteHash(contact)));
+        }
+      }
+    } while (contacts.size() == FreshdeskClient.PAGE_SIZE);
+    return new ContactDirectory(entries, page);
+  }
+
+  /**
+   * Looks up the contact of a login and marks it as matched.
+   *
+   * @param login GitHub login (case-insensitive)
+   * @return the remote contact, or {@code null} if Freshdesk has none
+   */
+  public Entry claim(String login) {
+    String key = key(login);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      claimed.add(key);
+    }
+    return entry;
+  }
+
+  /**
+   * Number of GitHub-linked contacts found by the scan.
+   *
+   * @return directory size
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Number of contacts no {@link #claim(String)} matched so far, e.g. users that left the organization.
+   *
+   * @return unmatched contacts
+   */
+  public int unclaimed() {
+    return entries.size() - claimed.size();
+  }
+
+  /**
+   * Shortens a fingerprint to the 64-bit hash stored per entry.
+   *
+   * @param fingerprint hex fingerprint from {@link Mapper#fingerprint(FreshdeskContact)}
+   * @return its first 16 hex digits as a long
+   */
+  private static long hash64(String fingerprint) {
+    return Long.parseUnsignedLong(fingerprint, 0, 16, 16);
+  }
+
+  /**
+   * Hashes a contact so that a mapped payload and the contact Freshdesk returns for it compare equal.
+   * <p>
+   * Freshdesk does not echo every field verbatim, so both sides are normalised first: values are
+   * trimmed and blank ones dropped, the external id, email and Twitter handle are lower-cased and a
+   * leading {@code @} of the handle is removed.
+   *
+   * @param contact mapped payload or scanned contact
+   * @return 64-bit hash of the normalised contact
+   */
+  public static long remoteHash(FreshdeskContact contact) {
+    FreshdeskContact normalised = new FreshdeskContact();
+    normalised.setUniqueExternalId(lowerCase(normalise(contact.getUniqueExternalId())));
+    normalised.setName(normalise(contact.getName()));
+    normalised.setEmail(lowerCase(normalise(contact.getEmail())));
+    normalised.setAddress(normalise(contact.getAddress()));
+    String twitterId = lowerCase(normalise(contact.getTwitterId()));
+    if (twitterId != null && twitterId.startsWith("@")) {
+      twitterId = normalise(twitterId.substring(1));
+    }
+    normalised.setTwitterId(twitterId);
+    return hash64(Mapper.fingerprint(normalised));
+  }
+
+  private static String normalise(String value) {
+    return value == null || value.isBlank() ? null : value.strip();
+  }
+
+  private static String lowerCase(String value) {
+    return value == null ? null : value.toLowerCase(Locale.ROOT);
+  }
+
+  private static String key(String login) {
+    return login.toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,36 @@
+package org.example.craft.freshdesk;
+
+/**
+ * Local mapping from {@code unique_external_id} to the Freshdesk contact id.
+ * <p>
+ * Lets callers address a known contact directly with {@code PUT /contacts/{id}}
+ * instead of looking it up by external id first.
+ */
+public interface ContactIndex {
+
+  /**
+   * Looks up the contact id of an external id.
+   *
+   * @param uniqueExternalId external id (e.g., "github:octocat")
+   * @return the Freshdesk contact id, or {@code null} if unknown
+   * @throws Exception if the index cannot be read
+   */
+  Long findContactId(String uniqueExternalId) throws Exception;
+
+  /**
+   * Records (or replaces) the contact id of an external id.
+   *
+   * @param uniqueExternalId external id
+   * @param contactId        Freshdesk contact id
+   * @throws Exception if the index cannot be written
+   */
+  void putContactId(String uniqueExternalId, long contactId) throws Exception;
+
+  /**
+   * Forgets the contact id of an external id, e.g. after the contact was deleted in Freshdesk.
+   *
+   * @param uniqueExternalId external id
+   * @throws Exception if the index cannot be written
+   */
+  void removeContactId(String uniqueExternalId) throws Exception;
+}
@@ -0,0 +1,18 @@
+package org.example.craft.freshdesk;
+
+/**
+ * Thrown when Freshdesk answers {@code 404} for a contact addressed by id,
+ * typically because it was deleted or merged since its id was recorded.
+ */
+public final class ContactNotFoundException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates the exception.
+   *
+   * @param contactId id of the missing contact
+   */
+  public ContactNotFoundException(String contactId) {
+    super("Freshdesk contact not found: " + contactId);
+  }
+}
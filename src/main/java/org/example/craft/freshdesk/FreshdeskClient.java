@@ -1,27 +1,42 @@
 package org.example.craft.freshdesk;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.example.craft.freshdesk.dto.FreshdeskContact;
 import org.example.craft.http.SimpleHttp;
+import org.example.craft.mapper.Json;
 
 /**
  * Client for interacting with the Freshdesk API v2.
  * <p>
- * Supports creating, updating, and finding contacts by their unique external ID.
+ * Supports creating, updating, and finding contacts by their unique external ID,
+ * and listing all contacts page by page.
  * Uses basic authentication with an API token.
+ * <p>
+ * Responses are read with Jackson's streaming parser straight from the body bytes:
+ * lookups bind only the first contact and create/update stop at the {@code id} field.
+ * Request bodies are streamed the other way by a {@link ContactEncoder} and sent as bytes.
  */
 public final class FreshdeskClient {
+  /** Contacts per page of {@link #listContacts(int)}; the maximum Freshdesk allows. */
+  public static final int PAGE_SIZE = 100;
+
   private final SimpleHttp.Transport httpTransport;
-  private final String freshdeskSubdomain;
+  /** Base API URL (e.g., https://subdomain.freshdesk.com/api/v2), without a trailing slash. */
+  private final String baseUrl;
   private final String authorizationHeader;
   private final ObjectMapper objectMapper;
+  private final ObjectReader contactReader;
 
   /**
    * Constructs a new Freshdesk client.
@@ -32,21 +47,28 @@ public final class FreshdeskClient {
    */
   public FreshdeskClient(
           SimpleHttp.Transport httpTransport, String freshdeskSubdomain, String apiToken) {
-    this.httpTransport = httpTransport;
-    this.freshdeskSubdomain = freshdeskSubdomain;
-    String basic =
-            Base64.getEncoder().encodeToString((apiToken + ":X").getBytes(StandardCharsets.UTF_8));
-    this.authorizationHeader = "Basic " + basic;
-    this.objectMapper = new ObjectMapper();
+    this(httpTransport, freshdeskSubdomain, apiToken, null);
   }
 
   /**
-   * Builds the Freshdesk API base URL.
+   * Constructs a client for another API endpoint, such as a local stub serving the same paths.
    *
-   * @return base API URL (e.g., https://subdomain.freshdesk.com/api/v2)
+   * @param httpTransport        the HTTP transport to use (for real calls or test doubles)
+   * @param freshdeskSubdomain   the Freshdesk subdomain (e.g., "mycompany")
+   * @param apiToken             the Freshdesk API token
+   * @param baseUrl              base API URL (e.g., http://127.0.0.1:8080/api/v2), or {@code null}
+   *                             for the one of {@code freshdeskSubdomain}
    */
-  private String baseUrl() {
-    return "https://" + freshdeskSubdomain + ".freshdesk.com/api/v2";
+  public FreshdeskClient(SimpleHttp.Transport httpTransport, String freshdeskSubdomain, String apiToken,
+                         String baseUrl) {
+    this.httpTransport = httpTransport;
+    String url = baseUrl != null ? baseUrl : "https://" + freshdeskSubdomain + ".freshdesk.com/api/v2";
+    this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    String basic =
+            Base64.getEncoder().encodeToString((apiToken + ":X").getBytes(StandardCharsets.UTF_8));
+    this.authorizationHeader = "Basic " + basic;
+    this.objectMapper = Json.mapper();
+    this.contactReader = objectMapper.readerFor(FreshdeskContact.class);
   }
 
   /**
@@ -82,33 +104,152 @@ public final class FreshdeskClient {
    * @throws Exception if a network or JSON parsing error occurs
    */
   public FreshdeskContact findByExternalId(String uniqueExternalId) throws Exception {
-    String encodedExternalId = URLEncoder.encode(uniqueExternalId, StandardCharsets.UTF_8);
-    String contactsUrl = baseUrl() + "/contacts?unique_external_id=" + encodedExternalId;
+    SimpleHttp.Response listResponse =
+            httpTransport.call("GET", contactsLookupUrl(uniqueExternalId), authHeaders(), null);
+    FreshdeskContact listed = firstListedContact(listResponse);
+    if (listed != null) {
+      return listed;
+    }
+
+    // Fallback: Search API
+    SimpleHttp.Response searchResponse =
+            httpTransport.call("GET", searchUrl(uniqueExternalId), authHeaders(), null);
+    return firstSearchResult(searchResponse);
+  }
+
+  /**
+   * Asynchronous variant of {@link #findByExternalId(String)}.
+   *
+   * @param uniqueExternalId external ID to search by
+   * @return future of the matching contact, or of {@code null} if not found
+   */
+  public CompletableFuture<FreshdeskContact> findByExternalIdAsync(String uniqueExternalId) {
+    return httpTransport.callAsync("GET", contactsLookupUrl(uniqueExternalId), authHeaders(), null)
+            .thenApply(SimpleHttp.async(this::firstListedContact))
+            .thenCompose(listed -> listed != null
+                    ? CompletableFuture.completedFuture(listed)
+                    : httpTransport.callAsync("GET", searchUrl(uniqueExternalId), authHeaders(), null)
+                            .thenApply(SimpleHttp.async(this::firstSearchResult)));
+  }
 
-    SimpleHttp.Response listResponse = httpTransport.call("GET", contactsUrl, authHeaders(), null);
-    if (listResponse.getStatus() == 200) {
-      JsonNode arrayNode = objectMapper.readTree(listResponse.getBody());
-      if (arrayNode.isArray() && !arrayNode.isEmpty()) {
-        return objectMapper.treeToValue(arrayNode.get(0), FreshdeskContact.class);
+  /**
+   * Lists one page of all contacts, oldest first.
+   * <p>
+   * Contacts are bound one by one from the response stream. A page with fewer than
+   * {@link #PAGE_SIZE} contacts is the last one.
+   *
+   * @param page 1-based page number
+   * @return contacts of the page (empty past the last page)
+   * @throws Exception if the API call fails or JSON parsing fails
+   */
+  public List<FreshdeskContact> listContacts(int page) throws Exception {
+    SimpleHttp.Response response = httpTransport.call(
+            "GET", baseUrl + "/contacts?per_page=" + PAGE_SIZE + "&page=" + page, authHeaders(), null);
+    if (response.getStatus() >= 400) {
+      throw new RuntimeException(
+              "Freshdesk list error: " + response.getStatus() + " body=" + response.getBody());
+    }
+    List<FreshdeskContact> contacts = new ArrayList<>(PAGE_SIZE);
+    try (JsonParser parser = objectMapper.getFactory().createParser(response.bodyStream())) {
+      if (parser.nextToken() == JsonToken.START_ARRAY) {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          contacts.add(contactReader.readValue(parser));
+        }
       }
     }
+    return contacts;
+  }
 
-    // Fallback: Search API
+  private String contactsLookupUrl(String uniqueExternalId) {
+    String encodedExternalId = URLEncoder.encode(uniqueExternalId, StandardCharsets.UTF_8);
+    return baseUrl + "/contacts?unique_external_id=" + encodedExternalId;
+  }
+
+  private String searchUrl(String uniqueExternalId) {
     String searchQuery =
             URLEncoder.encode(
                     "\"unique_external_id:'" + uniqueExternalId + "'\"", StandardCharsets.UTF_8);
-    String searchUrl = baseUrl() + "/search/contacts?query=" + searchQuery;
-    SimpleHttp.Response searchResponse = httpTransport.call("GET", searchUrl, authHeaders(), null);
+    return baseUrl + "/search/contacts?query=" + searchQuery;
+  }
+
+  /**
+   * Extracts the first contact of a {@code /contacts} list response.
+   *
+   * @param listResponse response of the list call
+   * @return first contact, or {@code null} if the call failed or the list is empty
+   * @throws Exception if JSON parsing fails
+   */
+  private FreshdeskContact firstListedContact(SimpleHttp.Response listResponse) throws Exception {
+    if (listResponse.getStatus() != 200) {
+      return null;
+    }
+    try (JsonParser parser = objectMapper.getFactory().createParser(listResponse.bodyStream())) {
+      return parser.nextToken() == JsonToken.START_ARRAY ? firstElement(parser) : null;
+    }
+  }
+
+  /**
+   * Extracts the first contact of a Search API response.
+   *
+   * @param searchResponse response of the search call
+   * @return first result, or {@code null} if the call failed or nothing matched
+   * @throws Exception if JSON parsing fails
+   */
+  private FreshdeskContact firstSearchResult(SimpleHttp.Response searchResponse) throws Exception {
     if (searchResponse.getStatus() >= 400) {
       return null;
     }
 
-    JsonNode rootNode = objectMapper.readTree(searchResponse.getBody());
-    JsonNode resultsNode = rootNode.get("results");
-    if (resultsNode != null && resultsNode.isArray() && resultsNode.size() > 0) {
-      return objectMapper.treeToValue(resultsNode.get(0), FreshdeskContact.class);
+    try (JsonParser parser = objectMapper.getFactory().createParser(searchResponse.bodyStream())) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        JsonToken value = parser.nextToken();
+        if ("results".equals(parser.currentName()) && value == JsonToken.START_ARRAY) {
+          return firstElement(parser);
+        }
+        parser.skipChildren();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Binds the first element of the array the parser is positioned on; the rest is not read.
+   *
+   * @param parser parser positioned on {@link JsonToken#START_ARRAY}
+   * @return first contact, or {@code null} if the array is empty
+   * @throws Exception if JSON parsing fails
+   */
+  private FreshdeskContact firstElement(JsonParser parser) throws Exception {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      return null;
+    }
+    return contactReader.readValue(parser);
+  }
+
+  /**
+   * Reads the top-level {@code id} of a contact response, stopping as soon as it is found.
+   *
+   * @param response create/update response
+   * @return the contact ID as text
+   * @throws IllegalStateException if the response has no {@code id}
+   * @throws Exception if JSON parsing fails
+   */
+  private String readId(SimpleHttp.Response response) throws Exception {
+    try (JsonParser parser = objectMapper.getFactory().createParser(response.bodyStream())) {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          parser.nextToken();
+          if ("id".equals(parser.currentName())) {
+            return parser.getValueAsString();
+          }
+          parser.skipChildren();
+        }
+      }
     }
-    return null;
+    throw new IllegalStateException("Freshdesk response without id: " + response.getBody());
   }
 
   /**
@@ -119,33 +260,26 @@ public final class FreshdeskClient {
    * @throws Exception if the API call fails or JSON processing fails
    */
   public String create(FreshdeskContact contact) throws Exception {
-    ObjectNode payload =
-            objectMapper
-                    .createObjectNode()
-                    .put("unique_external_id", contact.getUniqueExternalId())
-                    .put("name", contact.getName());
-
-    if (contact.getEmail() != null) {
-      payload.put("email", contact.getEmail());
-    }
-    if (contact.getAddress() != null) {
-      payload.put("address", contact.getAddress());
-    }
-    if (contact.getTwitterId() != null) {
-      payload.put("twitter_id", contact.getTwitterId());
-    }
-
     SimpleHttp.Response response =
-            httpTransport.call(
-                    "POST",
-                    baseUrl() + "/contacts",
-                    jsonHeaders(),
-                    objectMapper.writeValueAsString(payload));
-    if (response.getStatus() >= 400) {
-      throw new RuntimeException(
-              "Freshdesk create error: " + response.getStatus() + " body=" + response.getBody());
+            httpTransport.callBytes("POST", baseUrl + "/contacts", jsonHeaders(), ContactEncoder.encode(contact));
+    return createdId(response);
+  }
+
+  /**
+   * Asynchronous variant of {@link #create(FreshdeskContact)}.
+   *
+   * @param contact contact details to create
+   * @return future of the ID of the newly created contact
+   */
+  public CompletableFuture<String> createAsync(FreshdeskContact contact) {
+    byte[] payload;
+    try {
+      payload = ContactEncoder.encode(contact);
+    } catch (Exception exception) {
+      return CompletableFuture.failedFuture(exception);
     }
-    return objectMapper.readTree(response.getBody()).get("id").asText();
+    return httpTransport.callBytesAsync("POST", baseUrl + "/contacts", jsonHeaders(), payload)
+            .thenApply(SimpleHttp.async(this::createdId));
   }
 
   /**
@@ -154,35 +288,50 @@ public final class FreshdeskClient {
    * @param contactId ID of the contact to update
    * @param contact   new contact data
    * @return ID of the updated contact
+   * @throws ContactNotFoundException if no contact with this ID exists (404)
    * @throws Exception if the API call fails or JSON processing fails
    */
   public String update(String contactId, FreshdeskContact contact) throws Exception {
-    ObjectNode payload =
-            objectMapper
-                    .createObjectNode()
-                    .put("unique_external_id", contact.getUniqueExternalId())
-                    .put("name", contact.getName());
-
-    if (contact.getEmail() != null) {
-      payload.put("email", contact.getEmail());
-    }
-    if (contact.getAddress() != null) {
-      payload.put("address", contact.getAddress());
+    SimpleHttp.Response response =
+            httpTransport.callBytes(
+                    "PUT", baseUrl + "/contacts/" + contactId, jsonHeaders(), ContactEncoder.encode(contact));
+    return updatedId(contactId, response);
+  }
+
+  /**
+   * Asynchronous variant of {@link #update(String, FreshdeskContact)}.
+   *
+   * @param contactId ID of the contact to update
+   * @param contact   new contact data
+   * @return future of the ID of the updated contact; fails with {@link ContactNotFoundException} on 404
+   */
+  public CompletableFuture<String> updateAsync(String contactId, FreshdeskContact contact) {
+    byte[] payload;
+    try {
+      payload = ContactEncoder.encode(contact);
+    } catch (Exception exception) {
+      return CompletableFuture.failedFuture(exception);
     }
-    if (contact.getTwitterId() != null) {
-      payload.put("twitter_id", contact.getTwitterId());
+    return httpTransport.callBytesAsync("PUT", baseUrl + "/contacts/" + contactId, jsonHeaders(), payload)
+            .thenApply(SimpleHttp.async(response -> updatedId(contactId, response)));
+  }
+
+  private String createdId(SimpleHttp.Response response) throws Exception {
+    if (response.getStatus() >= 400) {
+      throw new RuntimeException(
+              "Freshdesk create error: " + response.getStatus() + " body=" + response.getBody());
     }
+    return readId(response);
+  }
 
-    SimpleHttp.Response response =
-            httpTransport.call(
-                    "PUT",
-                    baseUrl() + "/contacts/" + contactId,
-                    jsonHeaders(),
-                    objectMapper.writeValueAsString(payload));
+  private String updatedId(String contactId, SimpleHttp.Response response) throws Exception {
+    if (response.getStatus() == 404) {
+      throw new ContactNotFoundException(contactId);
+    }
     if (response.getStatus() >= 400) {
       throw new RuntimeException(
               "Freshdesk update error: " + response.getStatus() + " body=" + response.getBody());
     }
-    return objectMapper.readTree(response.getBody()).get("id").asText();
+    return readId(response);
   }
 }
@@ -0,0 +1,24 @@
+package org.example.craft.github;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.craft.github.dto.GitHubUser;
+
+/**
+ * A {@link GitHubUser} together with the validators GitHub returned for it.
+ * <p>
+ * The validators are sent back as {@code If-None-Match} / {@code If-Modified-Since};
+ * on {@code 304 Not Modified} the cached user is returned as-is.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class CachedUser {
+  /** Value of the {@code ETag} response header, or {@code null}. */
+  private final String etag;
+
+  /** Value of the {@code Last-Modified} response header, or {@code null}. */
+  private final String lastModified;
+
+  /** The user parsed from the response that carried the validators. */
+  private final GitHubUser user;
+}
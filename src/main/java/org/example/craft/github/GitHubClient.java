@@ -1,32 +1,134 @@
 package org.example.craft.github;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.http.LinkHeader;
 import org.example.craft.http.SimpleHttp;
+import org.example.craft.mapper.Json;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Client for GitHub REST API v3.
  * <p>
  * Provides methods to fetch public information about GitHub users
- * using the /users/{username} endpoint.
+ * using the /users/{username} endpoint, and lists organization and team members.
+ *
+ * <p>Responses are cached together with their {@code ETag} / {@code Last-Modified}
+ * validators and re-requested conditionally. A {@code 304 Not Modified} answer is
+ * served from the cache without parsing and does not count against the rate limit.</p>
+ *
+ * <p>{@link #getUsers(Collection)} fetches many users per request through the GraphQL API.</p>
  */
 @Getter
-@RequiredArgsConstructor
 public final class GitHubClient {
+  /** Most users fetched by one GraphQL request. */
+  public static final int MAX_BATCH_SIZE = 100;
+
+  /** REST and GraphQL endpoint of github.com. */
+  public static final String DEFAULT_API_URL = "https://api.github.com";
+
+  /** Aliases map the GraphQL names onto the REST names that {@link GitHubUser} binds. */
+  private static final String USER_FIELDS =
+          "login name created_at: createdAt email location twitter_username: twitterUsername";
+
   private final SimpleHttp.Transport httpTransport;
+
+  /** Transport for GraphQL requests; GitHub meters them in a separate points budget. */
+  private final SimpleHttp.Transport graphqlTransport;
+
   private final String githubToken;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  /** Base URL of the API, without a trailing slash (e.g., {@value #DEFAULT_API_URL}). */
+  private final String apiUrl;
+
+  private final ObjectMapper objectMapper = Json.mapper();
+
+  /** Binds {@link GitHubUser} straight from the response bytes. */
+  @Getter(AccessLevel.NONE)
+  private final ObjectReader userReader = objectMapper.readerFor(GitHubUser.class);
+
+  /** Optional persistent store behind the in-memory cache, or {@code null}. */
+  private final UserCacheStore cacheStore;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<String, CachedUser> userCache = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a client with an in-memory conditional cache only.
+   *
+   * @param httpTransport the HTTP transport to use (for real calls or test doubles)
+   * @param githubToken   GitHub personal access token
+   */
+  public GitHubClient(SimpleHttp.Transport httpTransport, String githubToken) {
+    this(httpTransport, githubToken, null);
+  }
+
+  /**
+   * Creates a client whose conditional cache survives restarts.
+   *
+   * @param httpTransport the HTTP transport to use (for real calls or test doubles)
+   * @param githubToken   GitHub personal access token
+   * @param cacheStore    persistent store for cached users, or {@code null}
+   */
+  public GitHubClient(SimpleHttp.Transport httpTransport, String githubToken, UserCacheStore cacheStore) {
+    this(httpTransport, httpTransport, githubToken, cacheStore);
+  }
+
+  /**
+   * Creates a client that sends GraphQL requests through their own transport, so that a
+   * {@link RateLimitScheduler} there tracks the GraphQL budget apart from the REST budget.
+   *
+   * @param httpTransport    the HTTP transport for REST calls
+   * @param graphqlTransport the HTTP transport for GraphQL calls
+   * @param githubToken      GitHub personal access token
+   * @param cacheStore       persistent store for cached users, or {@code null}
+   */
+  public GitHubClient(SimpleHttp.Transport httpTransport, SimpleHttp.Transport graphqlTransport,
+                      String githubToken, UserCacheStore cacheStore) {
+    this(httpTransport, graphqlTransport, githubToken, cacheStore, DEFAULT_API_URL);
+  }
+
+  /**
+   * Creates a client for another API endpoint, such as a local stub serving the same paths.
+   *
+   * @param httpTransport    the HTTP transport for REST calls
+   * @param graphqlTransport the HTTP transport for GraphQL calls
+   * @param githubToken      GitHub personal access token
+   * @param cacheStore       persistent store for cached users, or {@code null}
+   * @param apiUrl           base URL of the API (e.g., {@code http://127.0.0.1:8080})
+   */
+  public GitHubClient(SimpleHttp.Transport httpTransport, SimpleHttp.Transport graphqlTransport,
+                      String githubToken, UserCacheStore cacheStore, String apiUrl) {
+    this.httpTransport = httpTransport;
+    this.graphqlTransport = graphqlTransport;
+    this.githubToken = githubToken;
+    this.cacheStore = cacheStore;
+    this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+  }
 
   /**
    * Retrieves information about a GitHub user by username.
    * <p>
    * Sends a GET request to {@code https://api.github.com/users/{username}} with
    * authorization and required headers. The response is deserialized into a {@link GitHubUser}.
+   * If the user was fetched before, the request is conditional and a {@code 304}
+   * returns the previously cached instance.
    *
    * @param username the GitHub login (e.g., "octocat")
    * @return the {@link GitHubUser} object containing user details
@@ -34,14 +136,210 @@ public final class GitHubClient {
    * @throws Exception if a network, I/O, or JSON parsing error occurs
    */
   public GitHubUser getUser(String username) throws Exception {
+    String cacheKey = username.toLowerCase(Locale.ROOT);
+    CachedUser cached = cachedUser(cacheKey);
+    SimpleHttp.Response response =
+            httpTransport.call("GET", userUrl(username), userHeaders(cached), null);
+    return handleUserResponse(username, cacheKey, cached, response);
+  }
+
+  /**
+   * Asynchronous variant of {@link #getUser(String)}.
+   * <p>
+   * The request goes through {@link SimpleHttp.Transport#callAsync}, so with an async transport
+   * many lookups can be in flight on a few threads. The persistent cache store, if any,
+   * is still consulted synchronously before the request is sent.
+   *
+   * @param username the GitHub login (e.g., "octocat")
+   * @return future of the {@link GitHubUser}; completes exceptionally like {@link #getUser(String)} throws
+   */
+  public CompletableFuture<GitHubUser> getUserAsync(String username) {
+    String cacheKey = username.toLowerCase(Locale.ROOT);
+    CachedUser cached;
+    try {
+      cached = cachedUser(cacheKey);
+    } catch (Exception exception) {
+      return CompletableFuture.failedFuture(exception);
+    }
+    return httpTransport.callAsync("GET", userUrl(username), userHeaders(cached), null)
+            .thenApply(SimpleHttp.async(response -> handleUserResponse(username, cacheKey, cached, response)));
+  }
+
+  /**
+   * Fetches many users through the GraphQL API, up to {@value #MAX_BATCH_SIZE} per request.
+   * <p>
+   * Each login becomes an aliased {@code user(login: $lN)} selection with exactly the fields
+   * {@link GitHubUser} needs; logins are passed as variables, never spliced into the query.
+   * These requests are not conditional, so they bypass the ETag cache.
+   *
+   * @param logins GitHub logins
+   * @return every requested login (in input order) mapped to its user, or to {@code null} if it does not exist
+   * @throws RuntimeException if GitHub rejects a request (4xx/5xx or GraphQL errors other than NOT_FOUND)
+   * @throws Exception if a network, I/O, or JSON parsing error occurs
+   */
+  public Map<String, GitHubUser> getUsers(Collection<String> logins) throws Exception {
+    Map<String, GitHubUser> users = new LinkedHashMap<>();
+    List<String> batch = new ArrayList<>(Math.min(logins.size(), MAX_BATCH_SIZE));
+    for (String login : logins) {
+      batch.add(login);
+      if (batch.size() == MAX_BATCH_SIZE) {
+        fetchBatch(batch, users);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      fetchBatch(batch, users);
+    }
+    return users;
+  }
+
+  private void fetchBatch(List<String> logins, Map<String, GitHubUser> users) throws Exception {
+    StringBuilder declarations = new StringBuilder();
+    StringBuilder selections = new StringBuilder();
+    ObjectNode variables = objectMapper.createObjectNode();
+    for (int index = 0; index < logins.size(); index++) {
+      declarations.append(index == 0 ? "" : ", ").append("$l").append(index).append(": String!");
+      selections.append(" u").append(index).append(": user(login: $l").append(index).append(") { ...F }");
+      variables.put("l" + index, logins.get(index));
+    }
+    ObjectNode request = objectMapper.createObjectNode();
+    request.put("query", "query(" + declarations + ") {" + selections + " } fragment F on User { "
+            + USER_FIELDS + " }");
+    request.set("variables", variables);
+
+    Map<String, String> headers = userHeaders(null);
+    headers.put("Content-Type", "application/json");
+    SimpleHttp.Response response =
+            graphqlTransport.call("POST", apiUrl + "/graphql", headers, objectMapper.writeValueAsString(request));
+    if (response.getStatus() >= 400) {
+      throw new RuntimeException(
+              "GitHub GraphQL error: " + response.getStatus() + " body=" + response.getBody());
+    }
+
+    Map<String, GitHubUser> byAlias = new HashMap<>();
+    List<String> errors = new ArrayList<>();
+    boolean hasData = false;
+    try (JsonParser parser = objectMapper.getFactory().createParser(response.bodyStream())) {
+      parser.nextToken();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+          hasData = true;
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String alias = parser.currentName();
+            byAlias.put(alias, parser.nextToken() == JsonToken.VALUE_NULL ? null : userReader.readValue(parser));
+          }
+        } else if ("errors".equals(field) && value == JsonToken.START_ARRAY) {
+          for (JsonNode error : (JsonNode) objectMapper.readTree(parser)) {
+            if (!"NOT_FOUND".equals(error.path("type").asText())) {
+              errors.add(error.path("message").asText());
+            }
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    if (!hasData || !errors.isEmpty()) {
+      throw new RuntimeException("GitHub GraphQL error: " + errors);
+    }
+    for (int index = 0; index < logins.size(); index++) {
+      users.put(logins.get(index), byAlias.get("u" + index));
+    }
+  }
+
+  /**
+   * Fetches one page of an organization or team member listing.
+   *
+   * @param pageUrl full URL of the page (e.g., {@code https://api.github.com/orgs/x/members?per_page=100})
+   * @return logins on the page plus the {@code next} / {@code last} links
+   * @throws RuntimeException if the org or team is not found (404) or another API error occurs (4xx/5xx)
+   * @throws Exception if a network, I/O, or JSON parsing error occurs
+   */
+  public MemberPage getMembersPage(String pageUrl) throws Exception {
+    return handleMembersResponse(pageUrl, httpTransport.call("GET", pageUrl, userHeaders(null), null));
+  }
+
+  /**
+   * Asynchronous variant of {@link #getMembersPage(String)}.
+   *
+   * @param pageUrl full URL of the page
+   * @return future of the page; completes exceptionally like {@link #getMembersPage(String)} throws
+   */
+  public CompletableFuture<MemberPage> getMembersPageAsync(String pageUrl) {
+    return httpTransport.callAsync("GET", pageUrl, userHeaders(null), null)
+            .thenApply(SimpleHttp.async(response -> handleMembersResponse(pageUrl, response)));
+  }
+
+  private MemberPage handleMembersResponse(String pageUrl, SimpleHttp.Response response) throws Exception {
+    if (response.getStatus() == 404) {
+      throw new RuntimeException("GitHub org or team not found: " + pageUrl);
+    }
+    if (response.getStatus() >= 400) {
+      throw new RuntimeException(
+              "GitHub error: " + response.getStatus() + " body=" + response.getBody());
+    }
+
+    List<String> logins = new ArrayList<>();
+    try (JsonParser parser = objectMapper.getFactory().createParser(response.bodyStream())) {
+      if (parser.nextToken() == JsonToken.START_ARRAY) {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            if ("login".equals(parser.currentName())) {
+              logins.add(parser.getText());
+            } else {
+              parser.skipChildren();
+            }
+          }
+        }
+      }
+    }
+    Map<String, String> links = LinkHeader.parse(response.header("Link"));
+    return new MemberPage(logins, links.get("next"), links.get("last"));
+  }
+
+  private String userUrl(String username) {
+    return apiUrl + "/users/" + username;
+  }
+
+  /**
+   * Builds the request headers, including validators of a cached entry.
+   *
+   * @param cached cached entry, or {@code null}
+   * @return headers for GitHub {@code GET} requests
+   */
+  private Map<String, String> userHeaders(CachedUser cached) {
     Map<String, String> headers = new HashMap<>();
     headers.put("Authorization", "Bearer " + githubToken); // "Bearer" or "token" both work
     headers.put("Accept", "application/vnd.github+json");
     headers.put("X-GitHub-Api-Version", "2022-11-28");
+    if (cached != null && cached.getEtag() != null) {
+      headers.put("If-None-Match", cached.getEtag());
+    }
+    if (cached != null && cached.getLastModified() != null) {
+      headers.put("If-Modified-Since", cached.getLastModified());
+    }
+    return headers;
+  }
 
-    SimpleHttp.Response response =
-            httpTransport.call("GET", "https://api.github.com/users/" + username, headers, null);
-
+  /**
+   * Turns a {@code /users/{username}} response into a user, serving {@code 304} from the cache.
+   *
+   * @param username login as requested
+   * @param cacheKey lower-cased login
+   * @param cached   cached entry the request was conditional on, or {@code null}
+   * @param response GitHub response
+   * @return the user
+   * @throws RuntimeException if the user is not found (404) or another API error occurs (4xx/5xx)
+   * @throws Exception if JSON parsing or the cache store fails
+   */
+  private GitHubUser handleUserResponse(
+          String username, String cacheKey, CachedUser cached, SimpleHttp.Response response) throws Exception {
+    if (response.getStatus() == 304 && cached != null) {
+      return cached.getUser();
+    }
     if (response.getStatus() == 404) {
       throw new RuntimeException("GitHub user not found: " + username);
     }
@@ -50,8 +348,43 @@ public final class GitHubClient {
               "GitHub error: " + response.getStatus() + " body=" + response.getBody());
     }
 
-    GitHubUser u = objectMapper.readValue(response.getBody(), GitHubUser.class);
-    System.out.println("[DBG] GitHub user: login=" + u.getLogin() + ", createdAt=" + u.getCreatedAt());
+    GitHubUser u = userReader.readValue(response.bodyStream());
+    remember(cacheKey, new CachedUser(response.header("ETag"), response.header("Last-Modified"), u));
     return u;
   }
+
+  /**
+   * Looks up the cached entry of a login, falling back to the persistent store once.
+   *
+   * @param cacheKey lower-cased login
+   * @return cached entry, or {@code null} if the user was never fetched
+   * @throws Exception if the persistent store cannot be read
+   */
+  private CachedUser cachedUser(String cacheKey) throws Exception {
+    CachedUser cached = userCache.get(cacheKey);
+    if (cached == null && cacheStore != null) {
+      cached = cacheStore.load(cacheKey);
+      if (cached != null) {
+        userCache.putIfAbsent(cacheKey, cached);
+      }
+    }
+    return cached;
+  }
+
+  /**
+   * Caches a freshly fetched user if GitHub returned at least one validator.
+   *
+   * @param cacheKey lower-cased login
+   * @param cached   entry to cache
+   * @throws Exception if the persistent store cannot be written
+   */
+  private void remember(String cacheKey, CachedUser cached) throws Exception {
+    if (cached.getEtag() == null && cached.getLastModified() == null) {
+      return;
+    }
+    userCache.put(cacheKey, cached);
+    if (cacheStore != null) {
+      cacheStore.save(cacheKey, cached);
+    }
+  }
 }
@@ -0,0 +1,21 @@
+package org.example.craft.github;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One page of an organization or team member listing.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class MemberPage {
+  /** Logins on this page, in API order. */
+  private final List<String> logins;
+
+  /** URL of the next page ({@code rel="next"}), or {@code null} on the last page. */
+  private final String nextUrl;
+
+  /** URL of the last page ({@code rel="last"}), or {@code null} if GitHub did not send one. */
+  private final String lastUrl;
+}
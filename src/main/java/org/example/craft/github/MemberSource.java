@@ -0,0 +1,154 @@
+package org.example.craft.github;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams the logins of an organization or team, page by page, into the sync pipeline.
+ * <p>
+ * Pages are requested with {@link GitHubClient#getMembersPageAsync(String)}. Once the first page
+ * has arrived, the iterator knows the page count from {@code Link: rel="last"} and keeps up to
+ * {@code prefetch} upcoming pages in flight while earlier logins are already being synced.
+ * Without a {@code rel="last"} link (cursor pagination) it follows {@code rel="next"} and fetches
+ * one page ahead. Logins come out in API order.
+ * <p>
+ * The iterator is meant for a single consumer thread (e.g., {@code BulkSync}). If a page fails,
+ * {@link #hasNext()} rethrows the error as an unchecked exception.
+ */
+public final class MemberSource implements Iterator<String> {
+
+  /** Default number of pages fetched ahead of the consumer. */
+  public static final int DEFAULT_PREFETCH = 4;
+
+  private static final int PER_PAGE = 100;
+  private static final Pattern PAGE_PARAMETER = Pattern.compile("([?&])page=(\\d+)");
+
+  private final GitHubClient githubClient;
+  private final int prefetch;
+  private final ArrayDeque<CompletableFuture<MemberPage>> pending = new ArrayDeque<>();
+
+  private Iterator<String> current = Collections.emptyIterator();
+  private boolean firstPage = true;
+
+  /** URL of the last page, used as the template for numbered prefetch; {@code null} in cursor mode. */
+  private String lastUrl;
+  private int nextPageNumber;
+  private int lastPageNumber;
+
+  /**
+   * Starts enumerating a member listing; the first page is requested immediately.
+   *
+   * @param githubClient GitHub API client
+   * @param firstUrl     URL of the first page
+   * @param prefetch     maximum number of pages in flight
+   */
+  public MemberSource(GitHubClient githubClient, String firstUrl, int prefetch) {
+    this.githubClient = githubClient;
+    this.prefetch = Math.max(1, prefetch);
+    pending.add(githubClient.getMembersPageAsync(firstUrl));
+  }
+
+  /**
+   * Enumerates the members of an organization.
+   *
+   * @param githubClient GitHub API client
+   * @param org          organization login
+   * @param prefetch     maximum number of pages in flight
+   * @return lazy iterator over member logins
+   */
+  public static MemberSource forOrg(GitHubClient githubClient, String org, int prefetch) {
+    return new MemberSource(githubClient,
+            githubClient.getApiUrl() + "/orgs/" + org + "/members?per_page=" + PER_PAGE, prefetch);
+  }
+
+  /**
+   * Enumerates the members of a team.
+   *
+   * @param githubClient GitHub API client
+   * @param org          organization login
+   * @param teamSlug     team slug (e.g., "justice-league")
+   * @param prefetch     maximum number of pages in flight
+   * @return lazy iterator over member logins
+   */
+  public static MemberSource forTeam(GitHubClient githubClient, String org, String teamSlug, int prefetch) {
+    return new MemberSource(githubClient,
+            githubClient.getApiUrl() + "/orgs/" + org + "/teams/" + teamSlug + "/members?per_page=" + PER_PAGE,
+            prefetch);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext()) {
+      if (pending.isEmpty()) {
+        return false;
+      }
+      MemberPage page = await(pending.poll());
+      if (firstPage) {
+        firstPage = false;
+        planPrefetch(page);
+      }
+      schedule(page);
+      current = page.getLogins().iterator();
+    }
+    return true;
+  }
+
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  /** Switches to numbered prefetch if the first page announced the last page number. */
+  private void planPrefetch(MemberPage first) {
+    int last = pageNumber(first.getLastUrl());
+    if (last > 1) {
+      lastUrl = first.getLastUrl();
+      lastPageNumber = last;
+      nextPageNumber = 2;
+    }
+  }
+
+  /** Tops up the in-flight pages after a page has been taken. */
+  private void schedule(MemberPage page) {
+    if (lastUrl != null) {
+      while (pending.size() < prefetch && nextPageNumber <= lastPageNumber) {
+        pending.add(githubClient.getMembersPageAsync(withPage(lastUrl, nextPageNumber++)));
+      }
+    } else if (page.getNextUrl() != null && pending.isEmpty()) {
+      pending.add(githubClient.getMembersPageAsync(page.getNextUrl()));
+    }
+  }
+
+  private static MemberPage await(CompletableFuture<MemberPage> page) {
+    try {
+      return page.join();
+    } catch (CompletionException exception) {
+      Throwable cause = exception.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("Fetching member page failed", cause);
+    }
+  }
+
+  private static int pageNumber(String url) {
+    if (url == null) {
+      return -1;
+    }
+    Matcher matcher = PAGE_PARAMETER.matcher(url);
+    return matcher.find() ? Integer.parseInt(matcher.group(2)) : -1;
+  }
+
+  private static String withPage(String url, int page) {
+    return PAGE_PARAMETER.matcher(url).replaceFirst("$1page=" + page);
+  }
+}
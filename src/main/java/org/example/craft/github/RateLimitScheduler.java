@@ -0,0 +1,276 @@
+package org.example.craft.github;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.example.craft.http.SimpleHttp;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Rate-limit-aware {@link SimpleHttp.Transport} decorator for the GitHub API.
+ * <p>
+ * One instance is meant to be shared by every caller that talks to GitHub with the same token:
+ * <ul>
+ *   <li>The remaining budget and the reset time are tracked from the
+ *       {@code X-RateLimit-Remaining} / {@code X-RateLimit-Reset} headers of every response.</li>
+ *   <li>While most of the budget is left calls go out unpaced. Once the remaining budget drops
+ *       below a low-water mark, calls are spaced evenly so the rest lasts until the reset instant,
+ *       which keeps a bulk run going at the full hourly rate without exhausting it early.</li>
+ *   <li>Primary ({@code X-RateLimit-Remaining: 0}) and secondary ({@code Retry-After},
+ *       403/429 "rate limit") rejections park the caller until the limit lifts
+ *       and the request is retried instead of failing.</li>
+ * </ul>
+ * After {@code maxAttempts} rejected attempts the last response is returned unchanged,
+ * so the client reports it as a regular API error.
+ */
+public final class RateLimitScheduler implements SimpleHttp.Transport {
+
+  /** Default number of attempts for a rate-limited request. */
+  public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+  /** Pacing starts below this many remaining calls, or below a tenth of the window, whichever is more. */
+  private static final long MIN_LOW_WATER_MARK = 50;
+
+  /** GitHub asks to wait at least one minute after a secondary limit without {@code Retry-After}. */
+  private static final long SECONDARY_LIMIT_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final Counter THROTTLED =
+          MetricsRegistry.global().counter("http_throttled_total", "client", "github");
+  private static final Counter RETRIES =
+          MetricsRegistry.global().counter("http_retries_total", "client", "github");
+
+  /** Blocks the calling thread while it is parked; replaceable for tests. */
+  @FunctionalInterface
+  public interface Sleeper {
+    /**
+     * Parks the calling thread.
+     *
+     * @param millis time to wait in milliseconds
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void sleep(long millis) throws InterruptedException;
+  }
+
+  private final SimpleHttp.Transport delegate;
+  private final int maxAttempts;
+  private final LongSupplier clockMillis;
+  private final Sleeper sleeper;
+
+  private final Object lock = new Object();
+
+  /** Last reported remaining budget, or -1 while unknown. Guarded by {@link #lock}. */
+  private long remaining = -1;
+
+  /** Last reported size of the window ({@code X-RateLimit-Limit}), or -1 while unknown. Guarded by {@link #lock}. */
+  private long windowLimit = -1;
+
+  /** Epoch millis at which the current window resets. Guarded by {@link #lock}. */
+  private long resetAtMillis;
+
+  /** Earliest epoch millis at which the next call may start. Guarded by {@link #lock}. */
+  private long nextSlotMillis;
+
+  /** No call may start before this epoch millis (limit hit). Guarded by {@link #lock}. */
+  private long blockedUntilMillis;
+
+  /**
+   * Creates a scheduler with {@link #DEFAULT_MAX_ATTEMPTS} attempts per request.
+   *
+   * @param delegate transport that performs the actual HTTP calls
+   */
+  public RateLimitScheduler(SimpleHttp.Transport delegate) {
+    this(delegate, DEFAULT_MAX_ATTEMPTS, System::currentTimeMillis, Thread::sleep);
+  }
+
+  /**
+   * Creates a scheduler with an explicit clock and sleeper.
+   *
+   * @param delegate    transport that performs the actual HTTP calls
+   * @param maxAttempts attempts per request before a rate-limit rejection is returned
+   * @param clockMillis source of the current epoch time in milliseconds
+   * @param sleeper     parks callers that have to wait
+   */
+  public RateLimitScheduler(
+          SimpleHttp.Transport delegate, int maxAttempts, LongSupplier clockMillis, Sleeper sleeper) {
+    this.delegate = delegate;
+    this.maxAttempts = maxAttempts;
+    this.clockMillis = clockMillis;
+    this.sleeper = sleeper;
+  }
+
+  /**
+   * Waits for a free slot, performs the call and retries it while GitHub rejects it
+   * because of a rate limit.
+   *
+   * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+   * @param url     full target URL
+   * @param headers request headers (may be empty), case-sensitive keys
+   * @param body    request body or {@code null} for requests without a body
+   * @return the first response that is not a rate-limit rejection, or the last rejection
+   * @throws Exception if the delegate fails or the thread is interrupted while parked
+   */
+  @Override
+  public SimpleHttp.Response call(String method, String url, Map<String, String> headers, String body)
+          throws Exception {
+    return scheduled(() -> delegate.call(method, url, headers, body));
+  }
+
+  @Override
+  public SimpleHttp.Response callBytes(String method, String url, Map<String, String> headers, byte[] body)
+          throws Exception {
+    return scheduled(() -> delegate.callBytes(method, url, headers, body));
+  }
+
+  private SimpleHttp.Response scheduled(SimpleHttp.Send send) throws Exception {
+    SimpleHttp.Response response = null;
+    for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+      if (attempt > 1) {
+        RETRIES.increment();
+      }
+      long delay = reserveSlot();
+      if (delay > 0) {
+        sleeper.sleep(delay);
+      }
+      response = send.send();
+      observe(response);
+      if (!parkIfLimited(response)) {
+        return response;
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Asynchronous variant of {@link #call}: waiting for a slot or for a limit to lift
+   * schedules the attempt on {@link CompletableFuture#delayedExecutor} instead of
+   * blocking a thread, so the {@link Sleeper} is not used.
+   *
+   * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+   * @param url     full target URL
+   * @param headers request headers (may be empty), case-sensitive keys
+   * @param body    request body or {@code null} for requests without a body
+   * @return future of the first response that is not a rate-limit rejection, or of the last rejection
+   */
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callAsync(
+          String method, String url, Map<String, String> headers, String body) {
+    return attemptAsync(() -> delegate.callAsync(method, url, headers, body), 1);
+  }
+
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callBytesAsync(
+          String method, String url, Map<String, String> headers, byte[] body) {
+    return attemptAsync(() -> delegate.callBytesAsync(method, url, headers, body), 1);
+  }
+
+  private CompletableFuture<SimpleHttp.Response> attemptAsync(
+          Supplier<CompletableFuture<SimpleHttp.Response>> send, int attempt) {
+    if (attempt > 1) {
+      RETRIES.increment();
+    }
+    long delay = reserveSlot();
+    CompletableFuture<SimpleHttp.Response> sent = delay > 0
+            ? CompletableFuture.supplyAsync(() -> null,
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> send.get())
+            : send.get();
+    return sent.thenCompose(response -> {
+      observe(response);
+      if (parkIfLimited(response) && attempt < maxAttempts) {
+        return attemptAsync(send, attempt + 1);
+      }
+      return CompletableFuture.completedFuture(response);
+    });
+  }
+
+  /**
+   * Reserves the next call slot.
+   *
+   * @return milliseconds the caller has to wait before sending
+   */
+  private long reserveSlot() {
+    synchronized (lock) {
+      long now = clockMillis.getAsLong();
+      long start = Math.max(now, Math.max(nextSlotMillis, blockedUntilMillis));
+      long spacing = 0;
+      if (remaining >= 0 && remaining < lowWaterMark() && resetAtMillis > start) {
+        if (remaining == 0) {
+          start = resetAtMillis;
+        } else {
+          spacing = (resetAtMillis - start) / remaining;
+        }
+      }
+      nextSlotMillis = start + spacing;
+      return start - now;
+    }
+  }
+
+  /** Must be called with {@link #lock} held. */
+  private long lowWaterMark() {
+    return Math.max(MIN_LOW_WATER_MARK, windowLimit / 10);
+  }
+
+  /**
+   * Updates the budget from the rate-limit headers of a response.
+   *
+   * @param response response received from GitHub
+   */
+  private void observe(SimpleHttp.Response response) {
+    long reportedRemaining = parseLong(response.header("X-RateLimit-Remaining"));
+    long reportedReset = parseLong(response.header("X-RateLimit-Reset"));
+    if (reportedRemaining < 0 || reportedReset < 0) {
+      return;
+    }
+    long reportedLimit = parseLong(response.header("X-RateLimit-Limit"));
+    synchronized (lock) {
+      remaining = reportedRemaining;
+      windowLimit = reportedLimit;
+      resetAtMillis = TimeUnit.SECONDS.toMillis(reportedReset);
+    }
+  }
+
+  /**
+   * Detects rate-limit rejections and blocks new calls until the limit lifts.
+   *
+   * @param response response received from GitHub
+   * @return {@code true} if the request was rejected because of a rate limit
+   */
+  private boolean parkIfLimited(SimpleHttp.Response response) {
+    int status = response.getStatus();
+    if (status != 403 && status != 429) {
+      return false;
+    }
+    long now = clockMillis.getAsLong();
+    long blockedUntil;
+    long retryAfterSeconds = parseLong(response.header("Retry-After"));
+    if (retryAfterSeconds >= 0) {
+      blockedUntil = now + TimeUnit.SECONDS.toMillis(retryAfterSeconds);
+    } else if ("0".equals(response.header("X-RateLimit-Remaining"))
+            && parseLong(response.header("X-RateLimit-Reset")) >= 0) {
+      blockedUntil = TimeUnit.SECONDS.toMillis(parseLong(response.header("X-RateLimit-Reset")));
+    } else if (status == 429 || (response.getBody() != null && response.getBody().contains("rate limit"))) {
+      blockedUntil = now + SECONDARY_LIMIT_BACKOFF_MILLIS;
+    } else {
+      return false; // a plain 403 (bad token, missing scope, ...)
+    }
+    synchronized (lock) {
+      blockedUntilMillis = Math.max(blockedUntilMillis, blockedUntil);
+    }
+    THROTTLED.increment();
+    return true;
+  }
+
+  private static long parseLong(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException ignored) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package org.example.craft.github;
+
+/**
+ * Persistent backing store for {@link CachedUser} entries, so conditional requests
+ * keep working across process restarts.
+ */
+public interface UserCacheStore {
+
+  /**
+   * Loads the cached entry of a login.
+   *
+   * @param login GitHub login (lower case)
+   * @return the stored entry, or {@code null} if none exists
+   * @throws Exception if the store cannot be read
+   */
+  CachedUser load(String login) throws Exception;
+
+  /**
+   * Stores (or replaces) the cached entry of a login.
+   *
+   * @param login  GitHub login (lower case)
+   * @param cached entry to store
+   * @throws Exception if the store cannot be written
+   */
+  void save(String login, CachedUser cached) throws Exception;
+}
@@ -0,0 +1,188 @@
+package org.example.craft.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * {@link SimpleHttp.Transport} decorator with one circuit breaker per host.
+ * <ul>
+ *   <li><b>Closed</b>: calls pass; {@code failureThreshold} consecutive failures open the circuit.</li>
+ *   <li><b>Open</b>: calls fail immediately with {@link CircuitOpenException} for {@code openMillis},
+ *       instead of tying up a worker until a timeout.</li>
+ *   <li><b>Half-open</b>: one trial call is let through; success closes the circuit,
+ *       failure opens it again.</li>
+ * </ul>
+ * Failures are I/O errors and {@code 5xx} responses. {@code 4xx} (including 429) means the host
+ * is up and answering, so it counts as success. A trial that ends with any other exception
+ * (e.g. the caller was interrupted) says nothing about the host, so the next call becomes the trial.
+ * Hosts are independent, so a degraded Freshdesk does not stop GitHub calls.
+ */
+public final class CircuitBreakerTransport implements SimpleHttp.Transport {
+
+  /** Default number of consecutive failures that open a circuit. */
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+  /** Default time a circuit stays open before a trial call. */
+  public static final long DEFAULT_OPEN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private final SimpleHttp.Transport delegate;
+  private final int failureThreshold;
+  private final long openMillis;
+  private final LongSupplier clockMillis;
+  private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a circuit breaker transport with default settings.
+   *
+   * @param delegate transport that performs the actual HTTP calls
+   */
+  public CircuitBreakerTransport(SimpleHttp.Transport delegate) {
+    this(delegate, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS, System::currentTimeMillis);
+  }
+
+  /**
+   * Creates a circuit breaker transport.
+   *
+   * @param delegate         transport that performs the actual HTTP calls
+   * @param failureThreshold consecutive failures that open a circuit
+   * @param openMillis       time a circuit stays open before a trial call
+   * @param clockMillis      source of the current time in milliseconds
+   */
+  public CircuitBreakerTransport(
+          SimpleHttp.Transport delegate, int failureThreshold, long openMillis, LongSupplier clockMillis) {
+    this.delegate = delegate;
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+    this.clockMillis = clockMillis;
+  }
+
+  /**
+   * Performs the call unless the circuit of the target host is open.
+   *
+   * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+   * @param url     full target URL
+   * @param headers request headers (may be empty), case-sensitive keys
+   * @param body    request body or {@code null} for requests without a body
+   * @return the delegate's response
+   * @throws CircuitOpenException if the host's circuit is open
+   * @throws Exception if the delegate fails
+   */
+  @Override
+  public SimpleHttp.Response call(String method, String url, Map<String, String> headers, String body)
+          throws Exception {
+    return guarded(url, () -> delegate.call(method, url, headers, body));
+  }
+
+  @Override
+  public SimpleHttp.Response callBytes(String method, String url, Map<String, String> headers, byte[] body)
+          throws Exception {
+    return guarded(url, () -> delegate.callBytes(method, url, headers, body));
+  }
+
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callAsync(
+          String method, String url, Map<String, String> headers, String body) {
+    return guardedAsync(url, () -> delegate.callAsync(method, url, headers, body));
+  }
+
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callBytesAsync(
+          String method, String url, Map<String, String> headers, byte[] body) {
+    return guardedAsync(url, () -> delegate.callBytesAsync(method, url, headers, body));
+  }
+
+  private SimpleHttp.Response guarded(String url, SimpleHttp.Send send) throws Exception {
+    Breaker breaker = breakerFor(url);
+    breaker.acquire();
+    SimpleHttp.Response response;
+    try {
+      response = send.send();
+    } catch (IOException | RuntimeException failure) {
+      breaker.onResult(false);
+      throw failure;
+    } catch (Exception other) {
+      breaker.onAbandoned();
+      throw other;
+    }
+    breaker.onResult(response.getStatus() < 500);
+    return response;
+  }
+
+  private CompletableFuture<SimpleHttp.Response> guardedAsync(
+          String url, Supplier<CompletableFuture<SimpleHttp.Response>> send) {
+    Breaker breaker = breakerFor(url);
+    try {
+      breaker.acquire();
+    } catch (CircuitOpenException open) {
+      return CompletableFuture.failedFuture(open);
+    }
+    CompletableFuture<SimpleHttp.Response> sent;
+    try {
+      sent = send.get();
+    } catch (RuntimeException failure) {
+      breaker.onResult(false);
+      return CompletableFuture.failedFuture(failure);
+    }
+    return sent.whenComplete((response, error) -> breaker.onResult(error == null && response.getStatus() < 500));
+  }
+
+  private Breaker breakerFor(String url) {
+    String host = URI.create(url).getHost();
+    return breakers.computeIfAbsent(host != null ? host : "", Breaker::new);
+  }
+
+  private enum State { CLOSED, OPEN, HALF_OPEN }
+
+  /** State of one host; all transitions happen under the instance monitor. */
+  private final class Breaker {
+    private final String host;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+
+    private Breaker(String host) {
+      this.host = host;
+    }
+
+    private synchronized void acquire() {
+      if (state == State.CLOSED) {
+        return;
+      }
+      long retryIn = openedAtMillis + openMillis - clockMillis.getAsLong();
+      if (state == State.OPEN && retryIn <= 0) {
+        state = State.HALF_OPEN; // this caller is the trial
+        return;
+      }
+      MetricsRegistry.global().counter("http_circuit_rejected_total", "host", host).increment();
+      throw new CircuitOpenException(host, Math.max(0, retryIn));
+    }
+
+    private synchronized void onResult(boolean success) {
+      if (success) {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+      } else if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+        if (state != State.OPEN) {
+          MetricsRegistry.global().counter("http_circuit_opened_total", "host", host).increment();
+        }
+        state = State.OPEN;
+        openedAtMillis = clockMillis.getAsLong();
+      }
+    }
+
+    /** A call ended without a verdict on the host; a pending trial is handed to the next caller. */
+    private synchronized void onAbandoned() {
+      if (state == State.HALF_OPEN) {
+        state = State.OPEN;
+        openedAtMillis = clockMillis.getAsLong() - openMillis;
+      }
+    }
+  }
+}
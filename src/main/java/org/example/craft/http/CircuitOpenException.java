@@ -0,0 +1,19 @@
+package org.example.craft.http;
+
+/**
+ * Thrown by {@link CircuitBreakerTransport} when calls to a host are rejected
+ * because the host kept failing and has not recovered yet.
+ */
+public final class CircuitOpenException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates the exception.
+   *
+   * @param host          host whose circuit is open
+   * @param retryInMillis time until a trial call is allowed again
+   */
+  public CircuitOpenException(String host, long retryInMillis) {
+    super("Circuit open for " + host + ", retry in " + retryInMillis + " ms");
+  }
+}
@@ -0,0 +1,286 @@
+package org.example.craft.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * HTTP content coding for {@link SimpleHttp.DefaultTransport}: {@code gzip} and {@code deflate}.
+ * <p>
+ * Responses are inflated while they arrive: {@link #decoding} returns a {@link HttpResponse.BodySubscriber}
+ * that feeds every received chunk straight into an {@link Inflater}, so the compressed body is never
+ * buffered as a whole and no thread blocks on a stream, which keeps {@code sendAsync} non-blocking.
+ * {@code deflate} is accepted both zlib-wrapped (as RFC 9110 specifies) and raw, as some servers send it.
+ */
+public final class Compression {
+  /** Value of {@code Accept-Encoding} sent with every request. */
+  public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  private static final int GZIP_MAGIC_1 = 0x1f;
+  private static final int GZIP_MAGIC_2 = 0x8b;
+  private static final int GZIP_FHCRC = 2;
+  private static final int GZIP_FEXTRA = 4;
+  private static final int GZIP_FNAME = 8;
+  private static final int GZIP_FCOMMENT = 16;
+
+  private Compression() {}
+
+  /**
+   * Picks the body subscriber for a response's {@code Content-Encoding}.
+   *
+   * @param contentEncoding header value, or {@code null} for an uncompressed body
+   * @return subscriber producing the decoded body bytes
+   */
+  public static HttpResponse.BodySubscriber<byte[]> decoding(String contentEncoding) {
+    switch (coding(contentEncoding)) {
+      case "gzip":
+      case "x-gzip":
+        return new InflatingSubscriber(true);
+      case "deflate":
+        return new InflatingSubscriber(false);
+      default:
+        return HttpResponse.BodySubscribers.ofByteArray();
+    }
+  }
+
+  /**
+   * Whether {@link #decoding(String)} inflates bodies with this {@code Content-Encoding}.
+   *
+   * @param contentEncoding header value, or {@code null}
+   * @return {@code true} for gzip and deflate
+   */
+  public static boolean decodes(String contentEncoding) {
+    String coding = coding(contentEncoding);
+    return "gzip".equals(coding) || "x-gzip".equals(coding) || "deflate".equals(coding);
+  }
+
+  private static String coding(String contentEncoding) {
+    return contentEncoding != null ? contentEncoding.trim().toLowerCase(Locale.ROOT) : "";
+  }
+
+  /**
+   * Compresses a request body with gzip.
+   *
+   * @param body uncompressed body
+   * @return gzip-compressed body
+   */
+  public static byte[] gzip(byte[] body) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(body);
+    } catch (IOException impossible) {
+      throw new IllegalStateException(impossible); // in-memory streams do not fail
+    }
+    return compressed.toByteArray();
+  }
+
+  /**
+   * Inflates a gzip or deflate body chunk by chunk. The first bytes are held back until the gzip
+   * header (or the zlib/raw decision for deflate) is known; after that every chunk is inflated
+   * as soon as it arrives. gzip bodies are checked against their CRC-32 and length trailer.
+   */
+  private static final class InflatingSubscriber implements HttpResponse.BodySubscriber<byte[]> {
+    private final boolean gzip;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    private final byte[] chunk = new byte[8192];
+    private final CRC32 crc = new CRC32();
+
+    /** Leading bytes received before the inflater could be created. */
+    private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+
+    /** gzip trailer bytes received after the end of the deflate stream. */
+    private final ByteArrayOutputStream trailer = new ByteArrayOutputStream();
+
+    private Inflater inflater;
+    private Flow.Subscription subscription;
+
+    private InflatingSubscriber(boolean gzip) {
+      this.gzip = gzip;
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+      return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+      if (body.isDone()) {
+        return;
+      }
+      try {
+        for (ByteBuffer buffer : buffers) {
+          accept(buffer);
+        }
+      } catch (IOException | DataFormatException exception) {
+        subscription.cancel();
+        fail(exception);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      if (body.isDone()) {
+        return;
+      }
+      try {
+        body.complete(finish());
+      } catch (IOException exception) {
+        fail(exception);
+      }
+    }
+
+    private void accept(ByteBuffer buffer) throws IOException, DataFormatException {
+      if (inflater != null) {
+        inflate(buffer);
+        return;
+      }
+      while (buffer.hasRemaining()) {
+        head.write(buffer.get());
+      }
+      byte[] leading = head.toByteArray();
+      int skip = gzip ? gzipHeaderLength(leading) : deflateStart(leading);
+      if (skip >= 0) {
+        inflate(ByteBuffer.wrap(leading, skip, leading.length - skip));
+      }
+    }
+
+    /** Creates a raw inflater once the gzip header is complete; -1 while more bytes are needed. */
+    private int gzipHeaderLength(byte[] b) throws IOException {
+      if (b.length < 10) {
+        return -1;
+      }
+      if ((b[0] & 0xff) != GZIP_MAGIC_1 || (b[1] & 0xff) != GZIP_MAGIC_2 || b[2] != 8) {
+        throw new ZipException("Not in GZIP format");
+      }
+      int flags = b[3] & 0xff;
+      int position = 10;
+      if ((flags & GZIP_FEXTRA) != 0) {
+        if (b.length < position + 2) {
+          return -1;
+        }
+        position += 2 + ((b[position] & 0xff) | (b[position + 1] & 0xff) << 8);
+      }
+      if ((flags & GZIP_FNAME) != 0) {
+        position = skipZeroTerminated(b, position);
+      }
+      if ((flags & GZIP_FCOMMENT) != 0) {
+        position = skipZeroTerminated(b, position);
+      }
+      if ((flags & GZIP_FHCRC) != 0 && position >= 0) {
+        position += 2;
+      }
+      if (position < 0 || b.length < position) {
+        return -1;
+      }
+      inflater = new Inflater(true);
+      return position;
+    }
+
+    private static int skipZeroTerminated(byte[] b, int position) {
+      for (int index = position; index >= 0 && index < b.length; index++) {
+        if (b[index] == 0) {
+          return index + 1;
+        }
+      }
+      return -1;
+    }
+
+    /** Tells zlib-wrapped from raw deflate by the two-byte zlib header; -1 while fewer bytes arrived. */
+    private int deflateStart(byte[] b) {
+      if (b.length < 2) {
+        return -1;
+      }
+      int header = (b[0] & 0xff) << 8 | (b[1] & 0xff);
+      boolean zlib = (b[0] & 0x0f) == 8 && header % 31 == 0;
+      inflater = new Inflater(!zlib);
+      return 0;
+    }
+
+    private void inflate(ByteBuffer input) throws DataFormatException {
+      if (inflater.finished()) {
+        keepTrailer(input);
+        return;
+      }
+      inflater.setInput(input);
+      while (!inflater.finished()) {
+        int produced = inflater.inflate(chunk);
+        if (produced > 0) {
+          decoded.write(chunk, 0, produced);
+          crc.update(chunk, 0, produced);
+        } else if (inflater.needsDictionary()) {
+          throw new DataFormatException("Preset dictionaries are not supported");
+        } else {
+          return; // needs input
+        }
+      }
+      keepTrailer(input);
+    }
+
+    private void keepTrailer(ByteBuffer input) {
+      while (gzip && input.hasRemaining() && trailer.size() < 8) {
+        trailer.write(input.get());
+      }
+      input.position(input.limit());
+    }
+
+    private byte[] finish() throws IOException {
+      if (inflater == null) {
+        if (head.size() == 0) {
+          return new byte[0]; // e.g. 304 or HEAD: no body despite the header
+        }
+        throw new EOFException("Truncated " + (gzip ? "gzip" : "deflate") + " body");
+      }
+      try {
+        if (!inflater.finished()) {
+          throw new EOFException("Truncated " + (gzip ? "gzip" : "deflate") + " body");
+        }
+        if (gzip) {
+          byte[] t = trailer.toByteArray();
+          if (t.length < 8) {
+            throw new EOFException("Truncated gzip trailer");
+          }
+          long expectedCrc = (t[0] & 0xffL) | (t[1] & 0xffL) << 8 | (t[2] & 0xffL) << 16 | (t[3] & 0xffL) << 24;
+          long expectedSize = (t[4] & 0xffL) | (t[5] & 0xffL) << 8 | (t[6] & 0xffL) << 16 | (t[7] & 0xffL) << 24;
+          if (expectedCrc != crc.getValue() || expectedSize != (decoded.size() & 0xffffffffL)) {
+            throw new ZipException("Corrupt gzip trailer");
+          }
+        }
+        return decoded.toByteArray();
+      } finally {
+        inflater.end();
+      }
+    }
+
+    private void fail(Throwable throwable) {
+      if (inflater != null) {
+        inflater.end();
+      }
+      body.completeExceptionally(throwable);
+    }
+  }
+}
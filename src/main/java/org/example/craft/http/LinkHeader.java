@@ -0,0 +1,42 @@
+package org.example.craft.http;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parser for RFC 8288 {@code Link} headers as used for pagination, e.g.
+ * {@code <https://api.github.com/orgs/x/members?page=2>; rel="next", <...?page=5>; rel="last"}.
+ */
+public final class LinkHeader {
+  private LinkHeader() {}
+
+  /**
+   * Maps each relation type to its target URL.
+   *
+   * @param header raw header value, or {@code null}
+   * @return relation → URL (empty if the header is absent or malformed)
+   */
+  public static Map<String, String> parse(String header) {
+    Map<String, String> links = new HashMap<>();
+    if (header == null) {
+      return links;
+    }
+    for (String link : header.split(",(?=\\s*<)")) {
+      int open = link.indexOf('<');
+      int close = link.indexOf('>', open + 1);
+      if (open < 0 || close < 0) {
+        continue;
+      }
+      String url = link.substring(open + 1, close);
+      for (String parameter : link.substring(close + 1).split(";")) {
+        String[] pair = parameter.trim().split("=", 2);
+        if (pair.length == 2 && "rel".equalsIgnoreCase(pair[0].trim())) {
+          for (String rel : pair[1].trim().replace("\"", "").split("\\s+")) {
+            links.put(rel, url);
+          }
+        }
+      }
+    }
+    return links;
+  }
+}
@@ -0,0 +1,252 @@
+package org.example.craft.http;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * {@link SimpleHttp.Transport} decorator that retries transient failures of idempotent requests.
+ * <ul>
+ *   <li>Only {@code GET}, {@code HEAD}, {@code PUT} and {@code DELETE} are retried; a {@code POST}
+ *       may already have created something on the server.</li>
+ *   <li>Transient means an {@link IOException} (connect reset, timeout, ...) or a
+ *       {@code 502}/{@code 503}/{@code 504} response.</li>
+ *   <li>Backoff is exponential with full jitter: attempt {@code n} waits a random time in
+ *       {@code [0, min(maxDelay, baseDelay * 2^(n-1))]}, or longer if the server sent {@code Retry-After}.</li>
+ *   <li>A shared retry budget keeps retries to a fraction of all requests, so an outage does not
+ *       multiply the load on the server: each request deposits {@code budgetRatio} tokens,
+ *       each retry takes one.</li>
+ * </ul>
+ * Rate-limit answers (403/429) are left to the rate limiters. Put this decorator above them,
+ * so that every retry waits for a rate-limit slot like a new request.
+ */
+public final class RetryingTransport implements SimpleHttp.Transport {
+
+  /** Default number of attempts, including the first one. */
+  public static final int DEFAULT_MAX_ATTEMPTS = 4;
+
+  /** Default backoff before the first retry. */
+  public static final long DEFAULT_BASE_DELAY_MILLIS = 200;
+
+  /** Default upper bound of a single backoff. */
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 10_000;
+
+  /** Default share of requests that may be retried. */
+  public static final double DEFAULT_BUDGET_RATIO = 0.2;
+
+  /** Retries available before any request was made, so a cold start can still retry. */
+  private static final long INITIAL_BUDGET_TOKENS = 10;
+
+  /** Budget tokens are stored in thousandths. */
+  private static final long TOKEN = 1000;
+
+  private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE");
+
+  private static final Counter RETRIES = MetricsRegistry.global().counter("http_transport_retries_total");
+  private static final Counter BUDGET_EXHAUSTED =
+          MetricsRegistry.global().counter("http_transport_retry_budget_exhausted_total");
+
+  /** Blocks the calling thread between attempts; replaceable for tests. */
+  @FunctionalInterface
+  public interface Sleeper {
+    /**
+     * Parks the calling thread.
+     *
+     * @param millis time to wait in milliseconds
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void sleep(long millis) throws InterruptedException;
+  }
+
+  private final SimpleHttp.Transport delegate;
+  private final int maxAttempts;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final long depositPerRequest;
+  private final long maxBudget;
+  private final DoubleSupplier random;
+  private final Sleeper sleeper;
+
+  /** Retry budget in thousandths of a retry. */
+  private final AtomicLong budget;
+
+  /**
+   * Creates a retrying transport with default settings.
+   *
+   * @param delegate transport that performs the actual HTTP calls
+   */
+  public RetryingTransport(SimpleHttp.Transport delegate) {
+    this(delegate, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS,
+            DEFAULT_BUDGET_RATIO, () -> ThreadLocalRandom.current().nextDouble(), Thread::sleep);
+  }
+
+  /**
+   * Creates a retrying transport.
+   *
+   * @param delegate        transport that performs the actual HTTP calls
+   * @param maxAttempts     attempts per request, including the first one
+   * @param baseDelayMillis backoff before the first retry
+   * @param maxDelayMillis  upper bound of a single backoff
+   * @param budgetRatio     share of requests that may be retried (e.g., 0.2)
+   * @param random          source of uniform values in {@code [0, 1)} for the jitter
+   * @param sleeper         parks callers between attempts
+   */
+  public RetryingTransport(SimpleHttp.Transport delegate, int maxAttempts, long baseDelayMillis,
+                           long maxDelayMillis, double budgetRatio, DoubleSupplier random, Sleeper sleeper) {
+    this.delegate = delegate;
+    this.maxAttempts = maxAttempts;
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.depositPerRequest = Math.round(budgetRatio * TOKEN);
+    this.maxBudget = Math.max(INITIAL_BUDGET_TOKENS * TOKEN, depositPerRequest * 100);
+    this.random = random;
+    this.sleeper = sleeper;
+    this.budget = new AtomicLong(INITIAL_BUDGET_TOKENS * TOKEN);
+  }
+
+  /**
+   * Performs the call and retries transient failures of idempotent requests.
+   *
+   * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+   * @param url     full target URL
+   * @param headers request headers (may be empty), case-sensitive keys
+   * @param body    request body or {@code null} for requests without a body
+   * @return the first non-transient response, or the last transient one
+   * @throws Exception the last I/O error if every attempt failed, or any non-transient error
+   */
+  @Override
+  public SimpleHttp.Response call(String method, String url, Map<String, String> headers, String body)
+          throws Exception {
+    return retried(method, () -> delegate.call(method, url, headers, body));
+  }
+
+  @Override
+  public SimpleHttp.Response callBytes(String method, String url, Map<String, String> headers, byte[] body)
+          throws Exception {
+    return retried(method, () -> delegate.callBytes(method, url, headers, body));
+  }
+
+  private SimpleHttp.Response retried(String method, SimpleHttp.Send send) throws Exception {
+    deposit();
+    boolean idempotent = IDEMPOTENT_METHODS.contains(method);
+    for (int attempt = 1; ; attempt++) {
+      SimpleHttp.Response response;
+      try {
+        response = send.send();
+      } catch (IOException transientFailure) {
+        if (!idempotent || !mayRetry(attempt)) {
+          throw transientFailure;
+        }
+        sleeper.sleep(backoffMillis(attempt, null));
+        continue;
+      }
+      if (!idempotent || !isTransient(response) || !mayRetry(attempt)) {
+        return response;
+      }
+      sleeper.sleep(backoffMillis(attempt, response));
+    }
+  }
+
+  /**
+   * Asynchronous variant of {@link #call}; backoff is scheduled on
+   * {@link CompletableFuture#delayedExecutor} instead of blocking a thread.
+   *
+   * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+   * @param url     full target URL
+   * @param headers request headers (may be empty), case-sensitive keys
+   * @param body    request body or {@code null} for requests without a body
+   * @return future of the first non-transient response, or of the last transient one
+   */
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callAsync(
+          String method, String url, Map<String, String> headers, String body) {
+    deposit();
+    return attemptAsync(() -> delegate.callAsync(method, url, headers, body), IDEMPOTENT_METHODS.contains(method), 1);
+  }
+
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callBytesAsync(
+          String method, String url, Map<String, String> headers, byte[] body) {
+    deposit();
+    return attemptAsync(
+            () -> delegate.callBytesAsync(method, url, headers, body), IDEMPOTENT_METHODS.contains(method), 1);
+  }
+
+  private CompletableFuture<SimpleHttp.Response> attemptAsync(
+          Supplier<CompletableFuture<SimpleHttp.Response>> send, boolean idempotent, int attempt) {
+    return send.get()
+            .handle((response, error) -> {
+              Throwable cause = error instanceof CompletionException && error.getCause() != null
+                      ? error.getCause() : error;
+              boolean retry = idempotent
+                      && (cause instanceof IOException || (cause == null && isTransient(response)))
+                      && mayRetry(attempt);
+              if (!retry) {
+                return cause == null
+                        ? CompletableFuture.completedFuture(response)
+                        : CompletableFuture.<SimpleHttp.Response>failedFuture(cause);
+              }
+              long delay = backoffMillis(attempt, cause == null ? response : null);
+              return CompletableFuture.supplyAsync(() -> null,
+                              CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                      .thenCompose(ignored -> attemptAsync(send, idempotent, attempt + 1));
+            })
+            .thenCompose(next -> next);
+  }
+
+  private static boolean isTransient(SimpleHttp.Response response) {
+    int status = response.getStatus();
+    return status == 502 || status == 503 || status == 504;
+  }
+
+  private void deposit() {
+    budget.accumulateAndGet(depositPerRequest, (current, amount) -> Math.min(maxBudget, current + amount));
+  }
+
+  /** Takes a retry token if attempts and budget allow another try. */
+  private boolean mayRetry(int attempt) {
+    if (attempt >= maxAttempts) {
+      return false;
+    }
+    long current;
+    do {
+      current = budget.get();
+      if (current < TOKEN) {
+        BUDGET_EXHAUSTED.increment();
+        return false;
+      }
+    } while (!budget.compareAndSet(current, current - TOKEN));
+    RETRIES.increment();
+    return true;
+  }
+
+  /**
+   * Computes the full-jitter backoff before the next attempt.
+   *
+   * @param attempt  number of the attempt that just failed (1-based)
+   * @param response transient response, used for {@code Retry-After}, or {@code null}
+   * @return milliseconds to wait
+   */
+  private long backoffMillis(int attempt, SimpleHttp.Response response) {
+    long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+    long delay = (long) (random.getAsDouble() * ceiling);
+    String retryAfter = response != null ? response.header("Retry-After") : null;
+    if (retryAfter != null) {
+      try {
+        delay = Math.max(delay, Math.min(maxDelayMillis, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()))));
+      } catch (NumberFormatException ignored) {
+        // HTTP-date form; the jittered delay is used
+      }
+    }
+    return delay;
+  }
+}
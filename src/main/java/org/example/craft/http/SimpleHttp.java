@@ -1,12 +1,21 @@
 package org.example.craft.http;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Minimal HTTP utility with pluggable {@link Transport} interface.
@@ -18,15 +27,148 @@ public final class SimpleHttp {
 
   /**
    * Immutable HTTP response representation.
+   * <p>
+   * The body is kept either as text or as the raw bytes received from the server.
+   * Raw bytes are only decoded when {@link #getBody()} is called, so JSON clients can
+   * parse {@link #bodyStream()} directly without an intermediate {@link String}.
    */
-  @Getter
-  @RequiredArgsConstructor
   public static final class Response {
     /** HTTP status code (e.g., 200, 404, 500). */
+    @Getter
     private final int status;
 
-    /** Response body as plain text. */
-    private final String body;
+    /** Response headers as returned by the server (may be empty, never {@code null}). */
+    @Getter
+    private final Map<String, List<String>> headers;
+
+    /** Raw UTF-8 body, or {@code null} if the response was created from text. */
+    private final byte[] bodyBytes;
+
+    /** Body as text; decoded from {@link #bodyBytes} on first access. */
+    private String body;
+
+    /**
+     * Creates a response with a textual body.
+     *
+     * @param status  HTTP status code
+     * @param body    response body as plain text (may be {@code null})
+     * @param headers response headers
+     */
+    public Response(int status, String body, Map<String, List<String>> headers) {
+      this.status = status;
+      this.body = body;
+      this.bodyBytes = null;
+      this.headers = headers;
+    }
+
+    /**
+     * Creates a response without headers (e.g., for test doubles).
+     *
+     * @param status HTTP status code
+     * @param body   response body as plain text
+     */
+    public Response(int status, String body) {
+      this(status, body, Map.of());
+    }
+
+    private Response(int status, byte[] bodyBytes, Map<String, List<String>> headers) {
+      this.status = status;
+      this.bodyBytes = bodyBytes;
+      this.headers = headers;
+    }
+
+    /**
+     * Creates a response over the raw body bytes, decoded lazily.
+     *
+     * @param status    HTTP status code
+     * @param bodyBytes raw UTF-8 response body
+     * @param headers   response headers
+     * @return the response
+     */
+    public static Response ofBytes(int status, byte[] bodyBytes, Map<String, List<String>> headers) {
+      return new Response(status, bodyBytes, headers);
+    }
+
+    /**
+     * Returns the response body as text, decoding raw bytes on first access.
+     *
+     * @return the body, or {@code null} if the response has none
+     */
+    public String getBody() {
+      String text = body;
+      if (text == null && bodyBytes != null) {
+        text = new String(bodyBytes, StandardCharsets.UTF_8);
+        body = text;
+      }
+      return text;
+    }
+
+    /**
+     * Returns the body as a byte stream for streaming parsers; no text is decoded.
+     *
+     * @return stream over the UTF-8 body (empty if the response has none)
+     */
+    public InputStream bodyStream() {
+      if (bodyBytes != null) {
+        return new ByteArrayInputStream(bodyBytes);
+      }
+      return new ByteArrayInputStream(body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    /**
+     * Returns the first value of a response header.
+     * <p>
+     * Header names are matched case-insensitively, as required by RFC 9110.
+     *
+     * @param name header name (e.g., "ETag")
+     * @return the first header value, or {@code null} if the header is absent
+     */
+    public String header(String name) {
+      for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+        if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name)
+                && !entry.getValue().isEmpty()) {
+          return entry.getValue().get(0);
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Converts a {@link Response} into a result; may throw checked exceptions.
+   *
+   * @param <T> result type
+   */
+  @FunctionalInterface
+  public interface ResponseHandler<T> {
+    /**
+     * Handles a response.
+     *
+     * @param response HTTP response
+     * @return result
+     * @throws Exception if the response signals an error or cannot be parsed
+     */
+    T handle(Response response) throws Exception;
+  }
+
+  /**
+   * Adapts a {@link ResponseHandler} for {@link CompletableFuture#thenApply}: checked exceptions
+   * are wrapped in a {@link CompletionException}, runtime exceptions pass through unchanged.
+   *
+   * @param handler handler to adapt
+   * @param <T>     result type
+   * @return function usable in future pipelines
+   */
+  public static <T> Function<Response, T> async(ResponseHandler<T> handler) {
+    return response -> {
+      try {
+        return handler.handle(response);
+      } catch (RuntimeException exception) {
+        throw exception;
+      } catch (Exception exception) {
+        throw new CompletionException(exception);
+      }
+    };
   }
 
   /**
@@ -46,13 +188,150 @@ public final class SimpleHttp {
      * @throws Exception if a network, timeout, or I/O error occurs
      */
     Response call(String method, String url, Map<String, String> headers, String body) throws Exception;
+
+    /**
+     * Executes an HTTP request without blocking the caller.
+     * <p>
+     * The default implementation runs {@link #call} on the calling thread and returns an
+     * already completed future; transports that can multiplex requests override it.
+     *
+     * @param method  HTTP method (e.g., "GET", "POST", "PUT")
+     * @param url     full target URL
+     * @param headers request headers (may be empty), case-sensitive keys
+     * @param body    request body or {@code null} for requests without a body
+     * @return future of the {@link Response}; completes exceptionally on network, timeout, or I/O errors
+     */
+    default CompletableFuture<Response> callAsync(
+            String method, String url, Map<String, String> headers, String body) {
+      try {
+        return CompletableFuture.completedFuture(call(method, url, headers, body));
+      } catch (Exception exception) {
+        return CompletableFuture.failedFuture(exception);
+      }
+    }
+
+    /**
+     * Executes an HTTP request whose body is already encoded as UTF-8 bytes.
+     * <p>
+     * The default implementation decodes the body and calls {@link #call}, so test doubles only
+     * see text; {@link DefaultTransport} sends the bytes as they are and decorators pass them on.
+     *
+     * @param method  HTTP method (e.g., "POST", "PUT")
+     * @param url     full target URL
+     * @param headers request headers (may be empty), case-sensitive keys
+     * @param body    UTF-8 request body or {@code null} for requests without a body
+     * @return {@link Response} containing status code and response body
+     * @throws Exception if a network, timeout, or I/O error occurs
+     */
+    default Response callBytes(String method, String url, Map<String, String> headers, byte[] body)
+            throws Exception {
+      return call(method, url, headers, body != null ? new String(body, StandardCharsets.UTF_8) : null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #callBytes}; the default decodes the body and calls {@link #callAsync}.
+     *
+     * @param method  HTTP method (e.g., "POST", "PUT")
+     * @param url     full target URL
+     * @param headers request headers (may be empty), case-sensitive keys
+     * @param body    UTF-8 request body or {@code null} for requests without a body
+     * @return future of the {@link Response}
+     */
+    default CompletableFuture<Response> callBytesAsync(
+            String method, String url, Map<String, String> headers, byte[] body) {
+      return callAsync(method, url, headers, body != null ? new String(body, StandardCharsets.UTF_8) : null);
+    }
+  }
+
+  /**
+   * One send of a request to the next transport.
+   * <p>
+   * Decorating transports wrap their logic around a {@code Send}, so text and byte bodies
+   * ({@link Transport#call} and {@link Transport#callBytes}) go through the same code.
+   */
+  @FunctionalInterface
+  public interface Send {
+    /**
+     * Sends the request.
+     *
+     * @return response of the next transport
+     * @throws Exception if the next transport fails
+     */
+    Response send() throws Exception;
   }
 
   /**
    * Default implementation of {@link Transport} using Java's {@link HttpClient}.
+   * <p>
+   * The client prefers HTTP/2, so concurrent requests to the same host (e.g., api.github.com)
+   * are multiplexed over one connection, and applies connect and per-request timeouts.
+   * {@link #callAsync} uses {@link HttpClient#sendAsync}, so in-flight requests do not pin threads.
+   * <p>
+   * Every request asks for {@code gzip} or {@code deflate} responses ({@link Compression#ACCEPT_ENCODING})
+   * unless the caller sets {@code Accept-Encoding} itself; compressed bodies are inflated while they
+   * arrive, so callers always see the decoded bytes; the {@code Content-Encoding} and
+   * {@code Content-Length} headers of such a response describe the compressed body and are dropped.
+   * Request bodies are only compressed when enabled
+   * with a threshold, because an API that does not accept {@code Content-Encoding: gzip} would reject them.
    */
   public static final class DefaultTransport implements Transport {
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    /** Default timeout for establishing a connection. */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Default timeout for a whole request, until response headers arrive. */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /** Decodes the body according to the response's {@code Content-Encoding}. */
+    private static final HttpResponse.BodyHandler<byte[]> DECODING_HANDLER =
+            responseInfo -> Compression.decoding(responseInfo.headers().firstValue("Content-Encoding").orElse(null));
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    /** Smallest request body that is sent gzip-compressed, or 0 to never compress. */
+    private final int compressRequestsFromBytes;
+
+    /**
+     * Creates a transport with the default timeouts and the {@link HttpClient}'s own executor.
+     */
+    public DefaultTransport() {
+      this(null, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Creates a transport that never compresses request bodies.
+     *
+     * @param executor       executor for async callbacks (e.g., a virtual-thread-per-task executor
+     *                       on Java 21+), or {@code null} for the {@link HttpClient} default
+     * @param connectTimeout timeout for establishing a connection
+     * @param requestTimeout timeout for a whole request, until response headers arrive
+     */
+    public DefaultTransport(Executor executor, Duration connectTimeout, Duration requestTimeout) {
+      this(executor, connectTimeout, requestTimeout, 0);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param executor                  executor for async callbacks (e.g., a virtual-thread-per-task
+     *                                  executor on Java 21+), or {@code null} for the {@link HttpClient} default
+     * @param connectTimeout            timeout for establishing a connection
+     * @param requestTimeout            timeout for a whole request, until response headers arrive
+     * @param compressRequestsFromBytes smallest request body sent with {@code Content-Encoding: gzip},
+     *                                  or 0 to never compress; only for APIs that accept compressed bodies
+     */
+    public DefaultTransport(Executor executor, Duration connectTimeout, Duration requestTimeout,
+                            int compressRequestsFromBytes) {
+      HttpClient.Builder builder = HttpClient.newBuilder()
+              .version(HttpClient.Version.HTTP_2)
+              .connectTimeout(connectTimeout);
+      if (executor != null) {
+        builder.executor(executor);
+      }
+      this.httpClient = builder.build();
+      this.requestTimeout = requestTimeout;
+      this.compressRequestsFromBytes = compressRequestsFromBytes;
+    }
 
     /**
      * Executes an HTTP request using {@link HttpClient}.
@@ -61,31 +340,112 @@ public final class SimpleHttp {
      * @param url     full target URL
      * @param headers request headers (may be empty), case-sensitive keys
      * @param body    request body or {@code null} for requests without a body
-     * @return {@link Response} containing status code and response body as text
+     * @return {@link Response} containing status code, headers and the decoded response body
      * @throws Exception if a network, timeout, or I/O error occurs
      * @throws IllegalArgumentException if an unsupported method is provided
      */
     @Override
     public Response call(String method, String url, Map<String, String> headers, String body)
             throws Exception {
-      HttpRequest.Builder requestBuilder = HttpRequest.newBuilder().uri(URI.create(url));
+      return callBytes(method, url, headers, body != null ? body.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    /**
+     * Executes an HTTP request with a pre-encoded body, handed to {@link HttpClient} without copying
+     * (unless it is compressed).
+     *
+     * @param method  HTTP method (only GET, POST, PUT are supported)
+     * @param url     full target URL
+     * @param headers request headers (may be empty), case-sensitive keys
+     * @param body    UTF-8 request body or {@code null} for requests without a body
+     * @return {@link Response} containing status code, headers and the decoded response body
+     * @throws Exception if a network, timeout, or I/O error occurs
+     */
+    @Override
+    public Response callBytes(String method, String url, Map<String, String> headers, byte[] body)
+            throws Exception {
+      return toResponse(httpClient.send(buildRequest(method, url, headers, body), DECODING_HANDLER));
+    }
+
+    /**
+     * Executes an HTTP request asynchronously using {@link HttpClient#sendAsync}.
+     *
+     * @param method  HTTP method (only GET, POST, PUT are supported)
+     * @param url     full target URL
+     * @param headers request headers (may be empty), case-sensitive keys
+     * @param body    request body or {@code null} for requests without a body
+     * @return future of the {@link Response}
+     */
+    @Override
+    public CompletableFuture<Response> callAsync(
+            String method, String url, Map<String, String> headers, String body) {
+      return callBytesAsync(method, url, headers, body != null ? body.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #callBytes}.
+     *
+     * @param method  HTTP method (only GET, POST, PUT are supported)
+     * @param url     full target URL
+     * @param headers request headers (may be empty), case-sensitive keys
+     * @param body    UTF-8 request body or {@code null} for requests without a body
+     * @return future of the {@link Response}
+     */
+    @Override
+    public CompletableFuture<Response> callBytesAsync(
+            String method, String url, Map<String, String> headers, byte[] body) {
+      HttpRequest request;
+      try {
+        request = buildRequest(method, url, headers, body);
+      } catch (IllegalArgumentException exception) {
+        return CompletableFuture.failedFuture(exception);
+      }
+      return httpClient.sendAsync(request, DECODING_HANDLER).thenApply(DefaultTransport::toResponse);
+    }
+
+    private HttpRequest buildRequest(String method, String url, Map<String, String> headers, byte[] body) {
+      HttpRequest.Builder requestBuilder =
+              HttpRequest.newBuilder().uri(URI.create(url)).timeout(requestTimeout);
+      boolean acceptEncodingSet = false;
       if (headers != null) {
         for (Map.Entry<String, String> entry : headers.entrySet()) {
           requestBuilder.header(entry.getKey(), entry.getValue());
+          acceptEncodingSet |= "Accept-Encoding".equalsIgnoreCase(entry.getKey());
         }
       }
+      if (!acceptEncodingSet) {
+        requestBuilder.header("Accept-Encoding", Compression.ACCEPT_ENCODING);
+      }
       if ("GET".equals(method)) {
         requestBuilder.GET();
       } else if ("POST".equals(method)) {
-        requestBuilder.POST(HttpRequest.BodyPublishers.ofString(body != null ? body : ""));
+        requestBuilder.POST(bodyPublisher(requestBuilder, body));
       } else if ("PUT".equals(method)) {
-        requestBuilder.PUT(HttpRequest.BodyPublishers.ofString(body != null ? body : ""));
+        requestBuilder.PUT(bodyPublisher(requestBuilder, body));
       } else {
         throw new IllegalArgumentException("Unsupported method: " + method);
       }
-      HttpResponse<String> httpResponse =
-              httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
-      return new Response(httpResponse.statusCode(), httpResponse.body());
+      return requestBuilder.build();
+    }
+
+    private HttpRequest.BodyPublisher bodyPublisher(HttpRequest.Builder requestBuilder, byte[] body) {
+      if (body == null || body.length == 0) {
+        return HttpRequest.BodyPublishers.noBody();
+      }
+      if (compressRequestsFromBytes > 0 && body.length >= compressRequestsFromBytes) {
+        requestBuilder.header("Content-Encoding", "gzip");
+        return HttpRequest.BodyPublishers.ofByteArray(Compression.gzip(body));
+      }
+      return HttpRequest.BodyPublishers.ofByteArray(body);
+    }
+
+    private static Response toResponse(HttpResponse<byte[]> httpResponse) {
+      HttpHeaders headers = httpResponse.headers();
+      if (Compression.decodes(headers.firstValue("Content-Encoding").orElse(null))) {
+        headers = HttpHeaders.of(headers.map(), (name, value) ->
+                !"Content-Encoding".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name));
+      }
+      return Response.ofBytes(httpResponse.statusCode(), httpResponse.body(), headers.map());
     }
   }
 }
@@ -0,0 +1,30 @@
+package org.example.craft.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The one Jackson {@link ObjectMapper} of the application.
+ * <p>
+ * Building a mapper and the (de)serializers it caches is a large part of the startup cost, so all
+ * clients share this instance and bind through {@code mapper().readerFor(..)} /
+ * {@code writerFor(..)}. It is created on first use, which keeps Jackson off the startup path of
+ * commands that never touch JSON. The mapper is never reconfigured and is safe to share.
+ */
+public final class Json {
+
+  private Json() {}
+
+  /** Initialized by the JVM on first access of {@link #mapper()}. */
+  private static final class Holder {
+    static final ObjectMapper MAPPER = new ObjectMapper();
+  }
+
+  /**
+   * Returns the shared mapper, creating it on the first call.
+   *
+   * @return shared mapper
+   */
+  public static ObjectMapper mapper() {
+    return Holder.MAPPER;
+  }
+}
@@ -1,5 +1,9 @@
 package org.example.craft.mapper;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import org.example.craft.github.dto.GitHubUser;
 import org.example.craft.freshdesk.dto.FreshdeskContact;
 
@@ -53,4 +57,39 @@ public final class Mapper {
 
     return freshdeskContact;
   }
+
+  /**
+   * Computes a content fingerprint of the fields that are sent to Freshdesk.
+   * <p>
+   * Two contacts with the same fingerprint produce the same create/update payload,
+   * so a contact whose fingerprint did not change since the last push can be skipped.
+   * The Freshdesk {@code id} is not part of the fingerprint.
+   *
+   * @param contact mapped Freshdesk contact
+   * @return lower-case hex SHA-256 of the payload fields (64 characters)
+   */
+  public static String fingerprint(FreshdeskContact contact) {
+    StringBuilder canonical = new StringBuilder(128);
+    appendField(canonical, contact.getUniqueExternalId());
+    appendField(canonical, contact.getName());
+    appendField(canonical, contact.getEmail());
+    appendField(canonical, contact.getAddress());
+    appendField(canonical, contact.getTwitterId());
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(sha256.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  /** Length-prefixes each value so that field boundaries cannot be confused; {@code null} is "-". */
+  private static void appendField(StringBuilder canonical, String value) {
+    if (value == null) {
+      canonical.append('-');
+    } else {
+      canonical.append(value.length()).append(':').append(value);
+    }
+    canonical.append('\n');
+  }
 }
@@ -0,0 +1,33 @@
+package org.example.craft.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter; increments are lock-free and scale with the number of writer threads.
+ */
+public final class Counter {
+  private final LongAdder value = new LongAdder();
+
+  /** Adds one. */
+  public void increment() {
+    value.increment();
+  }
+
+  /**
+   * Adds a non-negative amount.
+   *
+   * @param amount amount to add
+   */
+  public void add(long amount) {
+    value.add(amount);
+  }
+
+  /**
+   * Returns the current total.
+   *
+   * @return sum of all increments
+   */
+  public long get() {
+    return value.sum();
+  }
+}
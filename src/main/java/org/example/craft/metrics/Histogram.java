@@ -0,0 +1,117 @@
+package org.example.craft.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed, exponentially growing buckets.
+ * <p>
+ * Bucket upper bounds run from 1 ms to about 65 s, doubling each time, plus an overflow bucket.
+ * Recording is one bucket search and two {@link LongAdder} increments, so it is cheap enough
+ * to run on every HTTP call and DB statement.
+ */
+public final class Histogram {
+
+  /** Upper bounds of the buckets in nanoseconds (inclusive); the last bucket is unbounded. */
+  static final long[] BOUNDS_NANOS = new long[17];
+
+  static {
+    for (int index = 0; index < BOUNDS_NANOS.length; index++) {
+      BOUNDS_NANOS[index] = TimeUnit.MILLISECONDS.toNanos(1L << index);
+    }
+  }
+
+  private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+  private final LongAdder sumNanos = new LongAdder();
+
+  /** Creates an empty histogram. */
+  public Histogram() {
+    for (int index = 0; index < buckets.length; index++) {
+      buckets[index] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records one observation.
+   *
+   * @param nanos observed duration in nanoseconds
+   */
+  public void observeNanos(long nanos) {
+    int index = 0;
+    while (index < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[index]) {
+      index++;
+    }
+    buckets[index].increment();
+    sumNanos.add(Math.max(0, nanos));
+  }
+
+  /**
+   * Records the time elapsed since a {@link System#nanoTime()} value.
+   *
+   * @param startedAtNanos value of {@link System#nanoTime()} when the operation started
+   */
+  public void observeSince(long startedAtNanos) {
+    observeNanos(System.nanoTime() - startedAtNanos);
+  }
+
+  /**
+   * Returns the per-bucket counts (not cumulative); the last entry is the overflow bucket.
+   *
+   * @return snapshot of the bucket counts
+   */
+  public long[] bucketCounts() {
+    long[] counts = new long[buckets.length];
+    for (int index = 0; index < buckets.length; index++) {
+      counts[index] = buckets[index].sum();
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the number of observations.
+   *
+   * @return observation count
+   */
+  public long count() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sum of all observations.
+   *
+   * @return total in nanoseconds
+   */
+  public long sumNanos() {
+    return sumNanos.sum();
+  }
+
+  /**
+   * Estimates a quantile as the upper bound of the bucket that contains it.
+   *
+   * @param quantile quantile between 0 and 1 (e.g., 0.99)
+   * @return estimate in nanoseconds, 0 if empty, {@link Long#MAX_VALUE} if it falls into the overflow bucket
+   */
+  public long quantileNanos(double quantile) {
+    long[] counts = bucketCounts();
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int index = 0; index < BOUNDS_NANOS.length; index++) {
+      seen += counts[index];
+      if (seen >= rank) {
+        return BOUNDS_NANOS[index];
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
@@ -0,0 +1,120 @@
+package org.example.craft.metrics;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.example.craft.http.SimpleHttp;
+
+/**
+ * {@link SimpleHttp.Transport} decorator that records the latency of every call in
+ * {@code http_client_request_seconds}, labelled by method, endpoint and status class.
+ * <p>
+ * Endpoints are URL templates, not raw URLs, to keep the number of series bounded:
+ * numeric path segments become {@code {id}}, the segment after {@code users} becomes
+ * {@code {login}} and the one after {@code orgs} becomes {@code {org}}; query strings are dropped.
+ * Calls that throw are recorded with status {@code error}.
+ */
+public final class MeteredTransport implements SimpleHttp.Transport {
+  /** Name of the latency histogram. */
+  public static final String REQUEST_SECONDS = "http_client_request_seconds";
+
+  private final SimpleHttp.Transport delegate;
+  private final MetricsRegistry registry;
+
+  /**
+   * Creates a metered transport recording into {@link MetricsRegistry#global()}.
+   *
+   * @param delegate transport that performs the actual HTTP calls
+   */
+  public MeteredTransport(SimpleHttp.Transport delegate) {
+    this(delegate, MetricsRegistry.global());
+  }
+
+  /**
+   * Creates a metered transport.
+   *
+   * @param delegate transport that performs the actual HTTP calls
+   * @param registry registry to record into
+   */
+  public MeteredTransport(SimpleHttp.Transport delegate, MetricsRegistry registry) {
+    this.delegate = delegate;
+    this.registry = registry;
+  }
+
+  @Override
+  public SimpleHttp.Response call(String method, String url, Map<String, String> headers, String body)
+          throws Exception {
+    return timed(method, url, () -> delegate.call(method, url, headers, body));
+  }
+
+  @Override
+  public SimpleHttp.Response callBytes(String method, String url, Map<String, String> headers, byte[] body)
+          throws Exception {
+    return timed(method, url, () -> delegate.callBytes(method, url, headers, body));
+  }
+
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callAsync(
+          String method, String url, Map<String, String> headers, String body) {
+    return timedAsync(method, url, () -> delegate.callAsync(method, url, headers, body));
+  }
+
+  @Override
+  public CompletableFuture<SimpleHttp.Response> callBytesAsync(
+          String method, String url, Map<String, String> headers, byte[] body) {
+    return timedAsync(method, url, () -> delegate.callBytesAsync(method, url, headers, body));
+  }
+
+  private SimpleHttp.Response timed(String method, String url, SimpleHttp.Send send) throws Exception {
+    long startedAt = System.nanoTime();
+    SimpleHttp.Response response = null;
+    try {
+      response = send.send();
+      return response;
+    } finally {
+      record(method, url, response, startedAt);
+    }
+  }
+
+  private CompletableFuture<SimpleHttp.Response> timedAsync(
+          String method, String url, Supplier<CompletableFuture<SimpleHttp.Response>> send) {
+    long startedAt = System.nanoTime();
+    return send.get().whenComplete((response, error) -> record(method, url, response, startedAt));
+  }
+
+  private void record(String method, String url, SimpleHttp.Response response, long startedAt) {
+    String status = response != null ? (response.getStatus() / 100) + "xx" : "error";
+    registry.histogram(REQUEST_SECONDS, "method", method, "endpoint", endpoint(url), "status", status)
+            .observeSince(startedAt);
+  }
+
+  /**
+   * Reduces a URL to its endpoint template.
+   *
+   * @param url full request URL
+   * @return host plus templated path (e.g., {@code api.github.com/users/{login}})
+   */
+  public static String endpoint(String url) {
+    URI uri = URI.create(url);
+    StringBuilder template = new StringBuilder(uri.getHost() != null ? uri.getHost() : "");
+    String previous = "";
+    for (String segment : (uri.getRawPath() != null ? uri.getRawPath() : "").split("/")) {
+      if (segment.isEmpty()) {
+        continue;
+      }
+      template.append('/');
+      if ("users".equals(previous)) {
+        template.append("{login}");
+      } else if ("orgs".equals(previous)) {
+        template.append("{org}");
+      } else if (segment.chars().allMatch(Character::isDigit)) {
+        template.append("{id}");
+      } else {
+        template.append(segment);
+      }
+      previous = segment;
+    }
+    return template.toString();
+  }
+}
@@ -0,0 +1,124 @@
+package org.example.craft.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes a {@link MetricsRegistry} as one read-only dynamic MBean
+ * ({@value #OBJECT_NAME}), e.g. for JConsole or VisualVM.
+ * <p>
+ * Every counter is an attribute named after its series; every histogram contributes
+ * {@code .count}, {@code .meanMillis}, {@code .p50Millis} and {@code .p99Millis} attributes.
+ */
+public final class MetricsJmx implements DynamicMBean {
+  /** Object name under which the MBean is registered. */
+  public static final String OBJECT_NAME = "org.example.craft:type=Metrics";
+
+  private static final String[] HISTOGRAM_SUFFIXES = {".count", ".meanMillis", ".p50Millis", ".p99Millis"};
+
+  private final MetricsRegistry registry;
+
+  private MetricsJmx(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Registers the registry with the platform MBean server; repeated calls are ignored.
+   *
+   * @param registry registry to expose
+   * @throws Exception if the MBean cannot be registered
+   */
+  public static synchronized void register(MetricsRegistry registry) throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (!server.isRegistered(name)) {
+      server.registerMBean(new MetricsJmx(registry), name);
+    }
+  }
+
+  @Override
+  public Object getAttribute(String attribute) throws AttributeNotFoundException {
+    for (MetricsRegistry.Series series : registry.series()) {
+      String id = series.getName() + series.getLabels();
+      if (series.getMetric() instanceof Counter counter) {
+        if (id.equals(attribute)) {
+          return counter.get();
+        }
+      } else if (attribute.startsWith(id) && attribute.length() > id.length()) {
+        Histogram histogram = (Histogram) series.getMetric();
+        switch (attribute.substring(id.length())) {
+          case ".count":
+            return histogram.count();
+          case ".meanMillis":
+            long count = histogram.count();
+            return count == 0 ? 0.0 : histogram.sumNanos() / 1e6 / count;
+          case ".p50Millis":
+            return histogram.quantileNanos(0.5) / 1e6;
+          case ".p99Millis":
+            return histogram.quantileNanos(0.99) / 1e6;
+          default:
+            break;
+        }
+      }
+    }
+    throw new AttributeNotFoundException(attribute);
+  }
+
+  @Override
+  public AttributeList getAttributes(String[] attributes) {
+    AttributeList values = new AttributeList();
+    for (String attribute : attributes) {
+      try {
+        values.add(new Attribute(attribute, getAttribute(attribute)));
+      } catch (AttributeNotFoundException ignored) {
+        // series disappeared or never existed; JMX skips missing attributes
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+    throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+  }
+
+  @Override
+  public AttributeList setAttributes(AttributeList attributes) {
+    return new AttributeList();
+  }
+
+  @Override
+  public Object invoke(String actionName, Object[] params, String[] signature)
+          throws ReflectionException {
+    throw new ReflectionException(new NoSuchMethodException(actionName));
+  }
+
+  /** Built on every call, so series created after registration show up too. */
+  @Override
+  public MBeanInfo getMBeanInfo() {
+    List<MBeanAttributeInfo> attributes = new ArrayList<>();
+    for (MetricsRegistry.Series series : registry.series()) {
+      String id = series.getName() + series.getLabels();
+      if (series.getKind() == MetricsRegistry.Kind.COUNTER) {
+        attributes.add(new MBeanAttributeInfo(id, "long", "counter", true, false, false));
+      } else {
+        for (String suffix : HISTOGRAM_SUFFIXES) {
+          String type = ".count".equals(suffix) ? "long" : "double";
+          attributes.add(new MBeanAttributeInfo(id + suffix, type, "histogram", true, false, false));
+        }
+      }
+    }
+    return new MBeanInfo(getClass().getName(), "craft-java sync metrics",
+            attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+  }
+}
@@ -0,0 +1,119 @@
+package org.example.craft.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Holds named, labelled {@link Counter}s and {@link Histogram}s.
+ * <p>
+ * A series is identified by its name plus label pairs, e.g.
+ * {@code counter("sync_contacts_total", "outcome", "created")}. Lookups of existing
+ * series do not lock; callers with fixed labels should keep the returned instance.
+ * <p>
+ * The application records into {@link #global()}, which is exported by
+ * {@link PrometheusExporter} and {@link MetricsJmx}.
+ */
+public final class MetricsRegistry {
+  private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+  private final ConcurrentMap<String, Series> series = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the process-wide registry.
+   *
+   * @return shared registry
+   */
+  public static MetricsRegistry global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Returns the counter of a series, creating it on first use.
+   *
+   * @param name   metric name (e.g., "sync_contacts_total")
+   * @param labels alternating label names and values
+   * @return the counter
+   * @throws IllegalArgumentException if the labels are not in pairs or the name is used by a histogram
+   */
+  public Counter counter(String name, String... labels) {
+    return (Counter) lookup(name, labels, Kind.COUNTER).getMetric();
+  }
+
+  /**
+   * Returns the histogram of a series, creating it on first use.
+   *
+   * @param name   metric name (e.g., "http_client_request_seconds")
+   * @param labels alternating label names and values
+   * @return the histogram
+   * @throws IllegalArgumentException if the labels are not in pairs or the name is used by a counter
+   */
+  public Histogram histogram(String name, String... labels) {
+    return (Histogram) lookup(name, labels, Kind.HISTOGRAM).getMetric();
+  }
+
+  /**
+   * Returns all series ordered by name and labels.
+   *
+   * @return snapshot of the registered series
+   */
+  public List<Series> series() {
+    List<Series> snapshot = new ArrayList<>(series.values());
+    snapshot.sort(Comparator.comparing(Series::getName).thenComparing(Series::getLabels));
+    return snapshot;
+  }
+
+  private Series lookup(String name, String[] labels, Kind kind) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be name/value pairs: " + name);
+    }
+    String renderedLabels = renderLabels(labels);
+    Series found = series.computeIfAbsent(name + renderedLabels, key -> new Series(
+            name, renderedLabels, kind, kind == Kind.COUNTER ? new Counter() : new Histogram()));
+    if (found.getKind() != kind) {
+      throw new IllegalArgumentException("Metric " + name + " is a " + found.getKind());
+    }
+    return found;
+  }
+
+  /** Renders labels in Prometheus syntax: {@code {name="value",...}}, or empty without labels. */
+  private static String renderLabels(String[] labels) {
+    if (labels.length == 0) {
+      return "";
+    }
+    StringBuilder rendered = new StringBuilder("{");
+    for (int index = 0; index < labels.length; index += 2) {
+      if (index > 0) {
+        rendered.append(',');
+      }
+      rendered.append(labels[index]).append("=\"")
+              .append(labels[index + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+              .append('"');
+    }
+    return rendered.append('}').toString();
+  }
+
+  /** Type of a series. */
+  public enum Kind { COUNTER, HISTOGRAM }
+
+  /** One registered series. */
+  @Getter
+  @RequiredArgsConstructor
+  public static final class Series {
+    /** Metric name. */
+    private final String name;
+
+    /** Labels rendered as {@code {name="value",...}}, or empty. */
+    private final String labels;
+
+    /** Whether {@link #getMetric()} is a {@link Counter} or a {@link Histogram}. */
+    private final Kind kind;
+
+    /** The {@link Counter} or {@link Histogram}. */
+    private final Object metric;
+  }
+}
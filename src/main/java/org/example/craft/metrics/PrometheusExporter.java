@@ -0,0 +1,98 @@
+package org.example.craft.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes a {@link MetricsRegistry} in the Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * Histograms are exported in seconds with cumulative {@code le} buckets, so the output can be
+ * scraped from an HTTP endpoint or picked up from a file by the node exporter's textfile collector.
+ */
+public final class PrometheusExporter {
+  /** Content type of the text format, for HTTP endpoints. */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private PrometheusExporter() {}
+
+  /**
+   * Writes all series of the registry.
+   *
+   * @param registry registry to export
+   * @param out      destination
+   * @throws IOException if writing fails
+   */
+  public static void write(MetricsRegistry registry, Writer out) throws IOException {
+    String typedName = null;
+    for (MetricsRegistry.Series series : registry.series()) {
+      if (!series.getName().equals(typedName)) {
+        typedName = series.getName();
+        out.write("# TYPE " + typedName + " "
+                + (series.getKind() == MetricsRegistry.Kind.COUNTER ? "counter" : "histogram") + "\n");
+      }
+      if (series.getMetric() instanceof Counter counter) {
+        out.write(series.getName() + series.getLabels() + " " + counter.get() + "\n");
+      } else {
+        writeHistogram(series, (Histogram) series.getMetric(), out);
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Renders the registry as a string.
+   *
+   * @param registry registry to export
+   * @return exposition text
+   */
+  public static String scrape(MetricsRegistry registry) {
+    StringWriter out = new StringWriter();
+    try {
+      write(registry, out);
+    } catch (IOException impossible) {
+      throw new IllegalStateException(impossible);
+    }
+    return out.toString();
+  }
+
+  /**
+   * Writes the registry to a file atomically (temp file + rename), so a collector
+   * never reads a half-written file.
+   *
+   * @param registry registry to export
+   * @param target   destination file
+   * @throws IOException if writing or renaming fails
+   */
+  public static void writeTo(MetricsRegistry registry, Path target) throws IOException {
+    Path absolute = target.toAbsolutePath();
+    Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+    try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      write(registry, out);
+    }
+    Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeHistogram(MetricsRegistry.Series series, Histogram histogram, Writer out)
+          throws IOException {
+    long[] counts = histogram.bucketCounts();
+    long cumulative = 0;
+    for (int index = 0; index < counts.length; index++) {
+      cumulative += counts[index];
+      String bound = index < Histogram.BOUNDS_NANOS.length
+              ? Double.toString(Histogram.BOUNDS_NANOS[index] / 1e9) : "+Inf";
+      out.write(series.getName() + "_bucket" + withLabel(series.getLabels(), "le", bound) + " " + cumulative + "\n");
+    }
+    out.write(series.getName() + "_sum" + series.getLabels() + " " + histogram.sumNanos() / 1e9 + "\n");
+    out.write(series.getName() + "_count" + series.getLabels() + " " + cumulative + "\n");
+  }
+
+  private static String withLabel(String labels, String name, String value) {
+    String label = name + "=\"" + value + "\"";
+    return labels.isEmpty() ? "{" + label + "}" : labels.substring(0, labels.length() - 1) + "," + label + "}";
+  }
+}
@@ -0,0 +1,96 @@
+package org.example.craft.sync;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.craft.github.GitHubClient;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Login iterator that fetches the users of the logins it hands out in GraphQL batches
+ * ({@link GitHubClient#getUsers}).
+ * <p>
+ * Whenever its buffer is empty it pulls up to {@code batchSize} logins from the source, fetches
+ * them with one request and then yields them one by one; workers pick the fetched users up
+ * with {@link #take(String)}. While workers process one batch, the dispatcher thread
+ * already fetches the next one (bounded by {@link BulkSync}'s backpressure).
+ * <p>
+ * Iteration is single-threaded; {@link #take(String)} may be called by any worker.
+ * A failed batch is counted in {@code sync_batch_lookup_failures_total} and its logins are
+ * fetched individually.
+ */
+public final class BatchedUserLookup implements Iterator<String> {
+  private static final Counter BATCH_FAILURES =
+          MetricsRegistry.global().counter("sync_batch_lookup_failures_total");
+
+  private final GitHubClient githubClient;
+  private final Iterator<String> source;
+  private final int batchSize;
+
+  private Iterator<String> buffered = List.<String>of().iterator();
+
+  /** Fetched users not yet taken; an empty {@link Optional} marks a login GitHub does not know. */
+  private final Map<String, Optional<GitHubUser>> fetched = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the lookup.
+   *
+   * @param githubClient GitHub API client
+   * @param source       logins to sync
+   * @param batchSize    logins per GraphQL request (capped at {@link GitHubClient#MAX_BATCH_SIZE})
+   */
+  public BatchedUserLookup(GitHubClient githubClient, Iterator<String> source, int batchSize) {
+    this.githubClient = githubClient;
+    this.source = source;
+    this.batchSize = Math.max(1, Math.min(batchSize, GitHubClient.MAX_BATCH_SIZE));
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!buffered.hasNext() && source.hasNext()) {
+      List<String> batch = new ArrayList<>(batchSize);
+      while (batch.size() < batchSize && source.hasNext()) {
+        batch.add(source.next());
+      }
+      try {
+        githubClient.getUsers(batch).forEach((login, user) -> fetched.put(login, Optional.ofNullable(user)));
+      } catch (Exception batchFailure) {
+        // leave the logins unfetched; take() falls back to one REST call per login
+        BATCH_FAILURES.increment();
+      }
+      buffered = batch.iterator();
+    }
+    return buffered.hasNext();
+  }
+
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return buffered.next();
+  }
+
+  /**
+   * Returns the fetched user of a login handed out by this iterator.
+   * Logins whose batch failed are fetched individually.
+   *
+   * @param login login returned by {@link #next()}
+   * @return the GitHub user
+   * @throws RuntimeException if GitHub does not know the login
+   * @throws Exception if the individual fallback fetch fails
+   */
+  public GitHubUser take(String login) throws Exception {
+    Optional<GitHubUser> user = fetched.remove(login);
+    if (user == null) {
+      return githubClient.getUser(login);
+    }
+    return user.orElseThrow(() -> new RuntimeException("GitHub user not found: " + login));
+  }
+}
@@ -0,0 +1,211 @@
+package org.example.craft.sync;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Streams many GitHub logins through a per-login task with bounded concurrency.
+ * <p>
+ * Logins are pulled from the source only when a worker slot is free, so arbitrarily
+ * large inputs are processed without buffering them in memory. Failures of single
+ * logins are reported and counted but do not abort the run.
+ */
+@RequiredArgsConstructor
+public final class BulkSync {
+
+  /** Work performed for every login of the run. */
+  @FunctionalInterface
+  public interface LoginTask {
+    /**
+     * Syncs one login.
+     *
+     * @param login GitHub login
+     * @throws Exception if the sync of this login fails
+     */
+    void sync(String login) throws Exception;
+  }
+
+  /** Maximum number of logins processed at the same time. */
+  private final int concurrency;
+
+  /**
+   * Processes every login from the source and waits for all of them to finish.
+   *
+   * @param logins source of logins (consumed lazily)
+   * @param task   work performed for every login
+   * @return throughput and latency summary of the run
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public Summary run(Iterator<String> logins, LoginTask task) throws InterruptedException {
+    Semaphore slots = new Semaphore(concurrency);
+    Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+    LongAdder failures = new LongAdder();
+    long startedAt = System.nanoTime();
+
+    ExecutorService executor = newWorkerExecutor(concurrency);
+    try {
+      while (logins.hasNext()) {
+        String login = logins.next();
+        slots.acquire();
+        executor.execute(() -> {
+          long taskStart = System.nanoTime();
+          try {
+            task.sync(login);
+          } catch (Exception exception) {
+            failures.increment();
+            System.err.println("Failed to sync " + login + ": " + exception.getMessage());
+          } finally {
+            latencies.add(System.nanoTime() - taskStart);
+            slots.release();
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+    return new Summary(sorted, failures.intValue(), System.nanoTime() - startedAt);
+  }
+
+  /**
+   * Creates the worker executor: virtual threads when the runtime offers them (Java 21+),
+   * otherwise a fixed pool with one platform thread per concurrency slot.
+   *
+   * @param threads number of platform threads for the fallback pool
+   * @return executor for sync tasks
+   */
+  static ExecutorService newWorkerExecutor(int threads) {
+    try {
+      return (ExecutorService) Executors.class
+              .getMethod("newVirtualThreadPerTaskExecutor")
+              .invoke(null);
+    } catch (ReflectiveOperationException notAvailable) {
+      return Executors.newFixedThreadPool(threads);
+    }
+  }
+
+  /**
+   * Adapts a line-oriented reader into a login source.
+   * <p>
+   * Lines are trimmed; blank lines and lines starting with {@code #} are skipped.
+   *
+   * @param reader reader with one login per line
+   * @return lazy iterator over the logins
+   */
+  public static Iterator<String> lines(BufferedReader reader) {
+    return new Iterator<>() {
+      private String next = advance();
+
+      private String advance() {
+        try {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+              return line;
+            }
+          }
+          return null;
+        } catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public String next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        String current = next;
+        next = advance();
+        return current;
+      }
+    };
+  }
+
+  /**
+   * Result of a bulk run: counts, wall time, and per-login latency percentiles.
+   */
+  @Getter
+  public static final class Summary {
+    /** Number of logins processed (succeeded + failed). */
+    private final int total;
+
+    /** Number of logins whose sync threw an exception. */
+    private final int failed;
+
+    /** Wall time of the whole run in nanoseconds. */
+    private final long elapsedNanos;
+
+    @Getter(AccessLevel.NONE)
+    private final long[] sortedLatencies;
+
+    Summary(long[] sortedLatencies, int failed, long elapsedNanos) {
+      this.sortedLatencies = sortedLatencies;
+      this.total = sortedLatencies.length;
+      this.failed = failed;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the per-login latency at the given percentile.
+     *
+     * @param percentile value in {@code [0, 100]}
+     * @return latency in nanoseconds, or 0 if nothing was processed
+     */
+    public long percentileNanos(double percentile) {
+      if (sortedLatencies.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+      return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, rank - 1))];
+    }
+
+    /**
+     * Returns processed logins per second of wall time.
+     *
+     * @return throughput, or 0 if the run took no measurable time
+     */
+    public double throughputPerSecond() {
+      return elapsedNanos == 0 ? 0 : total / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+              "Synced %d users (%d failed) in %.1f s: %.1f users/s, latency p50=%d ms p95=%d ms p99=%d ms max=%d ms",
+              total,
+              failed,
+              elapsedNanos / 1e9,
+              throughputPerSecond(),
+              toMillis(percentileNanos(50)),
+              toMillis(percentileNanos(95)),
+              toMillis(percentileNanos(99)),
+              toMillis(percentileNanos(100)));
+    }
+
+    private static long toMillis(long nanos) {
+      return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package org.example.craft.sync;
+
+import org.example.craft.freshdesk.ContactIndex;
+import org.example.craft.freshdesk.ContactNotFoundException;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.freshdesk.dto.FreshdeskContact;
+
+/**
+ * Creates or updates one Freshdesk contact, using the {@link ContactIndex} to skip the lookup.
+ * <p>
+ * Shared by the inline flow of {@link UserSync}, the {@link OutboxDrainer} and the {@link Reconciler}.
+ */
+final class ContactPusher {
+  private final FreshdeskClient freshdeskClient;
+
+  /** Contact id index, or {@code null} to always look contacts up by external id. */
+  private final ContactIndex contactIndex;
+
+  ContactPusher(FreshdeskClient freshdeskClient, ContactIndex contactIndex) {
+    this.freshdeskClient = freshdeskClient;
+    this.contactIndex = contactIndex;
+  }
+
+  /**
+   * Creates or updates the Freshdesk contact.
+   * <p>
+   * A contact id known from the {@link ContactIndex} is updated directly; the lookup by
+   * external id only runs on an index miss or when the indexed contact no longer exists.
+   * Ids returned by create/update are recorded in the index.
+   *
+   * @param payload mapped contact
+   * @param login   GitHub login (for log output)
+   * @return whether the contact was created or updated
+   * @throws Exception if any API or DB operation fails
+   */
+  UserSync.Outcome push(FreshdeskContact payload, String login) throws Exception {
+    String externalId = payload.getUniqueExternalId();
+    Long knownId = contactIndex != null ? contactIndex.findContactId(externalId) : null;
+    if (knownId != null) {
+      try {
+        return update(knownId, payload, login, knownId);
+      } catch (ContactNotFoundException deleted) {
+        contactIndex.removeContactId(externalId);
+      }
+    }
+
+    FreshdeskContact existing = freshdeskClient.findByExternalId(externalId);
+    if (existing == null) {
+      return create(payload, login);
+    }
+    return update(existing.getId(), payload, login, null);
+  }
+
+  /**
+   * Creates or updates the Freshdesk contact by the id a {@link org.example.craft.freshdesk.ContactDirectory}
+   * scan found, without any lookup. A contact deleted since the scan is recreated.
+   *
+   * @param payload   mapped contact
+   * @param login     GitHub login (for log output)
+   * @param scannedId id of the scanned contact, or {@code null} if the scan found none
+   * @return whether the contact was created or updated
+   * @throws Exception if any API or DB operation fails
+   */
+  UserSync.Outcome push(FreshdeskContact payload, String login, Long scannedId) throws Exception {
+    if (scannedId != null) {
+      try {
+        return update(scannedId, payload, login, null);
+      } catch (ContactNotFoundException deleted) {
+        // recreated below
+      }
+    }
+    return create(payload, login);
+  }
+
+  private UserSync.Outcome create(FreshdeskContact payload, String login) throws Exception {
+    String id = freshdeskClient.create(payload);
+    System.out.println("Created contact #" + id + " for " + login);
+    remember(payload.getUniqueExternalId(), null, id);
+    return UserSync.Outcome.CREATED;
+  }
+
+  private UserSync.Outcome update(long contactId, FreshdeskContact payload, String login, Long knownId)
+          throws Exception {
+    String id = freshdeskClient.update(String.valueOf(contactId), payload);
+    System.out.println("Updated contact #" + id + " for " + login);
+    remember(payload.getUniqueExternalId(), knownId, id);
+    return UserSync.Outcome.UPDATED;
+  }
+
+  /** Records the contact id returned by Freshdesk unless the index already has it. */
+  private void remember(String externalId, Long knownId, String returnedId) throws Exception {
+    if (contactIndex == null || returnedId == null) {
+      return;
+    }
+    long contactId = Long.parseLong(returnedId);
+    if (knownId == null || knownId != contactId) {
+      contactIndex.putContactId(externalId, contactId);
+    }
+  }
+}
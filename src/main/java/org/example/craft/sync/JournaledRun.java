@@ -0,0 +1,173 @@
+package org.example.craft.sync;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.Getter;
+
+/**
+ * Connects one bulk run to a {@link RunJournal}: records the final status of every login, skips
+ * logins a resumed run already completed and checkpoints the input offset.
+ * <p>
+ * Only final statuses are journaled, and not one by one: they are collected in memory and written
+ * together with the offset every {@value #CHECKPOINT_EVERY} dispatched logins and when the run
+ * finishes. A crash loses at most the statuses since the last checkpoint; those logins are simply
+ * synced again on resume.
+ * <p>
+ * On resume the input is read again from the start; completed logins are skipped without any
+ * API call, failed and unfinished ones are synced again. All steps of a sync are idempotent
+ * (update by id, upsert), so redoing a half-finished login is safe.
+ */
+public final class JournaledRun implements SyncListener {
+
+  /** Logins dispatched between two offset checkpoints. */
+  private static final int CHECKPOINT_EVERY = 100;
+
+  private final RunJournal journal;
+
+  /** Id of the journaled run. */
+  @Getter
+  private final String runId;
+
+  private final Set<String> completed;
+  private long offset;
+
+  /** Final statuses not yet written to the journal. */
+  private final Queue<RunJournal.Item> unsaved = new ConcurrentLinkedQueue<>();
+
+  private JournaledRun(RunJournal journal, String runId, Set<String> completed) {
+    this.journal = journal;
+    this.runId = runId;
+    this.completed = completed;
+  }
+
+  /**
+   * Starts a new journaled run.
+   *
+   * @param journal journal to write to
+   * @param source  description of the input
+   * @return the run
+   * @throws Exception if the journal cannot be written
+   */
+  public static JournaledRun start(RunJournal journal, String source) throws Exception {
+    String runId = journal.startRun(source);
+    System.out.println("Run " + runId + " started (resume with --resume " + runId + ")");
+    return new JournaledRun(journal, runId, Set.of());
+  }
+
+  /**
+   * Resumes an interrupted run.
+   *
+   * @param journal journal to write to
+   * @param runId   id of the run to resume
+   * @return the run
+   * @throws IllegalArgumentException if the run does not exist or already completed
+   * @throws Exception if the journal cannot be accessed
+   */
+  public static JournaledRun resume(RunJournal journal, String runId) throws Exception {
+    long reachedOffset = journal.resumeRun(runId);
+    Set<String> completed = journal.completedLogins(runId);
+    System.out.println("Resuming run " + runId + ": " + completed.size()
+            + " logins already done, input offset was " + reachedOffset);
+    return new JournaledRun(journal, runId, completed);
+  }
+
+  /**
+   * Filters the input: completed logins are skipped and the offset is checkpointed.
+   * The returned iterator must be consumed by a single thread.
+   *
+   * @param logins input of the run
+   * @return logins that still need work
+   */
+  public Iterator<String> pending(Iterator<String> logins) {
+    return new Iterator<>() {
+      private String next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null && logins.hasNext()) {
+          String candidate = logins.next();
+          checkpoint(++offset);
+          if (!completed.contains(candidate.toLowerCase(Locale.ROOT))) {
+            next = candidate;
+          }
+        }
+        return next != null;
+      }
+
+      @Override
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        String login = next;
+        next = null;
+        return login;
+      }
+    };
+  }
+
+  /**
+   * Wraps the per-login task so failures are journaled before they are reported.
+   *
+   * @param task task to wrap
+   * @return journaling task
+   */
+  public BulkSync.LoginTask track(BulkSync.LoginTask task) {
+    return login -> {
+      try {
+        task.sync(login);
+      } catch (Exception failure) {
+        unsaved.add(new RunJournal.Item(login, RunJournal.ItemStatus.FAILED, failure.getMessage()));
+        throw failure;
+      }
+    };
+  }
+
+  /** Queues final statuses for the next checkpoint; intermediate stages are ignored. */
+  @Override
+  public void reached(String login, RunJournal.ItemStatus status) {
+    if (status.isDone()) {
+      unsaved.add(new RunJournal.Item(login, status, null));
+    }
+  }
+
+  /**
+   * Writes the pending statuses and the final offset, then closes the run.
+   * Must also be called when the run aborts, with a {@code null} summary.
+   *
+   * @param summary summary of the run, or {@code null} if it aborted
+   * @throws Exception if the journal cannot be written
+   */
+  public void finish(BulkSync.Summary summary) throws Exception {
+    journal.checkpoint(runId, offset, drain());
+    journal.finishRun(runId, summary != null && summary.getFailed() == 0);
+  }
+
+  private void checkpoint(long dispatched) {
+    if (dispatched % CHECKPOINT_EVERY != 0) {
+      return;
+    }
+    List<RunJournal.Item> items = drain();
+    try {
+      journal.checkpoint(runId, dispatched, items);
+    } catch (Exception exception) {
+      unsaved.addAll(items);
+      System.err.println("Could not checkpoint run " + runId + ": " + exception.getMessage());
+    }
+  }
+
+  private List<RunJournal.Item> drain() {
+    List<RunJournal.Item> items = new ArrayList<>();
+    RunJournal.Item item;
+    while ((item = unsaved.poll()) != null) {
+      items.add(item);
+    }
+    return items;
+  }
+}
@@ -0,0 +1,78 @@
+package org.example.craft.sync;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.craft.db.UserSnapshot;
+
+/**
+ * Transactional outbox of pending Freshdesk pushes.
+ * <p>
+ * {@link #enqueue} writes the {@code github_users} row and the pending push in one transaction,
+ * so a crash can never leave one without the other. The {@link OutboxDrainer} later pushes the
+ * entries to Freshdesk and acknowledges them. There is at most one entry per login; enqueueing
+ * again replaces its payload.
+ */
+public interface Outbox {
+
+  /** One pending push. */
+  @Getter
+  @RequiredArgsConstructor
+  final class Entry {
+    private final long id;
+    private final String login;
+
+    /** Fingerprint of {@link #payload}; acknowledging only succeeds while it is unchanged. */
+    private final String contactHash;
+
+    /** Contact as JSON in Freshdesk field names. */
+    private final String payload;
+
+    /** Failed push attempts so far. */
+    private final int attempts;
+  }
+
+  /**
+   * Persists the snapshot and queues its contact payload in one transaction.
+   *
+   * @param snapshot row for {@code github_users}, carrying the payload's fingerprint
+   * @param payload  contact as JSON
+   * @throws Exception if the transaction fails
+   */
+  void enqueue(UserSnapshot snapshot, String payload) throws Exception;
+
+  /**
+   * Reads the oldest entries that are due.
+   *
+   * @param limit maximum number of entries
+   * @return due entries, oldest first
+   * @throws Exception if the outbox cannot be read
+   */
+  List<Entry> due(int limit) throws Exception;
+
+  /**
+   * Removes a pushed entry, unless it was replaced by a newer payload in the meantime.
+   *
+   * @param entry pushed entry
+   * @throws Exception if the outbox cannot be written
+   */
+  void acknowledge(Entry entry) throws Exception;
+
+  /**
+   * Records a failed push and makes the entry due again after a delay.
+   *
+   * @param entry        failed entry
+   * @param delaySeconds seconds until the next attempt
+   * @param error        error message (truncated by the store)
+   * @throws Exception if the outbox cannot be written
+   */
+  void retryLater(Entry entry, int delaySeconds, String error) throws Exception;
+
+  /**
+   * Number of entries not pushed yet, due or delayed.
+   *
+   * @return pending entries
+   * @throws Exception if the outbox cannot be read
+   */
+  long pending() throws Exception;
+}
@@ -0,0 +1,154 @@
+package org.example.craft.sync;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.craft.freshdesk.ContactIndex;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.freshdesk.dto.FreshdeskContact;
+import org.example.craft.mapper.Json;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Pushes the entries of an {@link Outbox} to Freshdesk in the background.
+ * <p>
+ * A single drain thread reads due entries in batches of {@value #BATCH_SIZE} and pushes each
+ * batch with its own pool of {@code concurrency} workers, independent of how fast the sync
+ * workers fill the outbox. A pushed entry is acknowledged; a failed one is retried after an
+ * exponential delay of up to {@value #MAX_RETRY_DELAY_SECONDS} seconds. The next batch is
+ * only read after the previous one finished, so an entry is never pushed twice at the same
+ * time. Run one drainer per database.
+ * <p>
+ * {@link #close()} stops polling, then drains whatever is due before returning.
+ */
+public final class OutboxDrainer implements AutoCloseable {
+
+  /** Entries read per batch. */
+  public static final int BATCH_SIZE = 100;
+
+  /** Pause between polls while the outbox has nothing due. */
+  private static final long IDLE_POLL_MILLIS = 500;
+
+  /** Upper bound of the retry delay. */
+  private static final int MAX_RETRY_DELAY_SECONDS = 300;
+
+  private static final Counter PUSHED = MetricsRegistry.global().counter("outbox_pushes_total", "result", "pushed");
+  private static final Counter FAILED = MetricsRegistry.global().counter("outbox_pushes_total", "result", "retry");
+
+  private final Outbox outbox;
+  private final ContactPusher pusher;
+  private final ExecutorService workers;
+  private final ObjectReader contactReader = Json.mapper().readerFor(FreshdeskContact.class);
+  private final Thread drainThread;
+  private volatile boolean running = true;
+
+  /**
+   * Creates a drainer; call {@link #start()} to begin draining in the background.
+   *
+   * @param outbox          outbox to drain
+   * @param freshdeskClient Freshdesk API client
+   * @param contactIndex    contact id index, or {@code null}
+   * @param concurrency     Freshdesk pushes in flight at most
+   */
+  public OutboxDrainer(Outbox outbox, FreshdeskClient freshdeskClient, ContactIndex contactIndex, int concurrency) {
+    this.outbox = outbox;
+    this.pusher = new ContactPusher(freshdeskClient, contactIndex);
+    AtomicInteger threads = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+      Thread thread = new Thread(runnable, "outbox-push-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.drainThread = new Thread(this::pollLoop, "outbox-drain");
+    this.drainThread.setDaemon(true);
+  }
+
+  /**
+   * Starts the background drain thread.
+   *
+   * @return this drainer
+   */
+  public OutboxDrainer start() {
+    drainThread.start();
+    return this;
+  }
+
+  /**
+   * Pushes one batch of due entries and waits for all of them.
+   *
+   * @return number of entries processed (pushed or rescheduled)
+   * @throws Exception if the outbox cannot be read
+   */
+  public int drainOnce() throws Exception {
+    List<Outbox.Entry> entries = outbox.due(BATCH_SIZE);
+    List<Future<?>> pushes = new ArrayList<>(entries.size());
+    for (Outbox.Entry entry : entries) {
+      pushes.add(workers.submit(() -> {
+        pushEntry(entry);
+        return null;
+      }));
+    }
+    for (Future<?> push : pushes) {
+      push.get();
+    }
+    return entries.size();
+  }
+
+  /**
+   * Stops the drain thread and drains the entries that are due right now.
+   * Entries waiting for a retry stay in the outbox for the next drainer.
+   */
+  @Override
+  public void close() throws Exception {
+    running = false;
+    if (drainThread.isAlive()) {
+      drainThread.join(); // lets the current batch finish
+    }
+    try {
+      while (drainOnce() > 0) {
+        // drain until nothing is due
+      }
+    } finally {
+      workers.shutdown();
+    }
+  }
+
+  private void pollLoop() {
+    while (running) {
+      try {
+        if (drainOnce() == 0) {
+          Thread.sleep(IDLE_POLL_MILLIS);
+        }
+      } catch (InterruptedException e) {
+        return;
+      } catch (Exception e) {
+        System.err.println("Outbox drain failed: " + e);
+        try {
+          Thread.sleep(IDLE_POLL_MILLIS);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void pushEntry(Outbox.Entry entry) throws Exception {
+    try {
+      FreshdeskContact payload = contactReader.readValue(entry.getPayload());
+      pusher.push(payload, entry.getLogin());
+    } catch (Exception e) {
+      FAILED.increment();
+      int delaySeconds = (int) Math.min(MAX_RETRY_DELAY_SECONDS, 1L << Math.min(entry.getAttempts(), 30));
+      System.err.println("Outbox push for " + entry.getLogin() + " failed, retrying in " + delaySeconds + "s: " + e);
+      outbox.retryLater(entry, delaySeconds, String.valueOf(e));
+      return;
+    }
+    PUSHED.increment();
+    outbox.acknowledge(entry);
+  }
+}
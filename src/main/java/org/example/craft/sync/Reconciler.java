@@ -0,0 +1,155 @@
+package org.example.craft.sync;
+
+import java.util.Locale;
+import java.util.Map;
+import org.example.craft.db.SnapshotWriter;
+import org.example.craft.db.UserRepository;
+import org.example.craft.freshdesk.ContactDirectory;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.freshdesk.dto.FreshdeskContact;
+import org.example.craft.github.GitHubClient;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.mapper.Mapper;
+
+/**
+ * Full reconciliation: GitHub users are matched against a {@link ContactDirectory} scanned
+ * once from Freshdesk and against the contact hashes stored in {@code github_users}.
+ * <p>
+ * Unlike {@link UserSync} there is no per-user Freshdesk lookup: a user without a remote contact
+ * is created, a user whose remote contact differs is updated by id, and everything else costs no
+ * Freshdesk call at all. Remote contacts are compared by {@link ContactDirectory#remoteHash}, which
+ * ignores how Freshdesk may reformat the fields it stores. The row in {@code github_users} is
+ * written only when its stored hash differs from the mapped contact. Freshdesk traffic drops from
+ * one or two lookups per user to one page read per {@value FreshdeskClient#PAGE_SIZE} contacts.
+ * <p>
+ * Stages and outcomes are recorded in the same series as {@link UserSync}, contacts are pushed
+ * through the same {@link ContactPusher}, and concurrent runs for the same login share one
+ * execution with it. Instances can be shared by concurrent workers.
+ */
+public final class Reconciler {
+
+  private final GitHubClient githubClient;
+  private final ContactPusher pusher;
+  private final ContactDirectory remote;
+
+  /** Stored contact hash by lower-cased login, see {@link UserRepository#contactHashes()}. */
+  private final Map<String, String> storedHashes;
+
+  /** Where changed snapshots are written, or {@code null} without a DB. */
+  private final SnapshotWriter snapshotWriter;
+
+  private final SyncListener listener;
+
+  /**
+   * Creates a reconciler over an existing scan.
+   *
+   * @param githubClient    GitHub API client
+   * @param freshdeskClient Freshdesk API client
+   * @param remote          scanned Freshdesk contacts
+   * @param storedHashes    stored contact hash by lower-cased login
+   * @param repository      repository used as contact index, or {@code null}
+   * @param snapshotWriter  where changed snapshots are written, or {@code null}
+   * @param listener        notified when a login is done
+   */
+  public Reconciler(GitHubClient githubClient, FreshdeskClient freshdeskClient, ContactDirectory remote,
+                    Map<String, String> storedHashes, UserRepository repository,
+                    SnapshotWriter snapshotWriter, SyncListener listener) {
+    this.githubClient = githubClient;
+    this.pusher = new ContactPusher(freshdeskClient, repository);
+    this.remote = remote;
+    this.storedHashes = storedHashes;
+    this.snapshotWriter = snapshotWriter;
+    this.listener = listener;
+  }
+
+  /**
+   * Scans Freshdesk and loads the stored hashes, then creates the reconciler.
+   *
+   * @param githubClient    GitHub API client
+   * @param freshdeskClient Freshdesk API client
+   * @param repository      repository with the stored hashes
+   * @param snapshotWriter  where changed snapshots are written
+   * @param listener        notified when a login is done
+   * @return reconciler ready for the users of the source
+   * @throws Exception if the scan or the DB read fails
+   */
+  public static Reconciler prepare(GitHubClient githubClient, FreshdeskClient freshdeskClient,
+                                   UserRepository repository, SnapshotWriter snapshotWriter,
+                                   SyncListener listener) throws Exception {
+    long startedAt = System.nanoTime();
+    ContactDirectory remote = ContactDirectory.scan(freshdeskClient);
+    Map<String, String> storedHashes = repository.contactHashes();
+    System.out.printf("Scanned %d GitHub contacts in %d Freshdesk pages and %d stored rows in %d ms%n",
+            remote.size(), remote.getPages(), storedHashes.size(), (System.nanoTime() - startedAt) / 1_000_000);
+    return new Reconciler(githubClient, freshdeskClient, remote, storedHashes, repository, snapshotWriter, listener);
+  }
+
+  /**
+   * Fetches one login from GitHub and reconciles it.
+   *
+   * @param login GitHub login
+   * @return whether the Freshdesk contact was created, updated, or left unchanged
+   * @throws Exception if any I/O, DB, or API operation fails
+   */
+  public UserSync.Outcome reconcile(String login) throws Exception {
+    return UserSync.IN_FLIGHT.run(login.toLowerCase(Locale.ROOT), () -> fetchAndReconcile(login),
+            outcome -> UserSync.reportJoined(listener, login, outcome));
+  }
+
+  /**
+   * Reconciles a user that was already fetched from GitHub.
+   *
+   * @param githubUser GitHub user
+   * @return whether the Freshdesk contact was created, updated, or left unchanged
+   * @throws Exception if any I/O, DB, or API operation fails
+   */
+  public UserSync.Outcome reconcile(GitHubUser githubUser) throws Exception {
+    return UserSync.IN_FLIGHT.run(githubUser.getLogin().toLowerCase(Locale.ROOT), () -> reconcileFetched(githubUser),
+            outcome -> UserSync.reportJoined(listener, githubUser.getLogin(), outcome));
+  }
+
+  private UserSync.Outcome fetchAndReconcile(String login) throws Exception {
+    long startedAt = System.nanoTime();
+    GitHubUser githubUser = githubClient.getUser(login);
+    UserSync.GITHUB_STAGE.observeSince(startedAt);
+    return reconcileFetched(githubUser);
+  }
+
+  private UserSync.Outcome reconcileFetched(GitHubUser githubUser) throws Exception {
+    String login = githubUser.getLogin();
+    FreshdeskContact payload = Mapper.map(githubUser);
+    String contactHash = Mapper.fingerprint(payload);
+
+    UserSync.Outcome outcome = UserSync.Outcome.UNCHANGED;
+    ContactDirectory.Entry entry = remote.claim(login);
+    if (entry == null || entry.getHash() != ContactDirectory.remoteHash(payload)) {
+      long startedAt = System.nanoTime();
+      outcome = pusher.push(payload, login, entry != null ? entry.getId() : null);
+      UserSync.FRESHDESK_STAGE.observeSince(startedAt);
+    }
+
+    boolean stored = contactHash.equals(storedHashes.get(login.toLowerCase(Locale.ROOT)));
+    boolean deferred = false;
+    if (snapshotWriter != null && !stored) {
+      long startedAt = System.nanoTime();
+      snapshotWriter.write(UserSync.snapshotOf(githubUser, contactHash));
+      UserSync.DB_STAGE.observeSince(startedAt);
+      deferred = snapshotWriter.isDeferred(); // the writer reports PERSISTED once the row is committed
+    }
+    if (!deferred) {
+      listener.reached(login, outcome == UserSync.Outcome.UNCHANGED && stored
+              ? RunJournal.ItemStatus.UNCHANGED : RunJournal.ItemStatus.PERSISTED);
+    }
+    UserSync.OUTCOMES.get(outcome).increment();
+    return outcome;
+  }
+
+  /**
+   * Number of scanned contacts that no reconciled user matched so far.
+   *
+   * @return unmatched GitHub contacts in Freshdesk
+   */
+  public int unmatchedContacts() {
+    return remote.unclaimed();
+  }
+}
@@ -0,0 +1,101 @@
+package org.example.craft.sync;
+
+import java.util.Collection;
+import java.util.Set;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Persistent progress of bulk runs, so an interrupted run can be resumed.
+ * <p>
+ * A run has an id, a description of its input, a status and the offset up to which the
+ * input was consumed. Every finished login of a run has its own {@link ItemStatus}.
+ * Logins are journaled case-insensitively, like GitHub treats them.
+ * <p>
+ * The items of a run are deleted once it completes, and the items of any run started more than
+ * {@value #ITEM_RETENTION_DAYS} days ago are deleted when a new run starts.
+ */
+public interface RunJournal {
+
+  /** Days after which the items of a run that never completed are pruned. */
+  int ITEM_RETENTION_DAYS = 30;
+
+  /** Final status of one login within a run. */
+  enum ItemStatus {
+    /** Snapshot written to the DB; the login is done. */
+    PERSISTED,
+    /** Contact was unchanged and skipped; the login is done. */
+    UNCHANGED,
+    /** Sync failed; retried on resume. */
+    FAILED;
+
+    /**
+     * Whether a login in this state needs no more work.
+     *
+     * @return {@code true} for {@link #PERSISTED} and {@link #UNCHANGED}
+     */
+    public boolean isDone() {
+      return this == PERSISTED || this == UNCHANGED;
+    }
+  }
+
+  /** Final status of one login, as written by {@link #checkpoint}. */
+  @Getter
+  @RequiredArgsConstructor
+  final class Item {
+    /** GitHub login. */
+    private final String login;
+    /** Final status. */
+    private final ItemStatus status;
+    /** Error message for {@link ItemStatus#FAILED}, otherwise {@code null}. */
+    private final String error;
+  }
+
+  /**
+   * Registers a new run and prunes the items of old runs.
+   *
+   * @param source description of the input (e.g., "users-file:logins.txt")
+   * @return the new run id
+   * @throws Exception if the journal cannot be written
+   */
+  String startRun(String source) throws Exception;
+
+  /**
+   * Marks an existing run as running again.
+   *
+   * @param runId id of the run to resume
+   * @return input offset the run had reached
+   * @throws IllegalArgumentException if the run does not exist or already completed
+   * @throws Exception if the journal cannot be accessed
+   */
+  long resumeRun(String runId) throws Exception;
+
+  /**
+   * Returns the logins of a run that need no more work (see {@link ItemStatus#isDone()}).
+   *
+   * @param runId run id
+   * @return lower-cased logins
+   * @throws Exception if the journal cannot be read
+   */
+  Set<String> completedLogins(String runId) throws Exception;
+
+  /**
+   * Records the final status of a batch of logins and how far the input was consumed,
+   * in one transaction.
+   *
+   * @param runId  run id
+   * @param offset number of logins consumed from the input
+   * @param items  logins that finished since the last checkpoint
+   * @throws Exception if the journal cannot be written
+   */
+  void checkpoint(String runId, long offset, Collection<Item> items) throws Exception;
+
+  /**
+   * Closes a run. The items of a completed run are no longer needed and are deleted.
+   *
+   * @param runId     run id
+   * @param completed {@code true} if every login succeeded, {@code false} if some failed or the run aborted
+   * @throws Exception if the journal cannot be written
+   */
+  void finishRun(String runId, boolean completed) throws Exception;
+}
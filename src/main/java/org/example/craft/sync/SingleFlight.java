@@ -0,0 +1,109 @@
+package org.example.craft.sync;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Collapses concurrent executions for the same key into one.
+ * <p>
+ * The first caller for a key registers a future in a {@link ConcurrentHashMap} (striped, no global
+ * lock) and runs the work; callers arriving while it runs wait for that future and get the same
+ * result or exception. The entry is removed when the work completes, so a later call runs again.
+ * Nothing is cached beyond the flight itself.
+ * <p>
+ * The work must not re-enter {@link #run} with the same key on the same thread, since it would
+ * wait for itself.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public final class SingleFlight<K, V> {
+
+  private static final Counter SHARED = MetricsRegistry.global().counter("sync_single_flight_shared_total");
+
+  /** Receives the result of an execution a caller joined instead of running it. */
+  @FunctionalInterface
+  public interface Joined<V> {
+    /**
+     * Called on the joining caller's thread once the shared execution succeeded.
+     *
+     * @param result shared result
+     * @throws Exception if handling the result fails; thrown to the joining caller
+     */
+    void accept(V result) throws Exception;
+  }
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Runs the work for a key, or joins the execution already running for it.
+   *
+   * @param key  de-duplication key
+   * @param work work to run if no execution for the key is in flight
+   * @return result of the (possibly shared) execution
+   * @throws Exception the exception of the (possibly shared) execution
+   */
+  public V run(K key, Callable<V> work) throws Exception {
+    return run(key, work, result -> { });
+  }
+
+  /**
+   * Runs the work for a key, or joins the execution already running for it. Side effects of the
+   * work happen only for the caller that ran it; {@code joined} lets a joining caller do its own.
+   *
+   * @param key    de-duplication key
+   * @param work   work to run if no execution for the key is in flight
+   * @param joined called with the shared result if this caller joined a running execution
+   * @return result of the (possibly shared) execution
+   * @throws Exception the exception of the (possibly shared) execution, or of {@code joined}
+   */
+  public V run(K key, Callable<V> work, Joined<V> joined) throws Exception {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+    if (running != null) {
+      SHARED.increment();
+      V result = await(running);
+      joined.accept(result);
+      return result;
+    }
+    try {
+      V result = work.call();
+      flight.complete(result);
+      return result;
+    } catch (Throwable failure) {
+      flight.completeExceptionally(failure);
+      throw failure;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  /**
+   * Number of keys currently in flight.
+   *
+   * @return executions running
+   */
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  private static <V> V await(CompletableFuture<V> running) throws Exception {
+    try {
+      return running.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception exception) {
+        throw exception;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package org.example.craft.sync;
+
+/**
+ * Receives the final status of every login that {@link UserSync} finished. A deferred
+ * {@link org.example.craft.db.SnapshotWriter} reports {@link RunJournal.ItemStatus#PERSISTED} itself,
+ * once the row is committed.
+ */
+@FunctionalInterface
+public interface SyncListener {
+
+  /** Listener that ignores all statuses. */
+  SyncListener NONE = (login, status) -> { };
+
+  /**
+   * Called when a login is done.
+   *
+   * @param login  GitHub login as returned by GitHub
+   * @param status final status; never {@link RunJournal.ItemStatus#FAILED}
+   * @throws Exception if recording the status fails (fails the login)
+   */
+  void reached(String login, RunJournal.ItemStatus status) throws Exception;
+}
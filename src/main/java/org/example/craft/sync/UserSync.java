@@ -0,0 +1,262 @@
+package org.example.craft.sync;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import org.example.craft.db.SnapshotWriter;
+import org.example.craft.db.UserRepository;
+import org.example.craft.db.UserSnapshot;
+import org.example.craft.freshdesk.ContactIndex;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.freshdesk.dto.FreshdeskContact;
+import org.example.craft.github.GitHubClient;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.mapper.Json;
+import org.example.craft.mapper.Mapper;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.Histogram;
+import org.example.craft.metrics.MetricsRegistry;
+
+/**
+ * Synchronizes a single GitHub login: GitHub → Freshdesk → DB.
+ * <p>
+ * The mapped contact is fingerprinted ({@link Mapper#fingerprint(FreshdeskContact)}) and the
+ * fingerprint is stored with the {@code github_users} row after a successful push. When the
+ * stored fingerprint matches, the Freshdesk lookup, the create/update and the DB write are skipped.
+ * Known contacts are updated by id through the repository's {@link ContactIndex}. With an
+ * {@link Outbox} the push is decoupled: the row and the pending push are committed together
+ * and an {@link OutboxDrainer} pushes at its own pace.
+ * <p>
+ * Each stage (GitHub fetch, Freshdesk push, DB) is timed in {@code sync_stage_seconds} and
+ * every outcome is counted in {@code sync_contacts_total}.
+ * <p>
+ * Concurrent syncs of the same login (duplicates in the input, overlapping jobs) share one
+ * execution through the process-wide {@link #IN_FLIGHT}, so they cannot both miss the lookup
+ * and both create the contact. A caller that joined another one's execution still has its own
+ * listener told the final status (see {@link #reportJoined}).
+ * <p>
+ * Instances hold no per-user state and can be shared by concurrent workers,
+ * as long as the supplied clients and repository are thread-safe.
+ */
+public final class UserSync {
+
+  /** What happened to the Freshdesk contact of a synced user; {@code QUEUED} means written to the outbox. */
+  public enum Outcome { CREATED, UPDATED, UNCHANGED, QUEUED }
+
+  // Stage timers and outcome counters, shared with Reconciler
+  static final Histogram GITHUB_STAGE =
+          MetricsRegistry.global().histogram("sync_stage_seconds", "stage", "github");
+  static final Histogram FRESHDESK_STAGE =
+          MetricsRegistry.global().histogram("sync_stage_seconds", "stage", "freshdesk");
+  static final Histogram DB_STAGE =
+          MetricsRegistry.global().histogram("sync_stage_seconds", "stage", "db");
+  static final Map<Outcome, Counter> OUTCOMES = new EnumMap<>(Outcome.class);
+  private static final ObjectWriter PAYLOAD_WRITER = Json.mapper().writerFor(FreshdeskContact.class);
+
+  static {
+    for (Outcome outcome : Outcome.values()) {
+      OUTCOMES.put(outcome, MetricsRegistry.global()
+              .counter("sync_contacts_total", "outcome", outcome.name().toLowerCase(Locale.ROOT)));
+    }
+  }
+
+  /** In-flight syncs by lower-cased login, shared by every {@link UserSync} and {@link Reconciler}. */
+  static final SingleFlight<String, Outcome> IN_FLIGHT = new SingleFlight<>();
+
+  private final GitHubClient githubClient;
+
+  /** Repository used for persistence, or {@code null} to skip the DB step. */
+  private final UserRepository repository;
+
+  /** Where snapshots are written: the repository itself or a write-behind buffer in front of it. */
+  private final SnapshotWriter snapshotWriter;
+
+  /** Notified when a login is done, e.g. to journal the progress of a bulk run. */
+  private final SyncListener listener;
+
+  /** Outbox that takes the Freshdesk push off the sync path, or {@code null} to push inline. */
+  private final Outbox outbox;
+
+  private final ContactPusher pusher;
+
+  /**
+   * Creates a sync.
+   *
+   * @param githubClient    GitHub API client
+   * @param freshdeskClient Freshdesk API client
+   * @param repository      repository, or {@code null} to skip the DB step
+   * @param snapshotWriter  where snapshots are written, or {@code null} to skip the DB step
+   * @param listener        notified when a login is done
+   */
+  public UserSync(GitHubClient githubClient, FreshdeskClient freshdeskClient, UserRepository repository,
+                  SnapshotWriter snapshotWriter, SyncListener listener) {
+    this(githubClient, freshdeskClient, repository, snapshotWriter, listener, null);
+  }
+
+  /**
+   * Creates a sync that hands changed contacts to an outbox instead of pushing them.
+   * <p>
+   * With an outbox the snapshot and the pending push are written in one transaction and the
+   * {@code snapshotWriter} is not used; an {@link OutboxDrainer} pushes to Freshdesk later.
+   *
+   * @param githubClient    GitHub API client
+   * @param freshdeskClient Freshdesk API client
+   * @param repository      repository, or {@code null} to skip the DB step
+   * @param snapshotWriter  where snapshots are written without an outbox, or {@code null}
+   * @param listener        notified when a login is done
+   * @param outbox          outbox for the Freshdesk pushes, or {@code null} to push inline
+   */
+  public UserSync(GitHubClient githubClient, FreshdeskClient freshdeskClient, UserRepository repository,
+                  SnapshotWriter snapshotWriter, SyncListener listener, Outbox outbox) {
+    this.githubClient = githubClient;
+    this.repository = repository;
+    this.snapshotWriter = snapshotWriter;
+    this.listener = listener;
+    this.outbox = outbox;
+    this.pusher = new ContactPusher(freshdeskClient, repository);
+  }
+
+  /**
+   * Creates a sync without a stage listener.
+   *
+   * @param githubClient    GitHub API client
+   * @param freshdeskClient Freshdesk API client
+   * @param repository      repository, or {@code null} to skip the DB step
+   * @param snapshotWriter  where snapshots are written, or {@code null} to skip the DB step
+   */
+  public UserSync(GitHubClient githubClient, FreshdeskClient freshdeskClient, UserRepository repository,
+                  SnapshotWriter snapshotWriter) {
+    this(githubClient, freshdeskClient, repository, snapshotWriter, SyncListener.NONE);
+  }
+
+  /**
+   * Creates a sync that writes every snapshot straight to the repository.
+   *
+   * @param githubClient    GitHub API client
+   * @param freshdeskClient Freshdesk API client
+   * @param repository      repository, or {@code null} to skip the DB step
+   */
+  public UserSync(GitHubClient githubClient, FreshdeskClient freshdeskClient, UserRepository repository) {
+    this(githubClient, freshdeskClient, repository, repository == null ? null : repository::upsert);
+  }
+
+  /**
+   * Runs the full flow for one login.
+   *
+   * @param login GitHub login (e.g., "octocat")
+   * @return whether the Freshdesk contact was created, updated, or left unchanged
+   * @throws Exception if any I/O, DB, or API operation fails
+   */
+  public Outcome sync(String login) throws Exception {
+    return IN_FLIGHT.run(login.toLowerCase(Locale.ROOT), () -> fetchAndSync(login),
+            outcome -> reportJoined(listener, login, outcome));
+  }
+
+  /**
+   * Runs the flow for a user that was already fetched from GitHub (e.g., by a batch lookup).
+   *
+   * @param githubUser GitHub user
+   * @return whether the Freshdesk contact was created, updated, or left unchanged
+   * @throws Exception if any I/O, DB, or API operation fails
+   */
+  public Outcome sync(GitHubUser githubUser) throws Exception {
+    return IN_FLIGHT.run(githubUser.getLogin().toLowerCase(Locale.ROOT), () -> syncFetched(githubUser),
+            outcome -> reportJoined(listener, githubUser.getLogin(), outcome));
+  }
+
+  private Outcome fetchAndSync(String login) throws Exception {
+    // 1. GitHub → user
+    long startedAt = System.nanoTime();
+    GitHubUser githubUser = githubClient.getUser(login);
+    GITHUB_STAGE.observeSince(startedAt);
+    return syncFetched(githubUser);
+  }
+
+  private Outcome syncFetched(GitHubUser githubUser) throws Exception {
+    FreshdeskContact payload = Mapper.map(githubUser);
+    String contactHash = Mapper.fingerprint(payload);
+
+    // 2. Skip everything if the contact did not change since the last push
+    long startedAt;
+    if (repository != null) {
+      startedAt = System.nanoTime();
+      UserSnapshot stored = repository.findByLogin(githubUser.getLogin());
+      DB_STAGE.observeSince(startedAt);
+      if (stored != null && contactHash.equals(stored.getContactHash())) {
+        System.out.println("Unchanged contact for " + githubUser.getLogin());
+        OUTCOMES.get(Outcome.UNCHANGED).increment();
+        listener.reached(githubUser.getLogin(), RunJournal.ItemStatus.UNCHANGED);
+        return Outcome.UNCHANGED;
+      }
+    }
+
+    // 3a. Outbox: persist the row and the pending push together, push later
+    if (outbox != null) {
+      startedAt = System.nanoTime();
+      outbox.enqueue(snapshotOf(githubUser, contactHash), PAYLOAD_WRITER.writeValueAsString(payload));
+      DB_STAGE.observeSince(startedAt);
+      listener.reached(githubUser.getLogin(), RunJournal.ItemStatus.PERSISTED);
+      OUTCOMES.get(Outcome.QUEUED).increment();
+      return Outcome.QUEUED;
+    }
+
+    // 3. Freshdesk create/update
+    startedAt = System.nanoTime();
+    Outcome outcome = pusher.push(payload, githubUser.getLogin());
+    FRESHDESK_STAGE.observeSince(startedAt);
+
+    // 4. Persist in the DB together with the fingerprint of what was pushed
+    if (snapshotWriter != null) {
+      startedAt = System.nanoTime();
+      persistUser(snapshotWriter, githubUser, contactHash);
+      DB_STAGE.observeSince(startedAt);
+      if (!snapshotWriter.isDeferred()) {
+        listener.reached(githubUser.getLogin(), RunJournal.ItemStatus.PERSISTED); // else the writer reports it
+      }
+    }
+    OUTCOMES.get(outcome).increment();
+    return outcome;
+  }
+
+  /**
+   * Tells a caller's listener the final status of an execution it joined; the caller that ran it
+   * only notified its own listener. The row went through the executing caller's writer or outbox,
+   * so it is reported as persisted whatever writer the joining caller has.
+   *
+   * @param listener listener of the joining caller
+   * @param login    GitHub login
+   * @param outcome  shared outcome
+   * @throws Exception if the listener fails
+   */
+  static void reportJoined(SyncListener listener, String login, Outcome outcome) throws Exception {
+    listener.reached(login, outcome == Outcome.UNCHANGED
+            ? RunJournal.ItemStatus.UNCHANGED : RunJournal.ItemStatus.PERSISTED);
+  }
+
+  /**
+   * Persists a {@link GitHubUser} into the repository as a {@link UserSnapshot}.
+   *
+   * @param writer      repository or write-behind buffer
+   * @param githubUser  GitHub user to persist
+   * @param contactHash fingerprint of the contact that was pushed to Freshdesk
+   * @throws Exception if SQL operation fails
+   */
+  private static void persistUser(SnapshotWriter writer, GitHubUser githubUser, String contactHash)
+          throws Exception {
+    writer.write(snapshotOf(githubUser, contactHash));
+  }
+
+  /**
+   * Builds the {@code github_users} row of a user; the name falls back to the login.
+   *
+   * @param githubUser  GitHub user
+   * @param contactHash fingerprint of the contact that was pushed to Freshdesk
+   * @return snapshot to persist
+   */
+  static UserSnapshot snapshotOf(GitHubUser githubUser, String contactHash) {
+    String name = (githubUser.getName() != null && !githubUser.getName().isBlank())
+            ? githubUser.getName() : githubUser.getLogin();
+    return new UserSnapshot(githubUser.getLogin(), name, githubUser.getCreatedAt(), contactHash);
+  }
+}
@@ -0,0 +1,149 @@
+package org.example.craft;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.craft.freshdesk.AdaptiveLimiter;
+import org.example.craft.http.SimpleHttp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AdaptiveLimiter}.
+ *
+ * <p>A fake {@link SimpleHttp.Transport} returns canned responses so the tests
+ * only observe how the limiter reacts to throttling feedback.</p>
+ */
+public class AdaptiveLimiterTest {
+
+  /**
+   * Verifies that a 429 is retried after {@code Retry-After} and halves the limit.
+   *
+   * <p>Input: one 429 with {@code Retry-After: 0}, then HTTP 200.</p>
+   * <p>Expected: caller sees the 200, limit drops from 8 to 4.</p>
+   */
+  @Test
+  void throttled_request_is_retried_and_limit_halved() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> calls.incrementAndGet() == 1
+            ? new SimpleHttp.Response(429, "", Map.of("Retry-After", List.of("0")))
+            : new SimpleHttp.Response(200, "{}");
+
+    AdaptiveLimiter limiter = new AdaptiveLimiter(fakeTransport, 8, 64, 5);
+    SimpleHttp.Response response = limiter.call("GET", "https://sub.freshdesk.com/api/v2/contacts", Map.of(), null);
+
+    assertEquals(200, response.getStatus());
+    assertEquals(2, calls.get());
+    assertEquals(4, limiter.getLimit());
+  }
+
+  /**
+   * Verifies that an exhausted {@code X-Ratelimit-Remaining} pauses requests instead of shrinking the limit.
+   *
+   * <p>Input: HTTP 200 with {@code X-Ratelimit-Remaining: 0}.</p>
+   * <p>Expected: limit stays at 8.</p>
+   */
+  @Test
+  void exhausted_budget_keeps_limit() throws Exception {
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) ->
+            new SimpleHttp.Response(200, "{}", Map.of("X-Ratelimit-Remaining", List.of("0")));
+
+    AdaptiveLimiter limiter = new AdaptiveLimiter(fakeTransport, 8, 64, 5);
+    limiter.call("GET", "https://sub.freshdesk.com/api/v2/contacts", Map.of(), null);
+
+    assertEquals(8, limiter.getLimit());
+  }
+
+  /**
+   * Verifies that latency is compared per endpoint, so a slow list endpoint is not taken for congestion.
+   *
+   * <p>Input: fast calls to {@code /contacts/1}, then slow (50 ms) calls to {@code /contacts}.</p>
+   * <p>Expected: limit stays at 8.</p>
+   */
+  @Test
+  void slow_endpoint_has_its_own_baseline() throws Exception {
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      if (u.endsWith("/contacts")) {
+        Thread.sleep(50);
+      }
+      return new SimpleHttp.Response(200, "[]");
+    };
+
+    AdaptiveLimiter limiter = new AdaptiveLimiter(fakeTransport, 8, 64, 5);
+    for (int i = 0; i < 3; i++) {
+      limiter.call("GET", "https://sub.freshdesk.com/api/v2/contacts/1", Map.of(), null);
+    }
+    for (int i = 0; i < 3; i++) {
+      limiter.call("GET", "https://sub.freshdesk.com/api/v2/contacts", Map.of(), null);
+    }
+
+    assertEquals(8, limiter.getLimit());
+  }
+
+  /**
+   * Verifies that the async path retries a 429 without blocking and halves the limit.
+   *
+   * <p>Input: one 429 with {@code Retry-After: 0}, then HTTP 200, through {@code callAsync}.</p>
+   * <p>Expected: future completes with the 200, limit drops from 8 to 4.</p>
+   */
+  @Test
+  void async_throttled_request_is_retried() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> calls.incrementAndGet() == 1
+            ? new SimpleHttp.Response(429, "", Map.of("Retry-After", List.of("0")))
+            : new SimpleHttp.Response(200, "{}");
+
+    AdaptiveLimiter limiter = new AdaptiveLimiter(fakeTransport, 8, 64, 5);
+    SimpleHttp.Response response = limiter
+            .callAsync("GET", "https://sub.freshdesk.com/api/v2/contacts", Map.of(), null)
+            .get(5, TimeUnit.SECONDS);
+
+    assertEquals(200, response.getStatus());
+    assertEquals(2, calls.get());
+    assertEquals(4, limiter.getLimit());
+  }
+
+  /**
+   * Verifies that a finishing blocking call hands its slot to a queued async caller.
+   *
+   * <p>Input: limit 1; a blocking call holds the slot while {@code callAsync} is queued behind it.</p>
+   * <p>Expected: the async call is not sent before the blocking one finishes, and completes after it.</p>
+   */
+  @Test
+  void blocking_call_admits_queued_async_caller() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch proceed = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      if (calls.incrementAndGet() == 1) {
+        entered.countDown();
+        proceed.await();
+      }
+      return new SimpleHttp.Response(200, "{}");
+    };
+    AdaptiveLimiter limiter = new AdaptiveLimiter(fakeTransport, 1, 1, 5);
+
+    CompletableFuture<SimpleHttp.Response> blocking = CompletableFuture.supplyAsync(() -> {
+      try {
+        return limiter.call("GET", "https://sub.freshdesk.com/api/v2/contacts/1", Map.of(), null);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    CompletableFuture<SimpleHttp.Response> queued =
+            limiter.callAsync("GET", "https://sub.freshdesk.com/api/v2/contacts/2", Map.of(), null);
+    assertFalse(queued.isDone());
+    assertEquals(1, calls.get());
+
+    proceed.countDown();
+
+    assertEquals(200, blocking.get(5, TimeUnit.SECONDS).getStatus());
+    assertEquals(200, queued.get(5, TimeUnit.SECONDS).getStatus());
+    assertEquals(2, calls.get());
+  }
+}
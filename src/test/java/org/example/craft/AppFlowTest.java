@@ -1,12 +1,30 @@
 package org.example.craft;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import org.example.craft.db.UserRepository;
+import org.example.craft.db.UserSnapshot;
+import org.example.craft.freshdesk.ContactNotFoundException;
 import org.example.craft.freshdesk.FreshdeskClient;
 import org.example.craft.freshdesk.dto.FreshdeskContact;
 import org.example.craft.github.GitHubClient;
 import org.example.craft.github.dto.GitHubUser;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.example.craft.mapper.Mapper;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.sync.RunJournal;
+import org.example.craft.sync.SyncListener;
+import org.example.craft.sync.UserSync;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -78,4 +96,112 @@ public class AppFlowTest {
         verify(freshdeskClient).update(eq("777"), any());
         verify(freshdeskClient, never()).create(any());
     }
+
+    /**
+     * Scenario: the contact mapped from GitHub has the same fingerprint as the one stored
+     * with the {@code github_users} row.
+     * <p>
+     * Expected: no Freshdesk call and no DB write; the outcome is {@code UNCHANGED}.
+     */
+    @Test
+    void skips_when_contact_unchanged() throws Exception {
+        GitHubClient githubClient = mock(GitHubClient.class);
+        FreshdeskClient freshdeskClient = mock(FreshdeskClient.class);
+        UserRepository repo = mock(UserRepository.class);
+
+        GitHubUser githubUser = new GitHubUser();
+        githubUser.setLogin("octo");
+        githubUser.setName("Octo");
+        when(githubClient.getUser("octo")).thenReturn(githubUser);
+        String hash = Mapper.fingerprint(Mapper.map(githubUser));
+        when(repo.findByLogin("octo")).thenReturn(new UserSnapshot("octo", "Octo", null, hash));
+
+        UserSync.Outcome outcome = new UserSync(githubClient, freshdeskClient, repo).sync("octo");
+
+        assertEquals(UserSync.Outcome.UNCHANGED, outcome);
+        verifyNoInteractions(freshdeskClient);
+        verify(repo, never()).upsert(any());
+    }
+
+    /**
+     * Scenario: the contact id is known from the local index, but that contact
+     * was deleted in Freshdesk.
+     * <p>
+     * Expected: the indexed id is tried first, the 404 drops it from the index, and the
+     * flow falls back to the external-id lookup and records the new id.
+     */
+    @Test
+    void falls_back_to_lookup_when_indexed_contact_is_gone() throws Exception {
+        GitHubClient githubClient = mock(GitHubClient.class);
+        FreshdeskClient freshdeskClient = mock(FreshdeskClient.class);
+        UserRepository repo = mock(UserRepository.class);
+
+        GitHubUser githubUser = new GitHubUser();
+        githubUser.setLogin("octo");
+        when(githubClient.getUser("octo")).thenReturn(githubUser);
+        when(repo.findContactId("github:octo")).thenReturn(555L);
+        when(freshdeskClient.update(eq("555"), any())).thenThrow(new ContactNotFoundException("555"));
+        when(freshdeskClient.findByExternalId("github:octo")).thenReturn(null);
+        when(freshdeskClient.create(any())).thenReturn("556");
+
+        UserSync.Outcome outcome = new UserSync(githubClient, freshdeskClient, repo).sync("octo");
+
+        assertEquals(UserSync.Outcome.CREATED, outcome);
+        verify(repo).removeContactId("github:octo");
+        verify(repo).putContactId("github:octo", 556L);
+    }
+
+    /**
+     * Scenario: two callers sync the same login at the same time, each with its own listener.
+     * <p>
+     * Expected: the contact is created once, and both listeners are told PERSISTED, including the
+     * one of the caller that joined the running sync.
+     */
+    @Test
+    void joined_sync_notifies_its_own_listener() throws Exception {
+        GitHubClient githubClient = mock(GitHubClient.class);
+        FreshdeskClient freshdeskClient = mock(FreshdeskClient.class);
+        UserRepository repo = mock(UserRepository.class);
+        Counter shared = MetricsRegistry.global().counter("sync_single_flight_shared_total");
+        long sharedBefore = shared.get();
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        GitHubUser githubUser = new GitHubUser();
+        githubUser.setLogin("octo");
+        when(githubClient.getUser("octo")).thenAnswer(invocation -> {
+            fetching.countDown();
+            release.await();
+            return githubUser;
+        });
+        when(repo.findContactId("github:octo")).thenReturn(null);
+        when(freshdeskClient.create(any())).thenReturn("123");
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+        SyncListener firstListener = (login, status) -> first.add(login + " " + status);
+        SyncListener secondListener = (login, status) -> second.add(login + " " + status);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<UserSync.Outcome> running = pool.submit(() ->
+                    new UserSync(githubClient, freshdeskClient, repo, repo::upsert, firstListener).sync("octo"));
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            Future<UserSync.Outcome> joined = pool.submit(() ->
+                    new UserSync(githubClient, freshdeskClient, repo, repo::upsert, secondListener).sync("OCTO"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (shared.get() == sharedBefore && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals(UserSync.Outcome.CREATED, running.get(5, TimeUnit.SECONDS));
+            assertEquals(UserSync.Outcome.CREATED, joined.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(freshdeskClient, times(1)).create(any());
+        assertEquals(List.of("octo " + RunJournal.ItemStatus.PERSISTED), first);
+        assertEquals(List.of("OCTO " + RunJournal.ItemStatus.PERSISTED), second);
+    }
 }
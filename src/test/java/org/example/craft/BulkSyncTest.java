@@ -0,0 +1,70 @@
+package org.example.craft;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.craft.sync.BulkSync;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BulkSync}.
+ *
+ * <p>The per-login task is a plain lambda, so no HTTP or DB is involved.</p>
+ */
+public class BulkSyncTest {
+
+  /**
+   * Verifies that {@link BulkSync#lines(BufferedReader)} trims logins
+   * and skips blank lines and {@code #} comments.
+   */
+  @Test
+  void lines_skips_blanks_and_comments() {
+    BufferedReader reader = new BufferedReader(new StringReader("octo\n\n# team\n  hubot \n"));
+
+    List<String> logins = new ArrayList<>();
+    BulkSync.lines(reader).forEachRemaining(logins::add);
+
+    assertEquals(List.of("octo", "hubot"), logins);
+  }
+
+  /**
+   * Verifies that every login is processed, failures are counted without aborting the run,
+   * and no more than {@code concurrency} tasks run at the same time.
+   */
+  @Test
+  void runs_all_logins_under_concurrency_cap() throws Exception {
+    List<String> input = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      input.add("user" + i);
+    }
+    List<String> seen = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    Iterator<String> logins = input.iterator();
+    BulkSync.Summary summary = new BulkSync(4).run(logins, login -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(2);
+        seen.add(login);
+        if (login.equals("user7")) {
+          throw new IllegalStateException("boom");
+        }
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    });
+
+    assertEquals(50, summary.getTotal());
+    assertEquals(1, summary.getFailed());
+    assertEquals(50, seen.size());
+    assertTrue(maxInFlight.get() <= 4);
+    assertTrue(summary.percentileNanos(50) <= summary.percentileNanos(100));
+  }
+}
@@ -0,0 +1,28 @@
+package org.example.craft;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CdsArchive}.
+ */
+public class CdsArchiveTest {
+
+  /**
+   * Verifies that the training run is the same jar and options with the archive dump switched on.
+   *
+   * <p>Input: archive "craft.jsa", options "--user octocat --subdomain mycompany".</p>
+   * <p>Expected: {@code java -XX:ArchiveClassesAtExit=craft.jsa -jar craft.jar --user octocat --subdomain mycompany}.</p>
+   */
+  @Test
+  void record_command_runs_jar_with_archive_dump() {
+    List<String> command = CdsArchive.recordCommand(Path.of("java"), Path.of("craft.jar"), Path.of("craft.jsa"),
+            List.of("--user", "octocat", "--subdomain", "mycompany"));
+
+    assertEquals(List.of("java", "-XX:ArchiveClassesAtExit=craft.jsa", "-jar", "craft.jar",
+            "--user", "octocat", "--subdomain", "mycompany"), command);
+  }
+}
@@ -0,0 +1,86 @@
+package org.example.craft;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.craft.http.CircuitBreakerTransport;
+import org.example.craft.http.CircuitOpenException;
+import org.example.craft.http.SimpleHttp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CircuitBreakerTransport}.
+ *
+ * <p>A fake {@link SimpleHttp.Transport} answers with a configurable status and a fake
+ * clock controls when an open circuit allows a trial call.</p>
+ */
+public class CircuitBreakerTransportTest {
+
+  /**
+   * Verifies open → half-open → closed for one host while other hosts are unaffected.
+   *
+   * <p>Input: two 502s from Freshdesk (threshold 2), then time passes and it recovers.</p>
+   * <p>Expected: the third Freshdesk call fails fast, GitHub still passes,
+   * the trial after the open period succeeds and closes the circuit.</p>
+   */
+  @Test
+  void failing_host_trips_and_recovers() throws Exception {
+    AtomicInteger status = new AtomicInteger(502);
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      calls.incrementAndGet();
+      return new SimpleHttp.Response(u.contains("github") ? 200 : status.get(), "");
+    };
+    AtomicLong now = new AtomicLong(0);
+    CircuitBreakerTransport transport = new CircuitBreakerTransport(fakeTransport, 2, 1000, now::get);
+    String freshdesk = "https://sub.freshdesk.com/api/v2/contacts";
+
+    transport.call("GET", freshdesk, Map.of(), null);
+    transport.call("GET", freshdesk, Map.of(), null);
+    assertThrows(CircuitOpenException.class, () -> transport.call("GET", freshdesk, Map.of(), null));
+    assertEquals(200, transport.call("GET", "https://api.github.com/users/octo", Map.of(), null).getStatus());
+    assertEquals(3, calls.get());
+
+    now.set(1000);
+    status.set(200);
+    assertEquals(200, transport.call("GET", freshdesk, Map.of(), null).getStatus());
+    assertEquals(200, transport.call("GET", freshdesk, Map.of(), null).getStatus());
+    assertEquals(5, calls.get());
+  }
+
+  /**
+   * Verifies that a half-open trial ending with a checked exception does not leave the circuit stuck.
+   *
+   * <p>Input: two 502s (threshold 2), then after the open period a trial that throws
+   * {@link InterruptedException}, then a healthy host.</p>
+   * <p>Expected: the interrupted trial propagates, the next call is let through as the new trial and closes the circuit.</p>
+   */
+  @Test
+  void interrupted_trial_hands_trial_to_next_call() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      int call = calls.incrementAndGet();
+      if (call <= 2) {
+        return new SimpleHttp.Response(502, "");
+      }
+      if (call == 3) {
+        throw new InterruptedException("shutdown");
+      }
+      return new SimpleHttp.Response(200, "");
+    };
+    AtomicLong now = new AtomicLong(0);
+    CircuitBreakerTransport transport = new CircuitBreakerTransport(fakeTransport, 2, 1000, now::get);
+    String freshdesk = "https://sub.freshdesk.com/api/v2/contacts";
+
+    transport.call("GET", freshdesk, Map.of(), null);
+    transport.call("GET", freshdesk, Map.of(), null);
+    now.set(1000);
+    assertThrows(InterruptedException.class, () -> transport.call("GET", freshdesk, Map.of(), null));
+
+    assertEquals(200, transport.call("GET", freshdesk, Map.of(), null).getStatus());
+    assertEquals(200, transport.call("GET", freshdesk, Map.of(), null).getStatus());
+    assertEquals(5, calls.get());
+  }
+}
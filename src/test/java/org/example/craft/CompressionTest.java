@@ -0,0 +1,106 @@
+package org.example.craft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import org.example.craft.http.Compression;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Compression}.
+ */
+public class CompressionTest {
+
+  private static final byte[] BODY =
+          "{\"login\":\"octocat\",\"name\":\"The Octocat\",\"bio\":\"".concat("meow ".repeat(200)).concat("\"}")
+                  .getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * Verifies that a gzip body is inflated and checked, however the network splits it.
+   *
+   * <p>Input: {@code gzip(BODY)} delivered in 1-byte chunks and in one chunk.</p>
+   * <p>Expected: both produce exactly {@code BODY}.</p>
+   */
+  @Test
+  void gzip_body_is_inflated_across_chunks() throws Exception {
+    byte[] compressed = Compression.gzip(BODY);
+
+    assertTrue(compressed.length < BODY.length);
+    assertArrayEquals(BODY, decode("gzip", compressed, 1));
+    assertArrayEquals(BODY, decode("gzip", compressed, compressed.length));
+  }
+
+  /**
+   * Verifies that deflate is accepted zlib-wrapped and raw.
+   *
+   * <p>Input: {@code BODY} deflated with and without the zlib wrapper, in 1-byte chunks.</p>
+   * <p>Expected: both produce exactly {@code BODY}.</p>
+   */
+  @Test
+  void deflate_body_is_inflated_zlib_or_raw() throws Exception {
+    assertArrayEquals(BODY, decode("deflate", deflate(false), 1));
+    assertArrayEquals(BODY, decode("deflate", deflate(true), 1));
+  }
+
+  /**
+   * Verifies that unknown or missing codings pass the body through.
+   *
+   * <p>Input: {@code BODY} with no Content-Encoding and with "identity".</p>
+   * <p>Expected: {@code BODY} unchanged.</p>
+   */
+  @Test
+  void identity_body_is_passed_through() throws Exception {
+    assertArrayEquals(BODY, decode(null, BODY, 7));
+    assertArrayEquals(BODY, decode("identity", BODY, BODY.length));
+  }
+
+  /**
+   * Verifies that a gzip body cut short fails instead of returning partial data.
+   *
+   * <p>Input: {@code gzip(BODY)} without its last 4 bytes.</p>
+   * <p>Expected: the body future fails with {@link EOFException}.</p>
+   */
+  @Test
+  void truncated_gzip_body_fails() {
+    byte[] compressed = Compression.gzip(BODY);
+    byte[] truncated = Arrays.copyOf(compressed, compressed.length - 4);
+
+    ExecutionException failure = assertThrows(ExecutionException.class, () -> decode("gzip", truncated, 64));
+    assertInstanceOf(EOFException.class, failure.getCause());
+  }
+
+  private static byte[] decode(String contentEncoding, byte[] wire, int chunkSize) throws Exception {
+    HttpResponse.BodySubscriber<byte[]> subscriber = Compression.decoding(contentEncoding);
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {}
+
+      @Override
+      public void cancel() {}
+    });
+    for (int offset = 0; offset < wire.length; offset += chunkSize) {
+      int length = Math.min(chunkSize, wire.length - offset);
+      subscriber.onNext(List.of(ByteBuffer.wrap(wire, offset, length)));
+    }
+    subscriber.onComplete();
+    return subscriber.getBody().toCompletableFuture().get();
+  }
+
+  private static byte[] deflate(boolean raw) throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+      out.write(BODY);
+    }
+    return compressed.toByteArray();
+  }
+}
@@ -0,0 +1,74 @@
+package org.example.craft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import org.example.craft.db.ConnectionPool;
+import org.example.craft.db.MySqlUserRepository;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ConnectionPool}.
+ *
+ * <p>A Mockito {@link Driver} registered for {@code jdbc:fake:} hands out mocked connections,
+ * so no database is needed.</p>
+ */
+public class ConnectionPoolTest {
+
+  /**
+   * Verifies that a connection that threw while leased and is no longer valid is closed on return.
+   *
+   * <p>Input: {@code prepare} fails with SQLState 08S01, {@code isValid} returns false.</p>
+   * <p>Expected: the connection is closed, no idle connection is kept, the next borrow opens a new one.</p>
+   */
+  @Test
+  void broken_connection_is_evicted_on_return() throws Exception {
+    Connection broken = mock(Connection.class);
+    when(broken.prepareStatement(anyString())).thenThrow(new SQLException("Communications link failure", "08S01"));
+    when(broken.isValid(anyInt())).thenReturn(false);
+    Connection healthy = mock(Connection.class);
+    Driver driver = mock(Driver.class);
+    when(driver.acceptsURL(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).startsWith("jdbc:fake:"));
+    when(driver.connect(anyString(), any())).thenReturn(broken, healthy);
+
+    DriverManager.registerDriver(driver);
+    try (ConnectionPool pool = new ConnectionPool("jdbc:fake:pool", "user", "secret", 2)) {
+      try (ConnectionPool.Lease lease = pool.borrow()) {
+        assertThrows(SQLException.class, () -> lease.prepare("SELECT 1"));
+      }
+
+      verify(broken).close();
+      assertEquals(0, pool.stats().getIdle());
+      try (ConnectionPool.Lease lease = pool.borrow()) {
+        lease.connection().getAutoCommit();
+      }
+      verify(healthy).getAutoCommit();
+      assertEquals(1, pool.stats().getIdle());
+    } finally {
+      DriverManager.deregisterDriver(driver);
+    }
+  }
+
+  /**
+   * Verifies that pool statistics can be read before the repository is opened.
+   *
+   * <p>Input: a {@link MySqlUserRepository} that was never opened.</p>
+   * <p>Expected: empty statistics with the configured pool size, no exception.</p>
+   */
+  @Test
+  void pool_stats_before_open_are_empty() {
+    MySqlUserRepository repo = new MySqlUserRepository("jdbc:mysql://localhost/none", "user", "secret", 3);
+
+    ConnectionPool.Stats stats = repo.poolStats();
+
+    assertEquals(0, stats.getActive());
+    assertEquals(3, stats.getMaxSize());
+  }
+}
@@ -0,0 +1,145 @@
+package org.example.craft;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.example.craft.http.Compression;
+import org.example.craft.http.SimpleHttp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SimpleHttp.DefaultTransport}.
+ *
+ * <p>Requests go to a {@link HttpServer} on an ephemeral loopback port.</p>
+ */
+public class DefaultTransportTest {
+
+  private HttpServer server;
+  private String base;
+
+  /** Accept-Encoding of the last request to {@code /gzip}. */
+  private volatile String acceptEncoding;
+
+  /** Content-Encoding of the last request to {@code /upload}. */
+  private volatile String uploadEncoding;
+
+  @BeforeEach
+  void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/echo", exchange -> {
+      byte[] body = (exchange.getRequestMethod() + " " + new String(exchange.getRequestBody().readAllBytes(),
+              StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "text/plain");
+      exchange.sendResponseHeaders(201, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.createContext("/gzip", exchange -> {
+      acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      byte[] body = Compression.gzip("{\"login\":\"octocat\"}".getBytes(StandardCharsets.UTF_8));
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.createContext("/upload", exchange -> {
+      uploadEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+      InputStream in = "gzip".equals(uploadEncoding)
+              ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody();
+      byte[] body = in.readAllBytes();
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.start();
+    base = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  /**
+   * Verifies that the async path sends the request and completes with the server's response.
+   *
+   * <p>Input: {@code callAsync("POST", "/echo", body "hello")}.</p>
+   * <p>Expected: status 201 and body "POST hello".</p>
+   */
+  @Test
+  void call_async_returns_server_response() throws Exception {
+    SimpleHttp.Transport transport = new SimpleHttp.DefaultTransport();
+
+    SimpleHttp.Response response = transport.callAsync("POST", base + "/echo", Map.of(), "hello")
+            .get(5, TimeUnit.SECONDS);
+
+    assertEquals(201, response.getStatus());
+    assertEquals("POST hello", response.getBody());
+  }
+
+  /**
+   * Verifies that an unsupported method fails the future instead of throwing.
+   *
+   * <p>Input: {@code callAsync("DELETE", ...)}.</p>
+   * <p>Expected: a failed future, no exception from the call itself.</p>
+   */
+  @Test
+  void call_async_with_unsupported_method_fails_future() {
+    SimpleHttp.Transport transport = new SimpleHttp.DefaultTransport();
+
+    assertTrue(transport.callAsync("DELETE", base + "/echo", Map.of(), null).isCompletedExceptionally());
+  }
+
+  /**
+   * Verifies that responses are requested compressed and inflated, without the headers of the compressed body.
+   *
+   * <p>Input: {@code GET /gzip}, answered with a gzip body and {@code Content-Encoding: gzip}.</p>
+   * <p>Expected: the request carried {@code Accept-Encoding: gzip, deflate}; the caller sees the JSON,
+   * and no {@code Content-Encoding} or {@code Content-Length} header.</p>
+   */
+  @Test
+  void gzip_response_is_inflated_and_its_headers_dropped() throws Exception {
+    SimpleHttp.Transport transport = new SimpleHttp.DefaultTransport();
+
+    SimpleHttp.Response response = transport.call("GET", base + "/gzip", Map.of(), null);
+
+    assertEquals(Compression.ACCEPT_ENCODING, acceptEncoding);
+    assertEquals("{\"login\":\"octocat\"}", response.getBody());
+    assertTrue(response.getHeaders().keySet().stream().noneMatch("Content-Encoding"::equalsIgnoreCase));
+    assertTrue(response.getHeaders().keySet().stream().noneMatch("Content-Length"::equalsIgnoreCase));
+    assertTrue(response.getHeaders().keySet().stream().anyMatch("Content-Type"::equalsIgnoreCase));
+  }
+
+  /**
+   * Verifies the opt-in request compression threshold.
+   *
+   * <p>Input: threshold 64 bytes; a 200-byte body, then a 10-byte body, both to {@code /upload}.</p>
+   * <p>Expected: the large body arrives with {@code Content-Encoding: gzip} and inflates to the original;
+   * the small one is sent as is.</p>
+   */
+  @Test
+  void request_body_is_gzipped_from_threshold() throws Exception {
+    SimpleHttp.Transport transport = new SimpleHttp.DefaultTransport(
+            null, Duration.ofSeconds(5), Duration.ofSeconds(5), 64);
+    String large = "x".repeat(200);
+
+    SimpleHttp.Response compressed = transport.call("POST", base + "/upload", Map.of(), large);
+    assertEquals("gzip", uploadEncoding);
+    assertEquals(large, compressed.getBody());
+
+    SimpleHttp.Response plain = transport.call("POST", base + "/upload", Map.of(), "small body");
+    assertNull(uploadEncoding);
+    assertEquals("small body", plain.getBody());
+  }
+}
@@ -1,5 +1,11 @@
 package org.example.craft;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.example.craft.freshdesk.ContactNotFoundException;
 import org.example.craft.freshdesk.FreshdeskClient;
 import org.example.craft.freshdesk.dto.FreshdeskContact;
 import org.example.craft.http.SimpleHttp;
@@ -69,4 +75,78 @@ public class FreshdeskClientTest {
 
     assertEquals("77", id);
   }
+
+  /**
+   * Verifies that create and update send the streamed payload as bytes, skipping absent fields.
+   *
+   * <p>Input: contact with external id, name and email, but no address or twitter id; a transport
+   * that only accepts byte bodies.</p>
+   * <p>Expected: both requests carry the same JSON, in the order id, name, email.</p>
+   */
+  @Test
+  void create_and_update_send_encoded_bytes() throws Exception {
+    List<String> bodies = new ArrayList<>();
+    SimpleHttp.Transport bytesOnly = new SimpleHttp.Transport() {
+      @Override
+      public SimpleHttp.Response call(String m, String u, Map<String, String> h, String b) {
+        throw new AssertionError("payload sent as text");
+      }
+
+      @Override
+      public SimpleHttp.Response callBytes(String m, String u, Map<String, String> h, byte[] b) {
+        bodies.add(new String(b, StandardCharsets.UTF_8));
+        return new SimpleHttp.Response(200, "{ \"id\": 5 }");
+      }
+    };
+    FreshdeskContact contact = new FreshdeskContact();
+    contact.setUniqueExternalId("github:octo");
+    contact.setName("Octo \"Cat\"");
+    contact.setEmail("octo@example.com");
+
+    FreshdeskClient client = new FreshdeskClient(bytesOnly, "sub", "FD");
+    client.create(contact);
+    client.update("5", contact);
+
+    String expected = "{\"unique_external_id\":\"github:octo\",\"name\":\"Octo \\\"Cat\\\"\","
+            + "\"email\":\"octo@example.com\"}";
+    assertEquals(List.of(expected, expected), bodies);
+  }
+
+  /**
+   * Verifies that {@link FreshdeskClient#update(String, FreshdeskContact)}
+   * reports a missing contact with {@link ContactNotFoundException}.
+   *
+   * <p>Input: HTTP 404.</p>
+   * <p>Expected: {@link ContactNotFoundException} is thrown.</p>
+   */
+  @Test
+  void update_of_missing_contact_throws_not_found() {
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> new SimpleHttp.Response(404, "{}");
+
+    FreshdeskClient client = new FreshdeskClient(fakeTransport, "sub", "FD");
+
+    assertThrows(ContactNotFoundException.class, () -> client.update("77", new FreshdeskContact()));
+  }
+
+  /**
+   * Verifies the Search API fallback and that byte-backed responses are parsed as a stream.
+   *
+   * <p>Input: empty array from /contacts, then a raw-byte search response whose
+   * {@code results} follow another field.</p>
+   * <p>Expected: the first search result is returned.</p>
+   */
+  @Test
+  void find_falls_back_to_search_results() throws Exception {
+    byte[] searchBody = ("{ \"total\": 1, \"meta\": { \"id\": 1 }, "
+            + "\"results\": [ { \"id\": 7, \"name\": \"Octo\" } ] }").getBytes(StandardCharsets.UTF_8);
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> u.contains("/search/")
+            ? SimpleHttp.Response.ofBytes(200, searchBody, Map.of())
+            : new SimpleHttp.Response(200, "[]");
+
+    FreshdeskClient client = new FreshdeskClient(fakeTransport, "sub", "FD");
+    FreshdeskContact contact = client.findByExternalId("github:octo");
+
+    assertNotNull(contact);
+    assertEquals(7L, contact.getId());
+  }
 }
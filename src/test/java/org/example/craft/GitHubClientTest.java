@@ -5,6 +5,10 @@ import org.example.craft.github.dto.GitHubUser;
 import org.example.craft.http.SimpleHttp;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -50,4 +54,64 @@ public class GitHubClientTest {
     GitHubClient client = new GitHubClient(fakeTransport, "T");
     assertThrows(RuntimeException.class, () -> client.getUser("nope"));
   }
+
+  /**
+   * Verifies that a second {@link GitHubClient#getUser(String)} sends the cached ETag
+   * as {@code If-None-Match} and serves a {@code 304} from the cache.
+   *
+   * <p>Input: HTTP 200 with an {@code ETag}, then HTTP 304 with an empty body.</p>
+   * <p>Expected: the same {@link GitHubUser} instance is returned both times.</p>
+   */
+  @Test
+  void not_modified_is_served_from_cache() throws Exception {
+    List<Map<String, String>> sentHeaders = new ArrayList<>();
+    SimpleHttp.Transport fakeTransport =
+            (method, url, headers, body) -> {
+              sentHeaders.add(headers);
+              if (headers.containsKey("If-None-Match")) {
+                return new SimpleHttp.Response(304, "");
+              }
+              return new SimpleHttp.Response(
+                      200, "{ \"login\": \"octo\" }", Map.of("etag", List.of("\"abc\"")));
+            };
+
+    GitHubClient client = new GitHubClient(fakeTransport, "T");
+    GitHubUser first = client.getUser("octo");
+    GitHubUser second = client.getUser("Octo");
+
+    assertSame(first, second);
+    assertEquals("\"abc\"", sentHeaders.get(1).get("If-None-Match"));
+  }
+
+  /**
+   * Verifies that {@link GitHubClient#getUsers} sends one aliased GraphQL query with the logins
+   * as variables through the GraphQL transport and reports unknown logins individually.
+   *
+   * <p>Input: two logins; the second one is answered with {@code null} and a NOT_FOUND error.</p>
+   * <p>Expected: one POST on the GraphQL transport, none on the REST one; first login mapped to a user with {@code createdAt}, second to {@code null}.</p>
+   */
+  @Test
+  void get_users_batches_logins_into_one_graphql_query() throws Exception {
+    List<String> sentBodies = new ArrayList<>();
+    SimpleHttp.Transport fakeTransport =
+            (method, url, headers, body) -> {
+              assertEquals("POST", method);
+              assertEquals("https://api.github.com/graphql", url);
+              sentBodies.add(body);
+              return new SimpleHttp.Response(200, "{ \"data\": { "
+                      + "\"u0\": { \"login\": \"octo\", \"name\": \"Octo\", \"created_at\": \"2011-01-25T18:44:36Z\" }, "
+                      + "\"u1\": null }, "
+                      + "\"errors\": [ { \"type\": \"NOT_FOUND\", \"path\": [\"u1\"], \"message\": \"nope\" } ] }");
+            };
+
+    SimpleHttp.Transport restTransport = (method, url, headers, body) -> fail("GraphQL sent over REST transport");
+    GitHubClient client = new GitHubClient(restTransport, fakeTransport, "T", null);
+    Map<String, GitHubUser> users = client.getUsers(List.of("octo", "ghost-404"));
+
+    assertEquals(1, sentBodies.size());
+    assertTrue(sentBodies.get(0).contains("\"l1\":\"ghost-404\""), sentBodies.get(0));
+    assertEquals(List.of("octo", "ghost-404"), new ArrayList<>(users.keySet()));
+    assertEquals("2011-01-25T18:44:36Z", users.get("octo").getCreatedAt());
+    assertNull(users.get("ghost-404"));
+  }
 }
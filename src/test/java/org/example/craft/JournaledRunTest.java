@@ -0,0 +1,231 @@
+package org.example.craft;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.example.craft.db.UserRepository;
+import org.example.craft.db.WriteBehindBuffer;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.github.GitHubClient;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.sync.BulkSync;
+import org.example.craft.sync.JournaledRun;
+import org.example.craft.sync.RunJournal;
+import org.example.craft.sync.UserSync;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link JournaledRun}.
+ *
+ * <p>An in-memory {@link RunJournal} stands in for the MySQL tables.</p>
+ */
+public class JournaledRunTest {
+
+  /**
+   * Verifies that a resumed run only redoes logins that did not complete.
+   *
+   * <p>Input: first run persists "a", fails "b"; second run resumes the same id over the same input.</p>
+   * <p>Expected: the resumed run syncs only "b" and finishes as completed.</p>
+   */
+  @Test
+  void resume_skips_completed_logins_and_retries_failures() throws Exception {
+    InMemoryJournal journal = new InMemoryJournal();
+
+    JournaledRun first = JournaledRun.start(journal, "test");
+    BulkSync.LoginTask failingB = login -> {
+      if ("b".equals(login)) {
+        throw new IllegalStateException("Freshdesk down");
+      }
+      first.reached(login, RunJournal.ItemStatus.PERSISTED);
+    };
+    BulkSync.Summary firstSummary =
+            new BulkSync(1).run(first.pending(List.of("a", "b").iterator()), first.track(failingB));
+    first.finish(firstSummary);
+    assertEquals(RunJournal.ItemStatus.FAILED, journal.items.get("b"));
+    assertEquals("FAILED", journal.status);
+
+    JournaledRun resumed = JournaledRun.resume(journal, first.getRunId());
+    List<String> synced = new ArrayList<>();
+    BulkSync.Summary resumedSummary = new BulkSync(1).run(resumed.pending(List.of("A", "b").iterator()),
+            resumed.track(login -> {
+              synced.add(login);
+              resumed.reached(login, RunJournal.ItemStatus.PERSISTED);
+            }));
+    resumed.finish(resumedSummary);
+
+    assertEquals(List.of("b"), synced);
+    assertEquals("COMPLETED", journal.status);
+    assertEquals(2, journal.offset);
+  }
+
+  /**
+   * Verifies that only final statuses are journaled, and only at checkpoints.
+   *
+   * <p>Input: 150 logins, each reporting PERSISTED; then the run finishes.</p>
+   * <p>Expected: no write before the 100th login is dispatched; two checkpoints in total
+   * carrying all 150 statuses.</p>
+   */
+  @Test
+  void final_statuses_are_written_with_checkpoints() throws Exception {
+    InMemoryJournal journal = new InMemoryJournal();
+    JournaledRun run = JournaledRun.start(journal, "test");
+    List<String> input = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      input.add("user" + i);
+    }
+    int[] checkpointsAtUser50 = new int[1];
+
+    BulkSync.Summary summary = new BulkSync(1).run(run.pending(input.iterator()), run.track(login -> {
+      run.reached(login, RunJournal.ItemStatus.PERSISTED);
+      if ("user50".equals(login)) {
+        checkpointsAtUser50[0] = journal.checkpoints;
+      }
+    }));
+    run.finish(summary);
+
+    assertEquals(0, checkpointsAtUser50[0]);
+    assertEquals(2, journal.checkpoints);
+    assertEquals(150, journal.items.size());
+    assertEquals(150, journal.offset);
+  }
+
+  /**
+   * Verifies that a run that aborted is closed as failed and keeps what it reached.
+   *
+   * <p>Input: "a" persisted, then {@code finish(null)}.</p>
+   * <p>Expected: status FAILED, "a" journaled as PERSISTED.</p>
+   */
+  @Test
+  void aborted_run_is_finished_as_failed() throws Exception {
+    InMemoryJournal journal = new InMemoryJournal();
+    JournaledRun run = JournaledRun.start(journal, "test");
+    run.reached("a", RunJournal.ItemStatus.PERSISTED);
+
+    run.finish(null);
+
+    assertEquals("FAILED", journal.status);
+    assertEquals(RunJournal.ItemStatus.PERSISTED, journal.items.get("a"));
+  }
+
+  /**
+   * Verifies that a run joining another run's sync of the same login journals it, even though
+   * its own deferred writer never sees the row.
+   *
+   * <p>Input: run A syncs "octo" writing straight to the repository; run B syncs "OCTO" through
+   * a write-behind buffer while A's GitHub fetch is blocked, so B joins A's execution.</p>
+   * <p>Expected: one Freshdesk create; both runs complete with "octo" journaled as PERSISTED.</p>
+   */
+  @Test
+  void joined_run_with_deferred_writer_journals_the_shared_row() throws Exception {
+    GitHubClient githubClient = mock(GitHubClient.class);
+    FreshdeskClient freshdeskClient = mock(FreshdeskClient.class);
+    UserRepository repo = mock(UserRepository.class);
+    Counter shared = MetricsRegistry.global().counter("sync_single_flight_shared_total");
+    long sharedBefore = shared.get();
+    CountDownLatch fetching = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    GitHubUser githubUser = new GitHubUser();
+    githubUser.setLogin("octo");
+    when(githubClient.getUser("octo")).thenAnswer(invocation -> {
+      fetching.countDown();
+      release.await();
+      return githubUser;
+    });
+    when(repo.findContactId("github:octo")).thenReturn(null);
+    when(freshdeskClient.create(any())).thenReturn("123");
+
+    InMemoryJournal journalA = new InMemoryJournal();
+    InMemoryJournal journalB = new InMemoryJournal();
+    JournaledRun runA = JournaledRun.start(journalA, "test");
+    JournaledRun runB = JournaledRun.start(journalB, "test");
+    UserSync syncA = new UserSync(githubClient, freshdeskClient, repo, repo::upsert, runA);
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try (WriteBehindBuffer buffer = new WriteBehindBuffer(repo, 10, 50, runB)) {
+      UserSync syncB = new UserSync(githubClient, freshdeskClient, repo, buffer, runB);
+      Future<BulkSync.Summary> running = pool.submit(() ->
+              new BulkSync(1).run(runA.pending(List.of("octo").iterator()), runA.track(syncA::sync)));
+      assertTrue(fetching.await(5, TimeUnit.SECONDS));
+      Future<BulkSync.Summary> joined = pool.submit(() ->
+              new BulkSync(1).run(runB.pending(List.of("OCTO").iterator()), runB.track(syncB::sync)));
+      long deadline = System.currentTimeMillis() + 5000;
+      while (shared.get() == sharedBefore && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      runA.finish(running.get(5, TimeUnit.SECONDS));
+      runB.finish(joined.get(5, TimeUnit.SECONDS));
+    } finally {
+      pool.shutdownNow();
+    }
+
+    verify(freshdeskClient, times(1)).create(any());
+    assertEquals("COMPLETED", journalA.status);
+    assertEquals("COMPLETED", journalB.status);
+    assertEquals(RunJournal.ItemStatus.PERSISTED, journalA.items.get("octo"));
+    assertEquals(RunJournal.ItemStatus.PERSISTED, journalB.items.get("octo"));
+  }
+
+  /** Single-run journal kept in memory. */
+  private static final class InMemoryJournal implements RunJournal {
+    private final Map<String, ItemStatus> items = new ConcurrentHashMap<>();
+    private String status;
+    private long offset;
+    private int checkpoints;
+
+    @Override
+    public String startRun(String source) {
+      status = "RUNNING";
+      return "run-1";
+    }
+
+    @Override
+    public long resumeRun(String runId) {
+      if (!"run-1".equals(runId)) {
+        throw new IllegalArgumentException("Unknown run: " + runId);
+      }
+      status = "RUNNING";
+      return offset;
+    }
+
+    @Override
+    public Set<String> completedLogins(String runId) {
+      Set<String> done = new HashSet<>();
+      items.forEach((login, itemStatus) -> {
+        if (itemStatus.isDone()) {
+          done.add(login);
+        }
+      });
+      return done;
+    }
+
+    @Override
+    public void checkpoint(String runId, long savedOffset, Collection<Item> finished) {
+      checkpoints++;
+      finished.forEach(item -> items.put(item.getLogin().toLowerCase(), item.getStatus()));
+      offset = Math.max(offset, savedOffset);
+    }
+
+    @Override
+    public void finishRun(String runId, boolean completed) {
+      status = completed ? "COMPLETED" : "FAILED";
+    }
+  }
+}
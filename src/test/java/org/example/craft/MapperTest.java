@@ -59,4 +59,24 @@ public class MapperTest {
 
     assertEquals("octo", fd.getName());
   }
+
+  /**
+   * Verifies that {@link Mapper#fingerprint(FreshdeskContact)} is stable for equal payloads,
+   * ignores the Freshdesk id, and changes when any pushed field changes.
+   */
+  @Test
+  void fingerprint_tracks_payload_fields() {
+    GitHubUser gh = new GitHubUser();
+    gh.setLogin("octo");
+    gh.setName("Octo Cat");
+
+    FreshdeskContact first = Mapper.map(gh);
+    FreshdeskContact second = Mapper.map(gh);
+    second.setId(42L);
+    assertEquals(Mapper.fingerprint(first), Mapper.fingerprint(second));
+    assertEquals(64, Mapper.fingerprint(first).length());
+
+    gh.setLocation("Sofia");
+    assertNotEquals(Mapper.fingerprint(first), Mapper.fingerprint(Mapper.map(gh)));
+  }
 }
@@ -0,0 +1,69 @@
+package org.example.craft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.craft.github.GitHubClient;
+import org.example.craft.github.MemberSource;
+import org.example.craft.http.SimpleHttp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MemberSource}.
+ *
+ * <p>A fake {@link SimpleHttp.Transport} serves member pages with {@code Link} headers,
+ * the way GitHub paginates {@code /orgs/{org}/members}.</p>
+ */
+public class MemberSourceTest {
+
+  private static final String BASE = "https://api.github.com/orgs/acme/members?per_page=100";
+
+  /**
+   * Verifies numbered pagination with prefetch.
+   *
+   * <p>Input: three pages announced by {@code rel="last"}.</p>
+   * <p>Expected: all logins in page order, every page requested exactly once.</p>
+   */
+  @Test
+  void numbered_pages_are_prefetched_and_streamed_in_order() {
+    Set<String> requested = ConcurrentHashMap.newKeySet();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      assertTrue(requested.add(u), "requested twice: " + u);
+      int page = u.matches(".*[?&]page=\\d+.*") ? Integer.parseInt(u.replaceAll(".*[?&]page=(\\d+).*", "$1")) : 1;
+      String body = "[ { \"login\": \"user" + page + "a\", \"id\": 1 }, { \"login\": \"user" + page + "b\" } ]";
+      String link = "<" + BASE + "&page=" + Math.min(page + 1, 3) + ">; rel=\"next\", <" + BASE + "&page=3>; rel=\"last\"";
+      return new SimpleHttp.Response(200, body, page < 3 ? Map.of("Link", List.of(link)) : Map.of());
+    };
+
+    MemberSource source = new MemberSource(new GitHubClient(fakeTransport, "token"), BASE, 4);
+    List<String> logins = new ArrayList<>();
+    source.forEachRemaining(logins::add);
+
+    assertEquals(List.of("user1a", "user1b", "user2a", "user2b", "user3a", "user3b"), logins);
+    assertEquals(3, requested.size());
+  }
+
+  /**
+   * Verifies cursor pagination that only provides {@code rel="next"}.
+   *
+   * <p>Input: two pages linked by {@code rel="next"} without {@code rel="last"}.</p>
+   * <p>Expected: logins of both pages in order.</p>
+   */
+  @Test
+  void next_links_are_followed_without_last() {
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> u.endsWith("cursor=2")
+            ? new SimpleHttp.Response(200, "[ { \"login\": \"second\" } ]")
+            : new SimpleHttp.Response(200, "[ { \"login\": \"first\" } ]",
+                    Map.of("link", List.of("<" + BASE + "&cursor=2>; rel=\"next\"")));
+
+    MemberSource source = new MemberSource(new GitHubClient(fakeTransport, "token"), BASE, 4);
+    List<String> logins = new ArrayList<>();
+    source.forEachRemaining(logins::add);
+
+    assertEquals(List.of("first", "second"), logins);
+  }
+}
@@ -0,0 +1,66 @@
+package org.example.craft;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.example.craft.http.SimpleHttp;
+import org.example.craft.metrics.Histogram;
+import org.example.craft.metrics.MeteredTransport;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.metrics.PrometheusExporter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the metrics layer ({@link Histogram}, {@link MetricsRegistry},
+ * {@link PrometheusExporter}, {@link MeteredTransport}).
+ *
+ * <p>Each test records into its own registry, so results do not depend on other tests.</p>
+ */
+public class MetricsTest {
+
+  /**
+   * Verifies bucket placement and the quantile estimate.
+   *
+   * <p>Input: 99 observations of 1 ms and one of 3 s.</p>
+   * <p>Expected: p50 is the 1 ms bucket, p100 is the 4.096 s bucket.</p>
+   */
+  @Test
+  void histogram_estimates_quantiles_from_buckets() {
+    Histogram histogram = new Histogram();
+    for (int index = 0; index < 99; index++) {
+      histogram.observeNanos(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    histogram.observeNanos(TimeUnit.SECONDS.toNanos(3));
+
+    assertEquals(100, histogram.count());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(1), histogram.quantileNanos(0.5));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(4096), histogram.quantileNanos(1.0));
+  }
+
+  /**
+   * Verifies that HTTP calls are recorded per endpoint template and status class
+   * and exported in the Prometheus text format.
+   *
+   * <p>Input: two GETs for different logins answered with 200, one counter increment.</p>
+   * <p>Expected: one series for {@code /users/{login}} with count 2, counter exported with its value.</p>
+   */
+  @Test
+  void metered_calls_are_exported_per_endpoint_template() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> new SimpleHttp.Response(200, "{}");
+    MeteredTransport transport = new MeteredTransport(fakeTransport, registry);
+
+    transport.call("GET", "https://api.github.com/users/octocat", Map.of(), null);
+    transport.call("GET", "https://api.github.com/users/hubot?x=1", Map.of(), null);
+    registry.counter("sync_contacts_total", "outcome", "created").increment();
+
+    String text = PrometheusExporter.scrape(registry);
+    String series = "http_client_request_seconds_count"
+            + "{method=\"GET\",endpoint=\"api.github.com/users/{login}\",status=\"2xx\"} 2";
+    assertTrue(text.contains("# TYPE http_client_request_seconds histogram"), text);
+    assertTrue(text.contains(series), text);
+    assertTrue(text.contains("le=\"+Inf\"} 2"), text);
+    assertTrue(text.contains("sync_contacts_total{outcome=\"created\"} 1"), text);
+  }
+}
@@ -5,6 +5,9 @@ import org.example.craft.db.UserSnapshot;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -51,4 +54,29 @@ public class MySqlUserRepositoryTest {
             assertTrue(true);
         }
     }
+
+    /**
+     * Verifies that {@link MySqlUserRepository#upsertAll(java.util.Collection)} writes every row
+     * in one transaction and that the pooled connection is returned afterwards.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "DB_URL", matches = ".+")
+    @EnabledIfEnvironmentVariable(named = "DB_USER", matches = ".+")
+    @EnabledIfEnvironmentVariable(named = "DB_PASSWORD", matches = ".*")
+    void upsert_all_and_find_when_env_present() throws Exception {
+        String url  = System.getenv("DB_URL");
+        String user = System.getenv("DB_USER");
+        String pass = System.getenv("DB_PASSWORD");
+
+        try (MySqlUserRepository repo = new MySqlUserRepository(url, user, pass, 2)) {
+            repo.open();
+            repo.initSchema();
+            repo.upsertAll(List.of(
+                    new UserSnapshot("octo", "Octo Batch", "2011-01-25T18:44:36Z"),
+                    new UserSnapshot("hubot", "Hubot", "2012-01-01T00:00:00Z")));
+
+            assertEquals("Octo Batch", repo.findByLogin("octo").getName());
+            assertEquals(0, repo.poolStats().getActive());
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package org.example.craft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.example.craft.db.UserSnapshot;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.http.SimpleHttp;
+import org.example.craft.sync.Outbox;
+import org.example.craft.sync.OutboxDrainer;
+import org.example.craft.sync.SyncListener;
+import org.example.craft.sync.UserSync;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the outbox flow: {@link UserSync} with an {@link Outbox} and the {@link OutboxDrainer}.
+ *
+ * <p>An in-memory outbox stands in for the {@code freshdesk_outbox} table.</p>
+ */
+public class OutboxTest {
+
+  /**
+   * Verifies that syncing only writes to the outbox and that the drainer pushes it later.
+   *
+   * <p>Input: users "octocat" and "hubot" synced with an outbox; Freshdesk rejects the first create of hubot.</p>
+   * <p>Expected: no Freshdesk call during the sync; draining creates octocat and acknowledges it,
+   * while hubot is rescheduled with its error.</p>
+   */
+  @Test
+  void sync_enqueues_and_drainer_pushes_with_retry() throws Exception {
+    List<String> calls = new CopyOnWriteArrayList<>();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      calls.add(m + " " + (b == null ? "" : b));
+      if ("GET".equals(m)) {
+        return new SimpleHttp.Response(200, "[]");
+      }
+      return b.contains("hubot")
+              ? new SimpleHttp.Response(429, "{\"message\":\"slow down\"}")
+              : new SimpleHttp.Response(201, "{\"id\":7}");
+    };
+    FreshdeskClient freshdesk = new FreshdeskClient(fakeTransport, "sub", "FD");
+    InMemoryOutbox outbox = new InMemoryOutbox();
+    UserSync sync = new UserSync(null, freshdesk, null, null, SyncListener.NONE, outbox);
+
+    assertEquals(UserSync.Outcome.QUEUED, sync.sync(user("octocat")));
+    assertEquals(UserSync.Outcome.QUEUED, sync.sync(user("hubot")));
+    assertTrue(calls.isEmpty());
+    assertEquals(2, outbox.pending());
+
+    OutboxDrainer drainer = new OutboxDrainer(outbox, freshdesk, null, 2);
+    assertEquals(2, drainer.drainOnce());
+    drainer.close();
+
+    assertEquals(1, outbox.pending());
+    assertEquals("hubot", outbox.entries.get(0).getLogin());
+    assertTrue(outbox.errors.get(0).contains("429"));
+    assertTrue(calls.stream().anyMatch(call -> call.startsWith("POST") && call.contains("github:octocat")));
+  }
+
+  private static GitHubUser user(String login) {
+    GitHubUser user = new GitHubUser();
+    user.setLogin(login);
+    return user;
+  }
+
+  /** Outbox kept in memory; retried entries are not due again within the test. */
+  private static final class InMemoryOutbox implements Outbox {
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Entry> delayed = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private long nextId;
+
+    @Override
+    public synchronized void enqueue(UserSnapshot snapshot, String payload) {
+      entries.add(new Entry(++nextId, snapshot.getLogin(), snapshot.getContactHash(), payload, 0));
+    }
+
+    @Override
+    public synchronized List<Entry> due(int limit) {
+      List<Entry> due = new ArrayList<>(entries);
+      due.removeAll(delayed);
+      return due.subList(0, Math.min(limit, due.size()));
+    }
+
+    @Override
+    public synchronized void acknowledge(Entry entry) {
+      entries.remove(entry);
+    }
+
+    @Override
+    public synchronized void retryLater(Entry entry, int delaySeconds, String error) {
+      delayed.add(entry);
+      errors.add(error);
+    }
+
+    @Override
+    public synchronized long pending() {
+      return entries.size();
+    }
+  }
+}
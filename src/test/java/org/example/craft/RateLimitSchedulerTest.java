@@ -0,0 +1,121 @@
+package org.example.craft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.craft.github.RateLimitScheduler;
+import org.example.craft.http.SimpleHttp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RateLimitScheduler}.
+ *
+ * <p>A fake clock advances only when the scheduler parks a caller,
+ * so the tests observe the exact waits without sleeping.</p>
+ */
+public class RateLimitSchedulerTest {
+
+  /**
+   * Verifies that a secondary-limit 403 with {@code Retry-After} parks the caller
+   * for the advertised time and then retries the request.
+   */
+  @Test
+  void retries_after_retry_after() throws Exception {
+    AtomicLong clock = new AtomicLong(1_000_000);
+    List<Long> waits = new ArrayList<>();
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> calls.incrementAndGet() == 1
+            ? new SimpleHttp.Response(403, "secondary rate limit", Map.of("Retry-After", List.of("3")))
+            : new SimpleHttp.Response(200, "{}");
+
+    RateLimitScheduler scheduler = new RateLimitScheduler(fakeTransport, 5, clock::get, millis -> {
+      waits.add(millis);
+      clock.addAndGet(millis);
+    });
+    SimpleHttp.Response response = scheduler.call("GET", "https://api.github.com/users/octo", Map.of(), null);
+
+    assertEquals(200, response.getStatus());
+    assertEquals(2, calls.get());
+    assertEquals(List.of(3000L), waits);
+  }
+
+  /**
+   * Verifies that calls are spread evenly over the rest of the window:
+   * 10 remaining requests with 10 seconds to reset means one call per second.
+   */
+  @Test
+  void spaces_calls_across_reset_window() throws Exception {
+    AtomicLong clock = new AtomicLong(1_000_000);
+    List<Long> waits = new ArrayList<>();
+    long resetSeconds = (clock.get() + 10_000) / 1000;
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> new SimpleHttp.Response(200, "{}", Map.of(
+            "X-RateLimit-Remaining", List.of("10"),
+            "X-RateLimit-Reset", List.of(String.valueOf(resetSeconds))));
+
+    RateLimitScheduler scheduler = new RateLimitScheduler(fakeTransport, 5, clock::get, millis -> {
+      waits.add(millis);
+      clock.addAndGet(millis);
+    });
+    scheduler.call("GET", "https://api.github.com/users/a", Map.of(), null);
+    scheduler.call("GET", "https://api.github.com/users/b", Map.of(), null);
+    scheduler.call("GET", "https://api.github.com/users/c", Map.of(), null);
+
+    assertEquals(List.of(1000L), waits);
+  }
+
+  /**
+   * Verifies that calls are not paced while most of the budget is left.
+   *
+   * <p>Input: responses reporting 4000 of 5000 calls remaining, 10 seconds before the reset.</p>
+   * <p>Expected: three calls go out without any wait.</p>
+   */
+  @Test
+  void does_not_pace_above_low_water_mark() throws Exception {
+    AtomicLong clock = new AtomicLong(1_000_000);
+    List<Long> waits = new ArrayList<>();
+    long resetSeconds = (clock.get() + 10_000) / 1000;
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> new SimpleHttp.Response(200, "{}", Map.of(
+            "X-RateLimit-Limit", List.of("5000"),
+            "X-RateLimit-Remaining", List.of("4000"),
+            "X-RateLimit-Reset", List.of(String.valueOf(resetSeconds))));
+
+    RateLimitScheduler scheduler = new RateLimitScheduler(fakeTransport, 5, clock::get, millis -> {
+      waits.add(millis);
+      clock.addAndGet(millis);
+    });
+    scheduler.call("GET", "https://api.github.com/users/a", Map.of(), null);
+    scheduler.call("GET", "https://api.github.com/users/b", Map.of(), null);
+    scheduler.call("GET", "https://api.github.com/users/c", Map.of(), null);
+
+    assertEquals(List.of(), waits);
+  }
+
+  /**
+   * Verifies that the async path retries a rate-limited request without a blocking sleep.
+   *
+   * <p>Input: one 429 with {@code Retry-After: 0}, then HTTP 200, through {@code callAsync}.</p>
+   * <p>Expected: future completes with the 200 after two calls; the {@link RateLimitScheduler.Sleeper} is never used.</p>
+   */
+  @Test
+  void async_rate_limited_request_is_retried() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> calls.incrementAndGet() == 1
+            ? new SimpleHttp.Response(429, "", Map.of("Retry-After", List.of("0")))
+            : new SimpleHttp.Response(200, "{}");
+
+    RateLimitScheduler scheduler = new RateLimitScheduler(fakeTransport, 5, System::currentTimeMillis, millis -> {
+      throw new AssertionError("async path must not sleep");
+    });
+    SimpleHttp.Response response = scheduler
+            .callAsync("GET", "https://api.github.com/users/octo", Map.of(), null)
+            .get(5, TimeUnit.SECONDS);
+
+    assertEquals(200, response.getStatus());
+    assertEquals(2, calls.get());
+  }
+}
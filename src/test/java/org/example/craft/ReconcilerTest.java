@@ -0,0 +1,92 @@
+package org.example.craft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.example.craft.freshdesk.ContactDirectory;
+import org.example.craft.freshdesk.FreshdeskClient;
+import org.example.craft.github.dto.GitHubUser;
+import org.example.craft.http.SimpleHttp;
+import org.example.craft.sync.Reconciler;
+import org.example.craft.sync.SyncListener;
+import org.example.craft.sync.UserSync;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Reconciler} and {@link ContactDirectory}.
+ *
+ * <p>A fake {@link SimpleHttp.Transport} serves one page of contacts and records every call.</p>
+ */
+public class ReconcilerTest {
+
+  /**
+   * Verifies that reconciliation needs no per-user Freshdesk lookups.
+   *
+   * <p>Input: the scan finds "same" (up to date) and "stale" (old name); users "same", "Stale" and "fresh".</p>
+   * <p>Expected: one page read, one PUT for the stale contact, one POST for the new one, nothing for "same";
+   * one scanned contact stays unmatched.</p>
+   */
+  @Test
+  void reconcile_pushes_only_creates_and_updates() throws Exception {
+    String page = "[{\"id\":1,\"unique_external_id\":\"github:same\",\"name\":\"Same\"},"
+            + "{\"id\":2,\"unique_external_id\":\"github:stale\",\"name\":\"Old\"},"
+            + "{\"id\":3,\"unique_external_id\":\"github:gone\",\"name\":\"Gone\"},"
+            + "{\"id\":4,\"unique_external_id\":\"manual-42\",\"name\":\"Manual\"}]";
+    List<String> calls = new ArrayList<>();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      calls.add(m + " " + u.substring(u.indexOf("/contacts")));
+      return switch (m) {
+        case "GET" -> new SimpleHttp.Response(200, page);
+        case "PUT" -> new SimpleHttp.Response(200, "{\"id\":2}");
+        default -> new SimpleHttp.Response(201, "{\"id\":5}");
+      };
+    };
+    FreshdeskClient freshdesk = new FreshdeskClient(fakeTransport, "sub", "FD");
+
+    ContactDirectory remote = ContactDirectory.scan(freshdesk);
+    Reconciler reconciler = new Reconciler(null, freshdesk, remote, Map.of(), null, null, SyncListener.NONE);
+
+    assertEquals(3, remote.size());
+    assertEquals(UserSync.Outcome.UNCHANGED, reconciler.reconcile(user("same", "Same")));
+    assertEquals(UserSync.Outcome.UPDATED, reconciler.reconcile(user("Stale", "New")));
+    assertEquals(UserSync.Outcome.CREATED, reconciler.reconcile(user("fresh", "Fresh")));
+    assertEquals(List.of("GET /contacts?per_page=100&page=1", "PUT /contacts/2", "POST /contacts"), calls);
+    assertEquals(1, reconciler.unmatchedContacts());
+  }
+
+  /**
+   * Verifies that a contact Freshdesk stored in a different format is not taken for a changed one.
+   *
+   * <p>Input: the scan returns "octo" with a lower-cased email, a trimmed name and an {@code @} before
+   * the Twitter handle; the GitHub user has the same values in their original form.</p>
+   * <p>Expected: UNCHANGED, only the page read is sent.</p>
+   */
+  @Test
+  void reformatted_remote_contact_is_unchanged() throws Exception {
+    String page = "[{\"id\":1,\"unique_external_id\":\"github:octo\",\"name\":\"Octo Cat\","
+            + "\"email\":\"octo@example.com\",\"twitter_id\":\"@OctoCat\"}]";
+    List<String> calls = new ArrayList<>();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      calls.add(m + " " + u.substring(u.indexOf("/contacts")));
+      return new SimpleHttp.Response(200, page);
+    };
+    FreshdeskClient freshdesk = new FreshdeskClient(fakeTransport, "sub", "FD");
+    Reconciler reconciler = new Reconciler(null, freshdesk, ContactDirectory.scan(freshdesk), Map.of(),
+            null, null, SyncListener.NONE);
+    GitHubUser user = user("Octo", "Octo Cat ");
+    user.setEmail("Octo@Example.com");
+    user.setTwitterUsername("OctoCat");
+
+    assertEquals(UserSync.Outcome.UNCHANGED, reconciler.reconcile(user));
+    assertEquals(List.of("GET /contacts?per_page=100&page=1"), calls);
+  }
+
+  private static GitHubUser user(String login, String name) {
+    GitHubUser user = new GitHubUser();
+    user.setLogin(login);
+    user.setName(name);
+    return user;
+  }
+}
@@ -0,0 +1,71 @@
+package org.example.craft;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.craft.http.RetryingTransport;
+import org.example.craft.http.SimpleHttp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RetryingTransport}.
+ *
+ * <p>A fake {@link SimpleHttp.Transport} fails a given number of times; jitter is fixed
+ * and sleeping is recorded instead of performed.</p>
+ */
+public class RetryingTransportTest {
+
+  /**
+   * Verifies that a GET is retried after an I/O error and a 503 with growing backoff.
+   *
+   * <p>Input: connect reset, then 503, then HTTP 200; jitter always 1.0, base delay 100 ms.</p>
+   * <p>Expected: caller sees the 200 after waits of 100 ms and 200 ms.</p>
+   */
+  @Test
+  void idempotent_request_is_retried_with_exponential_backoff() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      int call = calls.incrementAndGet();
+      if (call == 1) {
+        throw new IOException("Connection reset");
+      }
+      return call == 2 ? new SimpleHttp.Response(503, "") : new SimpleHttp.Response(200, "{}");
+    };
+    List<Long> sleeps = new ArrayList<>();
+
+    RetryingTransport transport =
+            new RetryingTransport(fakeTransport, 4, 100, 10_000, 0.2, () -> 1.0, sleeps::add);
+    SimpleHttp.Response response = transport.call("GET", "https://api.github.com/users/octo", Map.of(), null);
+
+    assertEquals(200, response.getStatus());
+    assertEquals(3, calls.get());
+    assertEquals(List.of(100L, 200L), sleeps);
+  }
+
+  /**
+   * Verifies that a POST is never retried.
+   *
+   * <p>Input: HTTP 503 for a POST.</p>
+   * <p>Expected: the 503 is returned after a single call.</p>
+   */
+  @Test
+  void non_idempotent_request_is_not_retried() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    SimpleHttp.Transport fakeTransport = (m, u, h, b) -> {
+      calls.incrementAndGet();
+      return new SimpleHttp.Response(503, "");
+    };
+
+    RetryingTransport transport =
+            new RetryingTransport(fakeTransport, 4, 100, 10_000, 0.2, () -> 1.0, millis -> { });
+    SimpleHttp.Response response =
+            transport.call("POST", "https://sub.freshdesk.com/api/v2/contacts", Map.of(), "{}");
+
+    assertEquals(503, response.getStatus());
+    assertEquals(1, calls.get());
+  }
+}
@@ -0,0 +1,106 @@
+package org.example.craft;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+import org.example.craft.sync.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+
+  private static final Counter SHARED = MetricsRegistry.global().counter("sync_single_flight_shared_total");
+
+  /**
+   * Verifies that concurrent callers for one key share a single execution and its result.
+   *
+   * <p>Input: four threads call {@code run("octocat", ...)} while the first execution is blocked.</p>
+   * <p>Expected: the work runs once, all callers get its result, and a later call runs again.</p>
+   */
+  @Test
+  void concurrent_calls_for_one_key_share_one_execution() throws Exception {
+    SingleFlight<String, String> flights = new SingleFlight<>();
+    AtomicInteger executions = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    long sharedBefore = SHARED.get();
+    try {
+      Future<String> first = pool.submit(() -> flights.run("octocat", () -> {
+        started.countDown();
+        release.await();
+        return "created #" + executions.incrementAndGet();
+      }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      Future<String> second = pool.submit(() -> flights.run("octocat", () -> "created #" + executions.incrementAndGet()));
+      Future<String> third = pool.submit(() -> flights.run("octocat", () -> "created #" + executions.incrementAndGet()));
+      awaitShared(sharedBefore + 2);
+      release.countDown();
+
+      assertEquals("created #1", first.get(5, TimeUnit.SECONDS));
+      assertEquals("created #1", second.get(5, TimeUnit.SECONDS));
+      assertEquals("created #1", third.get(5, TimeUnit.SECONDS));
+      assertEquals(0, flights.inFlight());
+      assertEquals("created #2", flights.run("octocat", () -> "created #" + executions.incrementAndGet()));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Verifies that callers joining a failing execution get its exception.
+   *
+   * <p>Input: the shared execution throws {@link IllegalStateException}.</p>
+   * <p>Expected: the joining caller sees the same exception instance.</p>
+   */
+  @Test
+  void joined_callers_see_the_shared_failure() throws Exception {
+    SingleFlight<String, String> flights = new SingleFlight<>();
+    IllegalStateException failure = new IllegalStateException("Freshdesk down");
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    long sharedBefore = SHARED.get();
+    try {
+      Future<String> first = pool.submit(() -> flights.run("octocat", () -> {
+        started.countDown();
+        release.await();
+        throw failure;
+      }));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      Future<Exception> joined = pool.submit(() -> {
+        try {
+          flights.run("octocat", () -> "never");
+          return null;
+        } catch (Exception e) {
+          return e;
+        }
+      });
+      awaitShared(sharedBefore + 1);
+      release.countDown();
+
+      assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+      assertSame(failure, joined.get(5, TimeUnit.SECONDS));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Waits until the expected number of callers joined a running execution. */
+  private static void awaitShared(long expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (SHARED.get() < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(expected, SHARED.get());
+  }
+}
@@ -0,0 +1,121 @@
+package org.example.craft;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.Set;
+import org.example.craft.db.SqliteUserRepository;
+import org.example.craft.db.UserRepository;
+import org.example.craft.db.UserSnapshot;
+import org.example.craft.sync.Outbox;
+import org.example.craft.sync.RunJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SqliteUserRepository} against a temporary database file; no server needed.
+ */
+public class SqliteUserRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifies that a {@code jdbc:sqlite:} URL opens the SQLite backend in WAL mode and that
+     * single and batched upserts replace rows by login.
+     *
+     * <p>Input: upsert of "octo", then a batch with an updated "octo" and a new "hubot".</p>
+     * <p>Expected: journal mode "wal"; "octo" has the batched name and hash, "hubot" exists.</p>
+     */
+    @Test
+    void upsert_all_replaces_rows_in_wal_mode() throws Exception {
+        String url = SqliteUserRepository.URL_PREFIX + dir.resolve("craft.db");
+        try (UserRepository repo = UserRepository.forUrl(url, null, null)) {
+            assertInstanceOf(SqliteUserRepository.class, repo);
+            repo.open();
+            repo.initSchema();
+            repo.upsert(new UserSnapshot("octo", "Octo Cat", "2011-01-25T18:44:36Z"));
+            repo.upsertAll(List.of(
+                    new UserSnapshot("octo", "Octo Batch", "2011-01-25T18:44:36Z", "abc"),
+                    new UserSnapshot("hubot", "Hubot", "2012-01-01T00:00:00Z")));
+
+            assertEquals("Octo Batch", repo.findByLogin("octo").getName());
+            assertEquals("abc", repo.contactHashes().get("octo"));
+            assertNotNull(repo.findByLogin("hubot"));
+            assertNull(repo.findByLogin("nobody"));
+        }
+        try (Connection connection = DriverManager.getConnection(url);
+             var rs = connection.createStatement().executeQuery("PRAGMA journal_mode")) {
+            assertTrue(rs.next());
+            assertEquals("wal", rs.getString(1));
+        }
+    }
+
+    /**
+     * Verifies the outbox on SQLite: enqueue, delayed retry and acknowledge.
+     *
+     * <p>Input: "octo" enqueued, its entry retried with a 60 s delay, then "octo" enqueued again.</p>
+     * <p>Expected: the retried entry is not due; re-enqueueing makes it due with a new hash,
+     * acknowledging the stale entry keeps it and acknowledging the current one removes it.</p>
+     */
+    @Test
+    void outbox_enqueue_retry_and_acknowledge() throws Exception {
+        try (UserRepository repo = new SqliteUserRepository(
+                SqliteUserRepository.URL_PREFIX + dir.resolve("outbox.db"))) {
+            repo.open();
+            repo.initSchema();
+            repo.enqueue(new UserSnapshot("octo", "Octo", "2011-01-25T18:44:36Z", "h1"), "{\"name\":\"Octo\"}");
+            assertEquals("h1", repo.findByLogin("octo").getContactHash());
+
+            List<Outbox.Entry> due = repo.due(10);
+            assertEquals(1, due.size());
+            Outbox.Entry stale = due.get(0);
+            repo.retryLater(stale, 60, "boom");
+            assertTrue(repo.due(10).isEmpty());
+            assertEquals(1, repo.pending());
+
+            repo.enqueue(new UserSnapshot("octo", "Octo 2", "2011-01-25T18:44:36Z", "h2"), "{\"name\":\"Octo 2\"}");
+            Outbox.Entry current = repo.due(10).get(0);
+            assertEquals("h2", current.getContactHash());
+            assertEquals(0, current.getAttempts());
+
+            repo.acknowledge(stale);
+            assertEquals(1, repo.pending());
+            repo.acknowledge(current);
+            assertEquals(0, repo.pending());
+        }
+    }
+
+    /**
+     * Verifies the run journal on SQLite: statuses and offset are checkpointed together, and a
+     * completed run drops its items and cannot be resumed.
+     *
+     * <p>Input: a run checkpointed with "octo" PERSISTED and "hubot" FAILED at offset 2, resumed,
+     * then finished as completed.</p>
+     * <p>Expected: the resume sees offset 2 and only "octo" as completed; after finishing,
+     * no items remain and resuming again is rejected.</p>
+     */
+    @Test
+    void run_journal_checkpoints_and_prunes_completed_runs() throws Exception {
+        String url = SqliteUserRepository.URL_PREFIX + dir.resolve("craft.db");
+        try (UserRepository repo = UserRepository.forUrl(url, null, null)) {
+            repo.open();
+            repo.initSchema();
+            String runId = repo.startRun("test");
+            repo.checkpoint(runId, 2, List.of(
+                    new RunJournal.Item("Octo", RunJournal.ItemStatus.PERSISTED, null),
+                    new RunJournal.Item("hubot", RunJournal.ItemStatus.FAILED, "Freshdesk down")));
+
+            assertEquals(2, repo.resumeRun(runId));
+            assertEquals(Set.of("octo"), repo.completedLogins(runId));
+
+            repo.finishRun(runId, true);
+
+            assertTrue(repo.completedLogins(runId).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> repo.resumeRun(runId));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.craft;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import org.example.craft.daemon.GitHubWebhook;
+import org.example.craft.daemon.LoginDebouncer;
+import org.example.craft.daemon.SyncDaemon;
+import org.example.craft.daemon.SyncJob;
+import org.example.craft.metrics.Counter;
+import org.example.craft.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SyncDaemon}.
+ *
+ * <p>The daemon listens on an ephemeral loopback port; a fake runner records the jobs instead of syncing.</p>
+ */
+public class SyncDaemonTest {
+
+  private static final String TOKEN = "test-token";
+
+  /**
+   * Verifies that submitted jobs are queued, run in order with the daemon's options, and reported.
+   *
+   * <p>Input: {@code POST /jobs?user=octocat}, then {@code POST /jobs} with two logins in the body.</p>
+   * <p>Expected: both answered with 202, both run with subdomain "sub", and {@code GET /jobs/2}
+   * reports SUCCEEDED with the runner's result.</p>
+   */
+  @Test
+  void submitted_jobs_run_in_order_and_report_status() throws Exception {
+    CliArgs defaults = CliArgs.parse(new String[] {"--daemon", "1", "--subdomain", "sub"});
+    List<SyncJob> ran = new CopyOnWriteArrayList<>();
+    SyncDaemon daemon = SyncDaemon.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), defaults, TOKEN,
+            job -> {
+              ran.add(job);
+              return "synced " + job.getSource();
+            });
+    try {
+      HttpClient http = HttpClient.newHttpClient();
+      String base = "http://127.0.0.1:" + daemon.getPort();
+
+      HttpResponse<String> single = http.send(HttpRequest.newBuilder(URI.create(base + "/jobs?user=octocat"))
+              .header(SyncDaemon.TOKEN_HEADER, TOKEN)
+              .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> list = http.send(HttpRequest.newBuilder(URI.create(base + "/jobs"))
+              .header(SyncDaemon.TOKEN_HEADER, TOKEN)
+              .POST(HttpRequest.BodyPublishers.ofString("alice\n# skip\nbob\n")).build(),
+              HttpResponse.BodyHandlers.ofString());
+      assertEquals(202, single.statusCode());
+      assertEquals(202, list.statusCode());
+
+      HttpResponse<String> status;
+      long deadline = System.currentTimeMillis() + 5000;
+      do {
+        Thread.sleep(20);
+        status = http.send(HttpRequest.newBuilder(URI.create(base + "/jobs/2")).build(),
+                HttpResponse.BodyHandlers.ofString());
+      } while ((status.body().contains("QUEUED") || status.body().contains("RUNNING"))
+              && System.currentTimeMillis() < deadline);
+
+      assertTrue(status.body().contains("\"status\":\"SUCCEEDED\""), status.body());
+      assertTrue(status.body().contains("synced list:2"), status.body());
+      assertEquals("octocat", ran.get(0).getArgs().getGithubUser());
+      assertEquals("sub", ran.get(0).getArgs().getFreshdeskSubdomain());
+      assertEquals(List.of("alice", "bob"), ran.get(1).getLogins());
+    } finally {
+      daemon.close();
+    }
+  }
+
+  /**
+   * Verifies that jobs cannot be submitted without the token, e.g. by a web page posting cross-origin.
+   *
+   * <p>Input: a browser-style {@code text/plain} POST without the token header, and one with a wrong token.</p>
+   * <p>Expected: both answered with 401 and no job is queued.</p>
+   */
+  @Test
+  void submission_without_token_is_rejected() throws Exception {
+    CliArgs defaults = CliArgs.parse(new String[] {"--daemon", "1", "--subdomain", "sub"});
+    List<SyncJob> ran = new CopyOnWriteArrayList<>();
+    SyncDaemon daemon = SyncDaemon.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), defaults, TOKEN,
+            job -> {
+              ran.add(job);
+              return "synced";
+            });
+    try {
+      HttpClient http = HttpClient.newHttpClient();
+      String base = "http://127.0.0.1:" + daemon.getPort();
+
+      HttpResponse<String> forged = http.send(HttpRequest.newBuilder(URI.create(base + "/jobs"))
+              .header("Content-Type", "text/plain")
+              .header("Origin", "https://evil.example")
+              .POST(HttpRequest.BodyPublishers.ofString("octocat\n")).build(), HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> wrong = http.send(HttpRequest.newBuilder(URI.create(base + "/jobs?user=octocat"))
+              .header(SyncDaemon.TOKEN_HEADER, "guess")
+              .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> jobs = http.send(HttpRequest.newBuilder(URI.create(base + "/jobs")).build(),
+              HttpResponse.BodyHandlers.ofString());
+
+      assertEquals(401, forged.statusCode());
+      assertEquals(401, wrong.statusCode());
+      assertEquals("[]", jobs.body());
+      assertTrue(ran.isEmpty());
+    } finally {
+      daemon.close();
+    }
+  }
+
+  /**
+   * Verifies that signed webhook deliveries are coalesced per login into one list job.
+   *
+   * <p>Input: three membership events for "octocat", one organization event for "hubot" and one
+   * delivery with a wrong signature, all inside a one-second window.</p>
+   * <p>Expected: the bad delivery gets 401; exactly one job runs with logins [octocat, hubot].</p>
+   */
+  @Test
+  void webhook_events_are_verified_and_debounced_per_login() throws Exception {
+    CliArgs defaults = CliArgs.parse(new String[] {"--daemon", "1", "--subdomain", "sub"});
+    List<SyncJob> ran = new CopyOnWriteArrayList<>();
+    SyncDaemon daemon = SyncDaemon.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), defaults, TOKEN,
+            job -> {
+              ran.add(job);
+              return "ok";
+            });
+    GitHubWebhook webhook = new GitHubWebhook("s3cret");
+    daemon.enableWebhooks(webhook, Duration.ofSeconds(1));
+    try {
+      HttpClient http = HttpClient.newHttpClient();
+      URI uri = URI.create("http://127.0.0.1:" + daemon.getPort() + "/webhooks/github");
+      http.send(HttpRequest.newBuilder(uri.resolve("/health")).build(), HttpResponse.BodyHandlers.discarding());
+      String membership = "{\"action\":\"added\",\"member\":{\"login\":\"octocat\"},\"team\":{\"slug\":\"x\"}}";
+      String organization = "{\"action\":\"member_added\",\"membership\":{\"user\":{\"login\":\"hubot\"}}}";
+
+      for (int i = 0; i < 3; i++) {
+        assertEquals(202, deliver(http, uri, "membership", membership, webhook.sign(membership.getBytes())));
+      }
+      assertEquals(202, deliver(http, uri, "organization", organization, webhook.sign(organization.getBytes())));
+      assertEquals(401, deliver(http, uri, "membership", membership, "sha256=00"));
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (ran.isEmpty() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      Thread.sleep(300);
+      assertEquals(1, ran.size());
+      assertEquals(List.of("octocat", "hubot"), ran.get(0).getLogins());
+    } finally {
+      daemon.close();
+    }
+  }
+
+  /**
+   * Verifies that a batch the job queue rejects is retried in the next window instead of being lost.
+   *
+   * <p>Input: "octocat" offered; the first flush throws {@link RejectedExecutionException} (queue full),
+   * "hubot" is offered meanwhile.</p>
+   * <p>Expected: the second flush gets [octocat, hubot]; one login is counted as requeued.</p>
+   */
+  @Test
+  void rejected_webhook_batch_is_requeued() throws Exception {
+    Counter requeued = MetricsRegistry.global().counter("webhook_logins_total", "result", "requeued");
+    long requeuedBefore = requeued.get();
+    List<List<String>> flushed = new CopyOnWriteArrayList<>();
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    LoginDebouncer[] debouncer = new LoginDebouncer[1];
+    debouncer[0] = new LoginDebouncer(Duration.ofMillis(50), batch -> {
+      flushed.add(batch);
+      if (flushed.size() == 1) {
+        debouncer[0].offer("hubot");
+        throw new RejectedExecutionException("job queue is full");
+      }
+    }, scheduler);
+    try {
+      debouncer[0].offer("octocat");
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (flushed.size() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+
+      assertEquals(List.of(List.of("octocat"), List.of("octocat", "hubot")), flushed);
+      assertEquals(1, requeued.get() - requeuedBefore);
+      assertEquals(0, debouncer[0].pending());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private static int deliver(HttpClient http, URI uri, String event, String body, String signature)
+          throws Exception {
+    return http.send(HttpRequest.newBuilder(uri)
+                    .header(GitHubWebhook.EVENT_HEADER, event)
+                    .header(GitHubWebhook.SIGNATURE_HEADER, signature)
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+            HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+}
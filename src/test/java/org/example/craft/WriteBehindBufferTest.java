@@ -0,0 +1,93 @@
+package org.example.craft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.sql.SQLException;
+import java.util.List;
+import org.example.craft.db.UserRepository;
+import org.example.craft.db.UserSnapshot;
+import org.example.craft.db.WriteBehindBuffer;
+import org.example.craft.sync.RunJournal;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link WriteBehindBuffer}.
+ *
+ * <p>The repository is a Mockito mock that records every batch, so no MySQL is needed.</p>
+ */
+public class WriteBehindBufferTest {
+
+  /**
+   * Verifies that rows are flushed in batches, repeated logins collapse into
+   * the latest snapshot, and {@link WriteBehindBuffer#close()} flushes the remainder.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  void batches_rows_and_flushes_on_close() throws Exception {
+    UserRepository repo = mock(UserRepository.class);
+    List<UserSnapshot> written = new ArrayList<>();
+    doAnswer(invocation -> {
+      written.addAll((Collection<UserSnapshot>) invocation.getArgument(0));
+      return null;
+    }).when(repo).upsertAll(anyCollection());
+
+    try (WriteBehindBuffer buffer = new WriteBehindBuffer(repo, 100, 60_000)) {
+      buffer.write(new UserSnapshot("octo", "Octo", "2011-01-25T18:44:36Z"));
+      buffer.write(new UserSnapshot("hubot", "Hubot", "2012-01-01T00:00:00Z"));
+      buffer.write(new UserSnapshot("octo", "Octo Updated", "2011-01-25T18:44:36Z"));
+      verify(repo, never()).upsertAll(anyCollection());
+    }
+
+    verify(repo, times(1)).upsertAll(anyCollection());
+    assertEquals(2, written.size());
+    assertEquals("Octo Updated", written.get(0).getName());
+  }
+
+  /**
+   * Verifies that a login is reported as persisted only once its batch is committed.
+   *
+   * <p>Input: "octo" written; the listener records every reported login.</p>
+   * <p>Expected: nothing reported before the flush; "octo" reported as PERSISTED after {@code close()}.</p>
+   */
+  @Test
+  void reports_persisted_after_flush() throws Exception {
+    UserRepository repo = mock(UserRepository.class);
+    List<String> persisted = new ArrayList<>();
+
+    try (WriteBehindBuffer buffer = new WriteBehindBuffer(repo, 100, 60_000, (login, status) -> {
+      assertEquals(RunJournal.ItemStatus.PERSISTED, status);
+      persisted.add(login);
+    })) {
+      buffer.write(new UserSnapshot("octo", "Octo", "2011-01-25T18:44:36Z"));
+      assertTrue(buffer.isDeferred());
+      assertEquals(List.of(), persisted);
+    }
+
+    assertEquals(List.of("octo"), persisted);
+  }
+
+  /**
+   * Verifies that the buffer stops accepting rows once it is full and the DB keeps failing.
+   *
+   * <p>Input: {@code maxRows} 1, every batch fails, up to 100 distinct logins written.</p>
+   * <p>Expected: a write fails with {@link IllegalStateException} caused by the DB error.</p>
+   */
+  @Test
+  void full_buffer_fails_writers_when_db_keeps_failing() throws Exception {
+    UserRepository repo = mock(UserRepository.class);
+    doThrow(new SQLException("down")).when(repo).upsertAll(anyCollection());
+
+    WriteBehindBuffer buffer = new WriteBehindBuffer(repo, 1, 60_000);
+    IllegalStateException failure = assertThrows(IllegalStateException.class, () -> {
+      for (int i = 0; i < 100; i++) {
+        buffer.write(new UserSnapshot("user" + i, "User", "2011-01-25T18:44:36Z"));
+      }
+    });
+    assertInstanceOf(SQLException.class, failure.getCause());
+    assertThrows(SQLException.class, buffer::close);
+  }
+}